@@ -0,0 +1,254 @@
+package com.barnes.flashcards.benchmark;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.barnes.flashcards.controller.ReviewActivity;
+import com.barnes.flashcards.dao.CardScheduleDao;
+import com.barnes.flashcards.dao.DeckDao;
+import com.barnes.flashcards.dao.FlashcardDao;
+import com.barnes.flashcards.database.DataGenerator;
+import com.barnes.flashcards.database.FlashcardsRoomDatabase;
+import com.barnes.flashcards.model.Flashcard;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Times the DAO queries the app depends on, on generated databases of different sizes.
+ *
+ * <p> For every size, this class builds an in-memory database, fills it with that many flashcards
+ * spread over DECK_COUNT decks by DataGenerator, and times each operation ITERATIONS times after a
+ * warm up. The generator is seeded, so every run on every device times the same rows. Choosing a
+ * review session is also timed the old way, with getRowCard(), and the new ways are reported next
+ * to it. The results are logged and written as JSON to the app's external files directory, so they
+ * can be compared between builds to catch regressions. The largest sizes need a device with enough
+ * memory for the whole database. </p>
+ */
+@RunWith(AndroidJUnit4.class)
+public class DaoBenchmark {
+    private static final String TAG = "DaoBenchmark";
+
+    // The database sizes that are run, in flashcards
+    private static final int[] SIZES = {1_000, 10_000, 100_000, 1_000_000};
+
+    private static final int ITERATIONS = 10;
+
+    // Where the results are written, in the app's external files directory
+    private static final String RESULTS_FILE = "dao-benchmark.json";
+
+    private static final int DECK_COUNT = 10;
+
+    // The flashcards chosen for a review session, as in ReviewActivity
+    private static final int SESSION_SIZE = ReviewActivity.DEFAULT_SESSION_SIZE;
+
+    // The deck updates timed for each iteration, each in its own transaction like the app's writes
+    private static final int UPDATES_PER_ITERATION = 100;
+
+    // One of DataGenerator's syllables, so a search matches about the same share of the rows at
+    // every size
+    private static final String SEARCH = "%dan%";
+
+    private static final long SEED = 42;
+
+    /**
+     * Times every operation on a database of every size, and logs and writes the results.
+     */
+    @Test
+    public void runAllSizes() throws IOException {
+        Context context = ApplicationProvider.getApplicationContext();
+        List<Result> results = new ArrayList<>();
+
+        for (int size : SIZES) {
+            FlashcardsRoomDatabase database = FlashcardsRoomDatabase.buildInMemory(context);
+            try {
+                new DataGenerator(SEED).generate(database.getOpenHelper().getWritableDatabase(),
+                        DECK_COUNT, size, null);
+                results.addAll(runOnDatabase(database, size));
+            } finally {
+                database.close();
+            }
+        }
+
+        for (Result result : results) {
+            Log.i(TAG, result.toString());
+            assertTrue(result.getRows() > 0);
+        }
+
+        File file = new File(context.getExternalFilesDir(null), RESULTS_FILE);
+        try (OutputStream output = new FileOutputStream(file)) {
+            writeJson(results, output);
+        }
+        Log.i(TAG, "Results written to " + file);
+    }
+
+    private List<Result> runOnDatabase(FlashcardsRoomDatabase database, int size) {
+        FlashcardDao flashcardDao = database.flashcardDao();
+        DeckDao deckDao = database.deckDao();
+        CardScheduleDao cardScheduleDao = database.cardScheduleDao();
+        Random random = new Random(SEED);
+        List<Result> results = new ArrayList<>();
+
+        // Deck IDs start at 1
+        int deckId = 1;
+        int deckSize = deckDao.getDeckFromId(deckId).getSize();
+
+        // The baseline: choosing a session the way ReviewActivity.chooseCards() used to, one OFFSET
+        // row at a time, probing past archived and already chosen flashcards. Every query reads all
+        // the rows before its offset
+        Result rowCards = time(size, "getRowCard", () -> {
+            Set<Integer> chosen = new HashSet<>();
+            for (int i = 0; i < SESSION_SIZE && deckSize > 0; i++) {
+                int offset = random.nextInt(deckSize);
+                for (int probes = 0; probes < deckSize; probes++) {
+                    Flashcard flashcard = flashcardDao.getRowCard(offset, deckId);
+                    if (flashcard != null && flashcard.getStatus() != Flashcard.Status.ARCHIVED
+                            && chosen.add(flashcard.getCardId()))
+                        break;
+                    offset = (offset + 1) % deckSize;
+                }
+            }
+            return chosen.size();
+        });
+        results.add(rowCards);
+
+        // The sessions FlashcardsRepository.loadReviewSession() reads, compared with the baseline:
+        // a random sample when nothing is due, and the due flashcards otherwise
+        results.add(time(size, "sampleCards", () -> flashcardDao.sampleCards(deckId, SESSION_SIZE).size())
+                .comparedTo(rowCards));
+        results.add(time(size, "getNextCards", () -> cardScheduleDao.getNextCards(deckId, SESSION_SIZE).size())
+                .comparedTo(rowCards));
+
+        results.add(time(size, "searchFlashcards", () -> flashcardDao.searchFlashcards(SEARCH).size()));
+
+        results.add(time(size, "getFlashcardsInDeck", () -> flashcardDao.getFlashcardsInDeck(deckId).size()));
+
+        results.add(time(size, "getAllDecks", () -> deckDao.getAllDecks().size()));
+
+        Result updates = time(size, "addGuesses", () -> {
+            for (int i = 0; i < UPDATES_PER_ITERATION; i++)
+                deckDao.addGuesses(1 + random.nextInt(DECK_COUNT), 1, random.nextInt(2), System.currentTimeMillis());
+            return UPDATES_PER_ITERATION;
+        });
+        results.add(updates);
+
+        return results;
+    }
+
+    // Runs the operation once to warm up, then times it ITERATIONS times
+    private Result time(int size, String operation, Operation body) {
+        int rows = body.run();
+
+        long[] times = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            body.run();
+            times[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(times);
+        return new Result(size, operation, rows, times[times.length / 2],
+                times[Math.min(times.length - 1, times.length * 9 / 10)]);
+    }
+
+    /**
+     * Writes results as a JSON array, one object for each result.
+     *
+     * @param results The results to write
+     * @param output The stream to write to. It is flushed but not closed
+     * @throws IOException If the stream can't be written
+     */
+    private static void writeJson(List<Result> results, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+
+        writer.write("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            writer.write(String.format(Locale.ROOT,
+                    "  {\"cards\":%d,\"operation\":\"%s\",\"rows\":%d,\"median_ns\":%d,\"p90_ns\":%d",
+                    result.cards, result.operation, result.rows, result.medianNanos, result.p90Nanos));
+            if (result.baseline != null)
+                writer.write(String.format(Locale.ROOT, ",\"baseline\":\"%s\",\"baseline_median_ns\":%d",
+                        result.baseline.operation, result.baseline.medianNanos));
+            writer.write("}");
+            writer.write(i < results.size() - 1 ? ",\n" : "\n");
+        }
+        writer.write("]\n");
+        writer.flush();
+    }
+
+    // A timed operation. Returns the number of rows it read or wrote
+    private interface Operation {
+        int run();
+    }
+
+    /**
+     * The timings of a single operation on a single database size.
+     */
+    private static class Result {
+        private final int cards;
+        private final String operation;
+        private final int rows;
+        private final long medianNanos;
+        private final long p90Nanos;
+
+        // The operation this one replaces, timed on the same database, or null
+        private Result baseline;
+
+        Result(int cards, String operation, int rows, long medianNanos, long p90Nanos) {
+            this.cards = cards;
+            this.operation = operation;
+            this.rows = rows;
+            this.medianNanos = medianNanos;
+            this.p90Nanos = p90Nanos;
+        }
+
+        int getRows() {
+            return rows;
+        }
+
+        // Reports this operation next to the one it replaces
+        Result comparedTo(Result baseline) {
+            this.baseline = baseline;
+            return this;
+        }
+
+        /**
+         * Overrides the toString() method.
+         *
+         * @return The operation and size with the median and 90th percentile times in milliseconds,
+         *         and the baseline's median if there is one
+         */
+        @Override
+        public String toString() {
+            String text = String.format(Locale.ROOT, "%s on %d cards: median %.3f ms, p90 %.3f ms (%d rows)",
+                    operation, cards, medianNanos / 1e6, p90Nanos / 1e6, rows);
+            if (baseline == null)
+                return text;
+
+            return text + String.format(Locale.ROOT, ", %s median %.3f ms, %.1fx faster", baseline.operation,
+                    baseline.medianNanos / 1e6, (double) baseline.medianNanos / Math.max(1, medianNanos));
+        }
+    }
+}
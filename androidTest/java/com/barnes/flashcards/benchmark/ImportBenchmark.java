@@ -0,0 +1,90 @@
+package com.barnes.flashcards.benchmark;
+
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.barnes.flashcards.database.FlashcardsRoomDatabase;
+import com.barnes.flashcards.database.WriteQueue;
+import com.barnes.flashcards.io.DelimitedImporter;
+import com.barnes.flashcards.model.Deck;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures how fast DelimitedImporter imports a large file.
+ *
+ * <p> This class imports a generated TSV file through the real WriteQueue and FlashcardBatchWriter
+ * into an in-memory database, and logs the cards imported per second. The speed is only logged, as
+ * it depends on the device; the benchmark fails only if cards are lost. </p>
+ */
+@RunWith(AndroidJUnit4.class)
+public class ImportBenchmark {
+    private static final String TAG = "ImportBenchmark";
+
+    private static final int ROWS = 200_000;
+
+    // The longest to wait for the writer thread to stop after the benchmark
+    private static final long SHUTDOWN_MILLIS = 5_000;
+
+    private FlashcardsRoomDatabase database;
+    private WriteQueue writeQueue;
+    private int deckId;
+
+    /**
+     * Creates a new in-memory database with an empty deck before the benchmark.
+     */
+    @Before
+    public void createDatabase() {
+        database = FlashcardsRoomDatabase.buildInMemory(ApplicationProvider.getApplicationContext());
+        writeQueue = new WriteQueue(database);
+
+        Deck deck = new Deck();
+        deck.setTitle("Import");
+        deckId = (int) database.deckDao().insert(deck);
+    }
+
+    @After
+    public void closeDatabase() throws InterruptedException {
+        writeQueue.shutdown();
+        writeQueue.awaitTermination(SHUTDOWN_MILLIS);
+        database.close();
+    }
+
+    /**
+     * Imports the generated file and logs the cards imported per second.
+     *
+     * @throws IOException If the file can't be read
+     */
+    @Test
+    public void importLargeFile() throws IOException {
+        StringBuilder file = new StringBuilder("front\tback\tstatus\n");
+        for (int i = 0; i < ROWS; i++)
+            file.append("front ").append(i).append("\tback ").append(i).append('\t')
+                    .append(i % 2 == 0 ? "LEARNED" : "STILL_LEARNING").append('\n');
+        byte[] bytes = file.toString().getBytes(StandardCharsets.UTF_8);
+
+        DelimitedImporter importer = new DelimitedImporter(writeQueue, database.flashcardDao());
+        long start = System.nanoTime();
+        DelimitedImporter.Result result = importer.importInto(deckId, new ByteArrayInputStream(bytes),
+                DelimitedImporter.Format.TSV, null);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Log.i(TAG, String.format(Locale.ROOT, "Imported %d cards in %.2f s, %.0f cards per second",
+                result.getImported(), seconds, result.getImported() / seconds));
+
+        assertEquals(ROWS, result.getImported());
+        assertEquals(ROWS, database.deckDao().getDeckFromId(deckId).getSize());
+    }
+}
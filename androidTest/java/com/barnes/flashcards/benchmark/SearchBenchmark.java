@@ -0,0 +1,152 @@
+package com.barnes.flashcards.benchmark;
+
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.barnes.flashcards.dao.FlashcardDao;
+import com.barnes.flashcards.database.DataGenerator;
+import com.barnes.flashcards.database.FlashcardsRepository;
+import com.barnes.flashcards.database.FlashcardsRoomDatabase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the LIKE search against the full-text search.
+ *
+ * <p> This class runs the same searches through FlashcardDao.searchFlashcards() and
+ * FlashcardDao.matchFlashcards() on an in-memory database filled by DataGenerator, and logs the
+ * median time and the number of results of each. The searches are words and prefixes the generator
+ * writes, from common to rare. </p>
+ */
+@RunWith(AndroidJUnit4.class)
+public class SearchBenchmark {
+    private static final String TAG = "SearchBenchmark";
+
+    private static final int DECK_COUNT = 20;
+    private static final int CARD_COUNT = 100_000;
+    private static final long SEED = 1;
+    private static final int ITERATIONS = 10;
+
+    private static final List<String> SEARCHES = Arrays.asList("ka", "dan", "terol", "qua mel", "vi ix sor");
+
+    private FlashcardsRoomDatabase database;
+    private FlashcardDao flashcardDao;
+
+    /**
+     * Fills a new in-memory database before each benchmark.
+     */
+    @Before
+    public void createDatabase() {
+        database = FlashcardsRoomDatabase.buildInMemory(ApplicationProvider.getApplicationContext());
+        flashcardDao = database.flashcardDao();
+        new DataGenerator(SEED).generate(database.getOpenHelper().getWritableDatabase(),
+                DECK_COUNT, CARD_COUNT, null);
+    }
+
+    @After
+    public void closeDatabase() {
+        database.close();
+    }
+
+    /**
+     * Times every search with both search paths and logs the results.
+     */
+    @Test
+    public void compareSearches() {
+        for (Result result : run(SEARCHES)) {
+            Log.i(TAG, result.toString());
+            assertTrue(result.getFtsCount() <= FlashcardsRepository.SEARCH_LIMIT);
+        }
+    }
+
+    /**
+     * Times every search with both search paths.
+     *
+     * @param searches The user input to search for
+     * @return Returns a result for each search
+     */
+    private List<Result> run(List<String> searches) {
+        List<Result> results = new ArrayList<>();
+
+        for (String search : searches) {
+            Result result = new Result(search);
+            String likeSearch = "%" + search.toLowerCase() + "%";
+            String matchQuery = FlashcardsRepository.toMatchQuery(search);
+
+            // Warm up both paths so the page cache is in the same state for each
+            result.likeCount = flashcardDao.searchFlashcards(likeSearch).size();
+            result.ftsCount = matchQuery.isEmpty() ? 0 : match(matchQuery);
+
+            long[] likeTimes = new long[ITERATIONS];
+            long[] ftsTimes = new long[ITERATIONS];
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                flashcardDao.searchFlashcards(likeSearch);
+                likeTimes[i] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                if (!matchQuery.isEmpty())
+                    match(matchQuery);
+                ftsTimes[i] = System.nanoTime() - start;
+            }
+
+            result.likeNanos = median(likeTimes);
+            result.ftsNanos = median(ftsTimes);
+            results.add(result);
+        }
+
+        return results;
+    }
+
+    // Run a full-text search the same way FlashcardsRepository does, including the ranking
+    private int match(String matchQuery) {
+        return flashcardDao.matchFlashcards(matchQuery, FlashcardsRepository.SEARCH_LIMIT).size();
+    }
+
+    private static long median(long[] times) {
+        Arrays.sort(times);
+        return times[times.length / 2];
+    }
+
+    /**
+     * The timings of a single search.
+     */
+    private static class Result {
+        private final String search;
+        private long likeNanos;
+        private int likeCount;
+        private long ftsNanos;
+        private int ftsCount;
+
+        Result(String search) {
+            this.search = search;
+        }
+
+        int getFtsCount() {
+            return ftsCount;
+        }
+
+        /**
+         * Overrides the toString() method.
+         *
+         * @return The search with the median time in milliseconds and result count of each path
+         */
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "'%s': LIKE %.2f ms (%d rows), FTS %.2f ms (%d rows)",
+                    search, likeNanos / 1e6, likeCount, ftsNanos / 1e6, ftsCount);
+        }
+    }
+}
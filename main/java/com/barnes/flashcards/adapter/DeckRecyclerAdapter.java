@@ -5,33 +5,34 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.barnes.flashcards.databinding.DeckRowBinding;
 import com.barnes.flashcards.model.Deck;
 import com.barnes.flashcards.R;
 
-import java.util.List;
+import java.util.Objects;
 
 /**
  * Recycler Adapter for the Deck class.
  *
- * <p> Sets up the cards for the RecyclerView list of decks. Contains the public class
+ * <p> Sets up the cards for the RecyclerView list of decks. New lists of decks are given to
+ * submitList(), and only the rows that changed are redrawn. Contains the public class
  * ViewHolder and the interface OnContactClickListener. </p>
  */
-public class DeckRecyclerAdapter extends RecyclerView.Adapter<DeckRecyclerAdapter.ViewHolder> {
-    private List<Deck> deckList;
+public class DeckRecyclerAdapter extends ListAdapter<Deck, DeckRecyclerAdapter.ViewHolder> {
     private OnContactClickListener onContactClickListener;
 
     /**
      * Constructor for DeckRecyclerAdapter.
      *
-     * @param deckList The list of Decks that the RecyclerView will use
      * @param onContactClickListener A listener that specifies what will happen when the card is
      *                               clicked in the RecyclerView
      */
-    public DeckRecyclerAdapter(List<Deck> deckList, OnContactClickListener onContactClickListener) {
-        this.deckList = deckList;
+    public DeckRecyclerAdapter(OnContactClickListener onContactClickListener) {
+        super(DIFF_CALLBACK);
         this.onContactClickListener = onContactClickListener;
     }
 
@@ -57,27 +58,27 @@ public class DeckRecyclerAdapter extends RecyclerView.Adapter<DeckRecyclerAdapte
      * Displays the data at the given position.
      *
      * <p> This method displays the data from the specified position. It populates the ViewHolder's
-     * card with  the information for the Deck located at the given position in the deckList. </p>
+     * card with  the information for the Deck located at the given position in the current list. </p>
      * @param holder The ViewHolder that contains the views where the data will be displayed
      * @param position The position in the RecyclerView where the information will be displayed,
-     *                 also the position in the deckList for which Deck to use.
+     *                 also the position in the current list for which Deck to use.
      */
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Deck deck = deckList.get(position);
+        Deck deck = getItem(position);
 
         holder.binding.titleTextview.setText(deck.getTitle());
         holder.binding.sizeTextview.setText(Integer.toString(deck.getSize()));
     }
 
     /**
-     * Gets the size of the list of Decks being displayed.
+     * Gets the Deck displayed at the given position.
      *
-     * @return Returns the size of the list of Decks being displayed
+     * @param position The position in the RecyclerView
+     * @return Returns the Deck at that position
      */
-    @Override
-    public int getItemCount() {
-        return deckList.size();
+    public Deck getDeck(int position) {
+        return getItem(position);
     }
 
     /**
@@ -108,6 +109,23 @@ public class DeckRecyclerAdapter extends RecyclerView.Adapter<DeckRecyclerAdapte
         }
     }
 
+    /**
+     * Tells the adapter which rows changed when a new list of decks is submitted.
+     */
+    private static final DiffUtil.ItemCallback<Deck> DIFF_CALLBACK = new DiffUtil.ItemCallback<Deck>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Deck oldItem, @NonNull Deck newItem) {
+            return oldItem.getDeckId() == newItem.getDeckId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Deck oldItem, @NonNull Deck newItem) {
+            // Only what is shown in the row
+            return Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                    && oldItem.getSize() == newItem.getSize();
+        }
+    };
+
     /**
      * Interface that specifies a listener that will tell the View in ViewHolder what to do when clicked.
      */
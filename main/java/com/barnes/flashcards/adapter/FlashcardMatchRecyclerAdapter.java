@@ -0,0 +1,176 @@
+package com.barnes.flashcards.adapter;
+
+import android.graphics.Typeface;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.StyleSpan;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.barnes.flashcards.R;
+import com.barnes.flashcards.databinding.FlashcardRowBinding;
+import com.barnes.flashcards.model.Flashcard;
+import com.barnes.flashcards.model.FlashcardMatch;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Recycler Adapter for the FlashcardMatch class.
+ *
+ * <p> Sets up the cards for the RecyclerView list of search results. Each row shows the front and
+ * back of the matched flashcard like FlashcardRecyclerAdapter does, and under them the snippet of
+ * the match with the matched words in bold. New lists of matches are given to submitList(), and
+ * only the rows that were added, removed or changed are redrawn. </p>
+ */
+public class FlashcardMatchRecyclerAdapter extends ListAdapter<FlashcardMatch, FlashcardMatchRecyclerAdapter.ViewHolder> {
+    private final FlashcardRecyclerAdapter.OnContactClickListener onContactClickListener;
+
+    /**
+     * Constructor for FlashcardMatchRecyclerAdapter. The adapter starts with an empty list.
+     *
+     * @param onContactClickListener A listener that specifies what will happen when the card is
+     *                               clicked in the RecyclerView
+     */
+    public FlashcardMatchRecyclerAdapter(FlashcardRecyclerAdapter.OnContactClickListener onContactClickListener) {
+        super(DIFF_CALLBACK);
+        this.onContactClickListener = onContactClickListener;
+    }
+
+    /**
+     * Class that creates a ViewHolder.
+     *
+     * <p> This is called when the Adapter needs a new ViewHolder to represent an item. The delete
+     * checkbox is never used for search results, so it is hidden here. </p>
+     * @param parent The group that the ViewHolder's view will be added to.
+     * @param viewType An int specifying the type of ViewHolder to create, if there are multiple
+     *                 ViewHolders. (override getItemViewType())
+     * @return Returns a ViewHolder object
+     */
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.flashcard_row, parent, false);
+        ViewHolder holder = new ViewHolder(view);
+        holder.binding.cardDeleteCheckbox.setVisibility(View.GONE);
+        return holder;
+    }
+
+    /**
+     * Displays the data at the given position.
+     *
+     * <p> This method populates the ViewHolder's card with the front and back of the matched
+     * flashcard, and shows the highlighted snippet if the match has one. </p>
+     * @param holder The ViewHolder that contains the views where the data will be displayed
+     * @param position The position in the RecyclerView where the information will be displayed,
+     *                 also the position in the current list for which match to use.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        FlashcardMatch match = getItem(position);
+        Flashcard flashcard = match.getFlashcard();
+        holder.binding.vocabFront.setText(flashcard.getFront());
+        holder.binding.vocabBack.setText(flashcard.getBack());
+
+        String snippet = match.getSnippet();
+        if (snippet == null || snippet.isEmpty()) {
+            holder.binding.matchSnippet.setVisibility(View.GONE);
+        } else {
+            holder.binding.matchSnippet.setText(highlight(snippet));
+            holder.binding.matchSnippet.setVisibility(View.VISIBLE);
+        }
+    }
+
+    /**
+     * Returns the list of items the adapter is currently using.
+     *
+     * @return Returns the list of items the adapter is using, which can't be changed
+     */
+    public List<FlashcardMatch> getItems() {
+        return getCurrentList();
+    }
+
+    /**
+     * Turns the markers in a snippet into bold text.
+     *
+     * <p> The text between each FlashcardMatch.SNIPPET_START and the following SNIPPET_END is made
+     * bold, and the markers themselves are removed. A start without an end makes the rest of the
+     * snippet bold. </p>
+     * @param snippet A snippet from FlashcardMatch.getSnippet()
+     * @return Returns the snippet with the matched words in bold
+     */
+    static CharSequence highlight(String snippet) {
+        SpannableStringBuilder text = new SpannableStringBuilder();
+        int matchStart = -1;
+
+        for (int i = 0; i < snippet.length(); i++) {
+            char c = snippet.charAt(i);
+            if (c == FlashcardMatch.SNIPPET_START) {
+                matchStart = text.length();
+            } else if (c == FlashcardMatch.SNIPPET_END) {
+                if (matchStart >= 0 && matchStart < text.length())
+                    text.setSpan(new StyleSpan(Typeface.BOLD), matchStart, text.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                matchStart = -1;
+            } else {
+                text.append(c);
+            }
+        }
+
+        if (matchStart >= 0 && matchStart < text.length())
+            text.setSpan(new StyleSpan(Typeface.BOLD), matchStart, text.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        return text;
+    }
+
+    /**
+     * Class that sets up the View for the Recycler Adapter to use.
+     */
+    public class ViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
+        final FlashcardRowBinding binding;
+
+        /**
+         * Constructor for the ViewHolder class.
+         *
+         * @param itemView The view that will hold the row in the Recycler Adapter
+         */
+        public ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            binding = FlashcardRowBinding.bind(itemView);
+            itemView.setOnClickListener(this);
+        }
+
+        /**
+         * Method that passes the onClick to the onContactClickListener.
+         *
+         * @param view The view (row) that was clicked on
+         */
+        @Override
+        public void onClick(View view) {
+            onContactClickListener.onContactClick(getAdapterPosition(), view);
+        }
+    }
+
+    /**
+     * Tells the adapter which rows changed when a new list of matches is submitted.
+     */
+    private static final DiffUtil.ItemCallback<FlashcardMatch> DIFF_CALLBACK = new DiffUtil.ItemCallback<FlashcardMatch>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull FlashcardMatch oldItem, @NonNull FlashcardMatch newItem) {
+            return oldItem.getFlashcard().getCardId() == newItem.getFlashcard().getCardId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull FlashcardMatch oldItem, @NonNull FlashcardMatch newItem) {
+            // Only what is shown in the row
+            return Objects.equals(oldItem.getFlashcard().getFront(), newItem.getFlashcard().getFront())
+                    && Objects.equals(oldItem.getFlashcard().getBack(), newItem.getFlashcard().getBack())
+                    && Objects.equals(oldItem.getSnippet(), newItem.getSnippet());
+        }
+    };
+}
@@ -0,0 +1,178 @@
+package com.barnes.flashcards.adapter;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.barnes.flashcards.R;
+import com.barnes.flashcards.databinding.FlashcardRowBinding;
+import com.barnes.flashcards.model.Flashcard;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Paging Recycler Adapter for the Flashcard class.
+ *
+ * <p> Sets up the cards for a RecyclerView list of flashcards that is loaded one page at a time.
+ * Only the pages near the user's scroll position are kept in memory, so it can be used for decks
+ * of any size. Deleted flashcards are removed row by row when the next page generation is diffed.
+ * Contains the public class ViewHolder and uses the OnContactClickListener interface from
+ * FlashcardRecyclerAdapter. </p>
+ */
+public class FlashcardPagingAdapter extends PagingDataAdapter<Flashcard, FlashcardPagingAdapter.ViewHolder> {
+    private FlashcardRecyclerAdapter.OnContactClickListener onContactClickListener;
+    private boolean isDelete = false;
+    private final Set<Integer> selectedIds = new HashSet<>();
+
+    /**
+     * Constructor for FlashcardPagingAdapter.
+     *
+     * @param onContactClickListener A listener that specifies what will happen when the card is
+     *                               clicked in the RecyclerView
+     */
+    public FlashcardPagingAdapter(FlashcardRecyclerAdapter.OnContactClickListener onContactClickListener) {
+        super(DIFF_CALLBACK);
+        this.onContactClickListener = onContactClickListener;
+    }
+
+    /**
+     * Class that creates a ViewHolder.
+     *
+     * <p> This is called when the Adapter needs a new ViewHolder to represent an item. </p>
+     * @param parent The group that the ViewHolder's view will be added to.
+     * @param viewType An int specifying the type of ViewHolder to create, if there are multiple
+     *                 ViewHolders. (override getItemViewType())
+     * @return Returns a ViewHolder object
+     */
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.flashcard_row, parent, false);
+        return new ViewHolder(view);
+    }
+
+    /**
+     * Displays the data at the given position.
+     *
+     * <p> This method displays the data from the specified position. It populates the ViewHolder's
+     * card with the information for the Flashcard located at the given position in the loaded
+     * pages. </p>
+     * @param holder The ViewHolder that contains the views where the data will be displayed
+     * @param position The position in the RecyclerView where the information will be displayed
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        Flashcard flashcard = getItem(position);
+        if (flashcard == null)
+            return;
+
+        if (isDelete) {
+            holder.binding.cardDeleteCheckbox.setChecked(selectedIds.contains(flashcard.getCardId()));
+            holder.binding.cardDeleteCheckbox.setVisibility(View.VISIBLE);
+        } else {
+            holder.binding.cardDeleteCheckbox.setChecked(false);
+            holder.binding.cardDeleteCheckbox.setVisibility(View.GONE);
+        }
+
+        holder.binding.vocabFront.setText(flashcard.getFront());
+        holder.binding.vocabBack.setText(flashcard.getBack());
+    }
+
+    /**
+     * Sets the isDelete property.
+     *
+     * <p> This method tells the onBindViewHolder() method whether to display the delete Checkboxes.
+     * This will allow the flashcards to be selected for deletion. </p>
+     * @param isDelete True if the flashcards are being selected for deletion
+     */
+    public void setDelete(boolean isDelete) {
+        this.isDelete = isDelete;
+
+        if (!isDelete)
+            selectedIds.clear();
+
+        // Only the checkboxes change, so the rows are rebound instead of recreated
+        notifyItemRangeChanged(0, getItemCount());
+    }
+
+    /**
+     * Selects or unselects a flashcard for deletion.
+     *
+     * <p> The selection is kept by card ID, so it is not lost when rows are recycled or new pages
+     * are loaded. </p>
+     * @param cardId The ID of the flashcard
+     * @return Returns true if the flashcard is now selected
+     */
+    public boolean toggleSelected(int cardId) {
+        if (selectedIds.remove(cardId))
+            return false;
+
+        selectedIds.add(cardId);
+        return true;
+    }
+
+    /**
+     * Returns the IDs of the flashcards selected for deletion.
+     *
+     * @return Returns a list of the selected card IDs
+     */
+    public List<Integer> getSelectedIds() {
+        return new ArrayList<>(selectedIds);
+    }
+
+    /**
+     * Class that sets up the View for the Recycler Adapter to use.
+     */
+    public class ViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
+        final FlashcardRowBinding binding;
+
+        /**
+         * Constructor for the ViewHolder class.
+         *
+         * @param itemView The view that will hold the row in the Recycler Adapter
+         */
+        public ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            binding = FlashcardRowBinding.bind(itemView);
+            itemView.setOnClickListener(this);
+        }
+
+        /**
+         * Method that passes the onClick to the onContactClickListener.
+         *
+         * @param view The view (row) that was clicked on
+         */
+        @Override
+        public void onClick(View view) {
+            onContactClickListener.onContactClick(getBindingAdapterPosition(), view);
+        }
+    }
+
+    /**
+     * Tells the adapter which rows changed when a new page of flashcards is loaded.
+     */
+    private static final DiffUtil.ItemCallback<Flashcard> DIFF_CALLBACK = new DiffUtil.ItemCallback<Flashcard>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Flashcard oldItem, @NonNull Flashcard newItem) {
+            return oldItem.getCardId() == newItem.getCardId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Flashcard oldItem, @NonNull Flashcard newItem) {
+            return Objects.equals(oldItem.getFront(), newItem.getFront())
+                    && Objects.equals(oldItem.getBack(), newItem.getBack())
+                    && oldItem.getStatus() == newItem.getStatus()
+                    && oldItem.getDeckId() == newItem.getDeckId();
+        }
+    };
+}
@@ -5,34 +5,37 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.barnes.flashcards.R;
 import com.barnes.flashcards.databinding.FlashcardRowBinding;
 import com.barnes.flashcards.model.Flashcard;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Recycler Adapter for the Flashcard class.
  *
- * <p> Sets up the cards for the RecyclerView list of flashcards. Contains the public class
- * ViewHolder and the interface OnContactClickListener. </p>
+ * <p> Sets up the cards for the RecyclerView list of flashcards. New lists of flashcards are given
+ * to submitList(), and only the rows that were added, removed or changed are redrawn. Contains the
+ * public class ViewHolder and the interface OnContactClickListener. </p>
  */
-public class FlashcardRecyclerAdapter extends RecyclerView.Adapter<FlashcardRecyclerAdapter.ViewHolder> {
-    private List<Flashcard> flashcardList;
+public class FlashcardRecyclerAdapter extends ListAdapter<Flashcard, FlashcardRecyclerAdapter.ViewHolder> {
     private OnContactClickListener onContactClickListener;
     private boolean isDelete = false;
 
     /**
-     * Constructor for FlashcardRecyclerAdapter.
+     * Constructor for FlashcardRecyclerAdapter. The adapter starts with an empty list.
      *
-     * @param flashcardList The list of Flashcards that the RecyclerView will use
      * @param onContactClickListener A listener that specifies what will happen when the card is
      *                               clicked in the RecyclerView
      */
-    public FlashcardRecyclerAdapter(List<Flashcard> flashcardList, OnContactClickListener onContactClickListener) {
-        this.flashcardList = flashcardList;
+    public FlashcardRecyclerAdapter(OnContactClickListener onContactClickListener) {
+        super(DIFF_CALLBACK);
         this.onContactClickListener = onContactClickListener;
     }
 
@@ -57,11 +60,11 @@ public class FlashcardRecyclerAdapter extends RecyclerView.Adapter<FlashcardRecy
      * Displays the data at the given position.
      *
      * <p> This method displays the data from the specified position. It populates the ViewHolder's
-     * card with  the information for the Flashcard located at the given position in the
-     * flashcardList. </p>
+     * card with  the information for the Flashcard located at the given position in the current
+     * list. </p>
      * @param holder The ViewHolder that contains the views where the data will be displayed
      * @param position The position in the RecyclerView where the information will be displayed,
-     *                 also the position in the flashcardList for which Flashcard to use.
+     *                 also the position in the current list for which Flashcard to use.
      */
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
@@ -72,21 +75,11 @@ public class FlashcardRecyclerAdapter extends RecyclerView.Adapter<FlashcardRecy
             holder.binding.cardDeleteCheckbox.setVisibility(View.GONE);
         }
 
-        Flashcard flashcard = flashcardList.get(position);
+        Flashcard flashcard = getItem(position);
         holder.binding.vocabFront.setText(flashcard.getFront());
         holder.binding.vocabBack.setText(flashcard.getBack());
     }
 
-    /**
-     * Gets the size of the list of Decks being displayed.
-     *
-     * @return Returns the size of the list of Decks being displayed
-     */
-    @Override
-    public int getItemCount() {
-        return flashcardList.size();
-    }
-
     /**
      * Sets the isDelete property.
      *
@@ -104,16 +97,18 @@ public class FlashcardRecyclerAdapter extends RecyclerView.Adapter<FlashcardRecy
      * @param flashcard The flashcard to be deleted
      */
     public void delete(Flashcard flashcard) {
-        flashcardList.remove(flashcard);
+        List<Flashcard> flashcards = new ArrayList<>(getCurrentList());
+        flashcards.remove(flashcard);
+        submitList(flashcards);
     }
 
     /**
      * Returns the list of items the adapter is currently using.
      *
-     * @return Returns the list of items the adapter is using
+     * @return Returns the list of items the adapter is using, which can't be changed
      */
     public List<Flashcard> getItems() {
-        return flashcardList;
+        return getCurrentList();
     }
 
     /**
@@ -144,6 +139,23 @@ public class FlashcardRecyclerAdapter extends RecyclerView.Adapter<FlashcardRecy
         }
     }
 
+    /**
+     * Tells the adapter which rows changed when a new list of flashcards is submitted.
+     */
+    private static final DiffUtil.ItemCallback<Flashcard> DIFF_CALLBACK = new DiffUtil.ItemCallback<Flashcard>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Flashcard oldItem, @NonNull Flashcard newItem) {
+            return oldItem.getCardId() == newItem.getCardId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Flashcard oldItem, @NonNull Flashcard newItem) {
+            // Only what is shown in the row
+            return Objects.equals(oldItem.getFront(), newItem.getFront())
+                    && Objects.equals(oldItem.getBack(), newItem.getBack());
+        }
+    };
+
     /**
      * Interface that specifies a listener that will tell the View in ViewHolder what to do when clicked.
      */
@@ -2,22 +2,25 @@ package com.barnes.flashcards.controller;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.ContextCompat;
 import androidx.lifecycle.ViewModelProvider;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
+import android.widget.Toast;
 
 import com.barnes.flashcards.R;
 import com.barnes.flashcards.database.FlashcardsViewModel;
 import com.barnes.flashcards.databinding.ActivityAddDeckBinding;
 import com.barnes.flashcards.model.Deck;
 import com.barnes.flashcards.util.InformationDialog;
+import com.barnes.flashcards.util.TaskDispatcher;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller for adding a deck.
@@ -30,6 +33,8 @@ public class AddDeckActivity extends AppCompatActivity {
      */
     public static final String DECK_ID = "deck id";
 
+    private static final String TAG = "AddDeckActivity";
+
     private ActivityAddDeckBinding binding;
     private FlashcardsViewModel viewModel;
     private boolean isEdit = false;
@@ -79,8 +84,7 @@ public class AddDeckActivity extends AppCompatActivity {
      * views. It runs on a background thread. </p>
      */
     private void loadEditTask(int deckId) {
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        executor.execute(() -> {
+        TaskDispatcher.getInstance().execute(this, () -> {
             userDeck = viewModel.getDeckFromId(deckId);
 
             runOnUiThread(() -> {
@@ -93,7 +97,8 @@ public class AddDeckActivity extends AppCompatActivity {
      * Saves a deck in the database.
      *
      * <p> Creates a deck with the user supplied information and saves it in the database.
-     * A title is required. After saving the deck, the user is returned to viewing all decks. </p>
+     * A title is required. After the deck is saved, the user is returned to viewing all decks. The
+     * save button is disabled while saving, and enabled again if the save fails. </p>
      */
     private void saveDeck() {
         String title = binding.enterTitle.getText().toString().trim();
@@ -103,15 +108,26 @@ public class AddDeckActivity extends AppCompatActivity {
         }
 
         userDeck.setTitle(title);
+        binding.saveButton2.setEnabled(false);
 
+        CompletableFuture<?> saved;
         if (isEdit) {
-            viewModel.update(userDeck);
+            saved = viewModel.update(userDeck);
         } else {
-            viewModel.insert(userDeck);
+            saved = viewModel.insert(userDeck);
         }
 
-        // Go to view all decks
-        startActivity(new Intent(AddDeckActivity.this, ViewDecksActivity.class));
+        // Go to view all decks once the deck is saved, so it is in the list
+        saved.whenCompleteAsync((result, e) -> {
+            if (e != null) {
+                Log.w(TAG, "Saving the deck failed", e);
+                Toast.makeText(AddDeckActivity.this, R.string.save_failed, Toast.LENGTH_LONG).show();
+                binding.saveButton2.setEnabled(true);
+                return;
+            }
+
+            startActivity(new Intent(AddDeckActivity.this, ViewDecksActivity.class));
+        }, ContextCompat.getMainExecutor(this));
     }
 
     /**
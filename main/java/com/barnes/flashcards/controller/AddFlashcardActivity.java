@@ -2,14 +2,17 @@ package com.barnes.flashcards.controller;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.ContextCompat;
 import androidx.lifecycle.ViewModelProvider;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.widget.ArrayAdapter;
+import android.widget.Toast;
 
 import com.barnes.flashcards.R;
 import com.barnes.flashcards.database.FlashcardsViewModel;
@@ -17,10 +20,10 @@ import com.barnes.flashcards.databinding.ActivityAddFlashcardBinding;
 import com.barnes.flashcards.model.Deck;
 import com.barnes.flashcards.model.Flashcard;
 import com.barnes.flashcards.util.InformationDialog;
+import com.barnes.flashcards.util.TaskDispatcher;
 
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller for adding a flashcard.
@@ -33,6 +36,8 @@ public class AddFlashcardActivity extends AppCompatActivity {
      */
     public static final String FLASHCARD_ID = "flashcard id";
 
+    private static final String TAG = "AddFlashcardActivity";
+
     private ActivityAddFlashcardBinding binding;
     private FlashcardsViewModel viewModel;
     private ArrayAdapter<Flashcard.Status> statusAdapter;
@@ -87,8 +92,7 @@ public class AddFlashcardActivity extends AppCompatActivity {
      * background thread. </p>
      */
     private void loadEditTask(int cardId) {
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        executor.execute(() -> {
+        TaskDispatcher.getInstance().execute(this, () -> {
             // Set up deck spinner
             List<Deck> deckList = viewModel.getAllDecks();
             deckAdapter = new ArrayAdapter<>(AddFlashcardActivity.this,
@@ -118,7 +122,8 @@ public class AddFlashcardActivity extends AppCompatActivity {
      *
      * <p> Creates a flashcard with the user supplied information and saves it in the database.
      * A front, back, and deck are required. After saving the flashcard, the user is returned
-     * to viewing all flashcards from the saved flashcard's deck. </p>
+     * to viewing all flashcards from the saved flashcard's deck. The save button is disabled while
+     * saving, and enabled again if the save fails. </p>
      */
     private void saveFlashcard() {
         String front = binding.frontEditText.getText().toString().trim();
@@ -145,21 +150,29 @@ public class AddFlashcardActivity extends AppCompatActivity {
         userFlashcard.setBack(back);
         userFlashcard.setDeckId(deck.getDeckId());
         userFlashcard.setStatus(status);
+        binding.saveButton.setEnabled(false);
 
+        // The deck sizes are updated by the database
+        CompletableFuture<?> saved;
         if (isEdit) {
-            viewModel.update(userFlashcard);
+            saved = viewModel.update(userFlashcard);
         } else {
-            viewModel.insert(userFlashcard);
-
-            //update deck size and save
-            deck.incrementSize();
-            viewModel.update(deck);
+            saved = viewModel.insert(userFlashcard);
         }
 
-        // Go to view all flashcards in selected deck
-        Intent intent = new Intent(AddFlashcardActivity.this, ViewFlashcardsActivity.class);
-        intent.putExtra(ViewFlashcardsActivity.DECK_ID, deck.getDeckId());
-        startActivity(intent);
+        // Go to view all flashcards in selected deck once the flashcard is saved
+        saved.whenCompleteAsync((result, e) -> {
+            if (e != null) {
+                Log.w(TAG, "Saving the flashcard failed", e);
+                Toast.makeText(AddFlashcardActivity.this, R.string.save_failed, Toast.LENGTH_LONG).show();
+                binding.saveButton.setEnabled(true);
+                return;
+            }
+
+            Intent intent = new Intent(AddFlashcardActivity.this, ViewFlashcardsActivity.class);
+            intent.putExtra(ViewFlashcardsActivity.DECK_ID, deck.getDeckId());
+            startActivity(intent);
+        }, ContextCompat.getMainExecutor(this));
     }
 
     /**
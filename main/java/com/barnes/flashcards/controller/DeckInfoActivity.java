@@ -1,25 +1,32 @@
 package com.barnes.flashcards.controller;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.DialogFragment;
 import androidx.lifecycle.ViewModelProvider;
 
+import android.content.Context;
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
+import android.widget.Toast;
 
 import com.barnes.flashcards.R;
 import com.barnes.flashcards.database.FlashcardsViewModel;
 import com.barnes.flashcards.databinding.ActivityDeckInfoBinding;
 import com.barnes.flashcards.model.Deck;
 import com.barnes.flashcards.util.DeleteDialog;
+import com.barnes.flashcards.util.ScreenTimer;
 
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * Controller for viewing a deck.
@@ -32,10 +39,23 @@ public class DeckInfoActivity extends AppCompatActivity implements DeleteDialog.
      */
     public static final String DECK_ID = "deck id";
 
+    private static final String TAG = "DeckInfoActivity";
+
+    // The file types that can be imported
+    private static final String[] IMPORT_TYPES = {"text/csv", "text/comma-separated-values",
+            "text/tab-separated-values", "text/plain"};
+
     private ActivityDeckInfoBinding binding;
     private FlashcardsViewModel viewModel;
     private Deck deck;
 
+    // Times how long the screen takes to show its content
+    private final ScreenTimer screenTimer = new ScreenTimer("deck_info");
+
+    // Lets the user choose a file to import flashcards from
+    private final ActivityResultLauncher<String[]> importLauncher =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), this::importFlashcards);
+
     /**
      * Method that runs when the activity is created.
      *
@@ -51,8 +71,9 @@ public class DeckInfoActivity extends AppCompatActivity implements DeleteDialog.
         binding = ActivityDeckInfoBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
-        viewModel = new ViewModelProvider.AndroidViewModelFactory(DeckInfoActivity.this.getApplication())
-                .create(FlashcardsViewModel.class);
+        // Kept through rotation, along with the progress of any import started from this screen
+        viewModel = new ViewModelProvider(this).get(FlashcardsViewModel.class);
+        viewModel.getImportProgress().observe(this, this::setImportProgress);
 
         int deckId = 1;
         Bundle intentData = getIntent().getExtras();
@@ -79,22 +100,27 @@ public class DeckInfoActivity extends AppCompatActivity implements DeleteDialog.
     /**
      * Loads the information from a user selected deck.
      *
-     * <p> This method uses the supplied deck ID to find the deck in the database. It then
-     * loads the deck information into the views. It runs on a background thread. </p>
+     * <p> This method observes the deck with the supplied ID and loads the deck information into
+     * the views each time it changes. The deck is only queried again when the deck table changes,
+     * for example when flashcards are added to it. </p>
      */
     private void loadDeckTask(int deckId) {
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        executor.execute(() -> {
-            deck = viewModel.getDeckFromId(deckId);
-
-            runOnUiThread(() -> {
-                // Populate the deck information
-                binding.titleText.setText(deck.getTitle());
-                binding.enterSize.setText(Integer.toString(deck.getSize()));
-                binding.enterPercentRight.setText(String.format("%.2f%%", deck.getPercentRight()));
-                binding.enterDatetime.setText(deck.getTimeReviewed()
-                        .format(DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT)));
-            });
+        viewModel.observeDeck(deckId).observe(this, observedDeck -> {
+            // The deck was deleted
+            if (observedDeck == null)
+                return;
+
+            deck = observedDeck;
+
+            // Populate the deck information
+            binding.titleText.setText(deck.getTitle());
+            binding.enterSize.setText(getString(R.string.deck_size_counts, deck.getSize(),
+                    deck.getStillLearningCount(), deck.getLearnedCount(), deck.getArchivedCount()));
+            binding.enterPercentRight.setText(String.format("%.2f%%", deck.getPercentRight()));
+            LocalDateTime timeReviewed = deck.getTimeReviewed();
+            binding.enterDatetime.setText(timeReviewed == null ? ""
+                    : timeReviewed.format(DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT)));
+            screenTimer.recordShown(1);
         });
     }
 
@@ -134,11 +160,48 @@ public class DeckInfoActivity extends AppCompatActivity implements DeleteDialog.
         } else if (id == R.id.deck_info_search) {
             startActivity(new Intent(DeckInfoActivity.this, SearchFlashcardsActivity.class));
             return true;
+        } else if (id == R.id.deck_info_import) {
+            importLauncher.launch(IMPORT_TYPES);
+            return true;
         }
 
         return super.onOptionsItemSelected(item);
     }
 
+    /**
+     * Imports the flashcards in a CSV or TSV file into the deck.
+     *
+     * <p> The file is read on the repository's import thread and its flashcards are inserted in
+     * batches. The number imported so far is shown under the title, and the deck information is
+     * updated by its observer as each batch is committed. The import carries on if the screen is
+     * rotated or left, and its result is shown with the application context once it is done. </p>
+     * @param uri The file the user chose, or null if they cancelled
+     */
+    private void importFlashcards(Uri uri) {
+        if (uri == null || deck == null)
+            return;
+
+        Context context = getApplicationContext();
+        viewModel.importFlashcards(deck.getDeckId(), uri).whenCompleteAsync((result, e) -> {
+            if (e != null) {
+                Log.w(TAG, "Import failed", e);
+                Toast.makeText(context, R.string.import_failed, Toast.LENGTH_LONG).show();
+                return;
+            }
+
+            Toast.makeText(context, context.getString(R.string.import_done, result.getImported(),
+                    result.getSkipped()), Toast.LENGTH_LONG).show();
+        }, ContextCompat.getMainExecutor(context));
+    }
+
+    // Shows the number of flashcards imported so far under the title, or nothing when no import is
+    // running
+    private void setImportProgress(Long imported) {
+        if (getSupportActionBar() != null)
+            getSupportActionBar().setSubtitle(imported == null ? null
+                    : getString(R.string.import_progress, imported));
+    }
+
     /**
      * Shows a message asking for confirmation to delete the selected deck.
      */
@@ -158,10 +221,16 @@ public class DeckInfoActivity extends AppCompatActivity implements DeleteDialog.
      */
     @Override
     public void onDeleteDialogPositive(DialogFragment dialog) {
-        viewModel.delete(deck);
-
-        // Go to view all decks
-        startActivity(new Intent(DeckInfoActivity.this, ViewDecksActivity.class));
+        // Go to view all decks once the deck is deleted
+        viewModel.delete(deck).whenCompleteAsync((result, e) -> {
+            if (e != null) {
+                Log.w(TAG, "Deleting the deck failed", e);
+                Toast.makeText(DeckInfoActivity.this, R.string.delete_failed, Toast.LENGTH_LONG).show();
+                return;
+            }
+
+            startActivity(new Intent(DeckInfoActivity.this, ViewDecksActivity.class));
+        }, ContextCompat.getMainExecutor(this));
     }
 
     /**
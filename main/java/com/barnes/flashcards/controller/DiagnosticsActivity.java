@@ -0,0 +1,118 @@
+package com.barnes.flashcards.controller;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.barnes.flashcards.database.FlashcardsViewModel;
+import com.barnes.flashcards.databinding.ActivityDiagnosticsBinding;
+import com.barnes.flashcards.util.MetricsRegistry;
+import com.barnes.flashcards.util.TaskDispatcher;
+
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Controller for the performance diagnostics screen.
+ *
+ * <p> This class shows every metric in the MetricsRegistry, grouped by the prefix of its name, and
+ * reads them again every REFRESH_MILLIS while the screen is visible. The metrics are read in a
+ * background thread, since some of them read the database. It is only reachable from the
+ * menu of debug builds. </p>
+ */
+public class DiagnosticsActivity extends AppCompatActivity {
+    private static final long REFRESH_MILLIS = 1000;
+
+    private ActivityDiagnosticsBinding binding;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private boolean isRefreshing = false;
+
+    private final Runnable refresh = new Runnable() {
+        @Override
+        public void run() {
+            loadMetricsTask();
+            handler.postDelayed(this, REFRESH_MILLIS);
+        }
+    };
+
+    /**
+     * Method that runs when the activity is created.
+     *
+     * <p> This method initializes the views in the layout. The view model is created so the
+     * repository has registered its metrics before they are first read. </p>
+     * @param savedInstanceState Contains data supplied to onSaveInstanceState() or null
+     */
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        binding = ActivityDiagnosticsBinding.inflate(getLayoutInflater());
+        setContentView(binding.getRoot());
+
+        new ViewModelProvider(this).get(FlashcardsViewModel.class);
+    }
+
+    /**
+     * Starts reading the metrics when the screen is shown.
+     */
+    @Override
+    protected void onResume() {
+        super.onResume();
+        handler.post(refresh);
+    }
+
+    /**
+     * Stops reading the metrics when the screen is hidden.
+     */
+    @Override
+    protected void onPause() {
+        super.onPause();
+        handler.removeCallbacks(refresh);
+    }
+
+    /**
+     * Reads every metric in a background thread and shows them. A read is skipped if the last one
+     * hasn't finished, so a slow read can't queue up behind itself.
+     */
+    private void loadMetricsTask() {
+        if (isRefreshing)
+            return;
+        isRefreshing = true;
+
+        TaskDispatcher.getInstance().execute(this, TaskDispatcher.Priority.PREFETCH, () -> {
+            try {
+                String text = format(MetricsRegistry.snapshot());
+                runOnUiThread(() -> binding.metricsText.setText(text));
+            } finally {
+                // A gauge that throws must not stop the screen from refreshing again
+                runOnUiThread(() -> isRefreshing = false);
+            }
+        });
+    }
+
+    // Write a heading for each group of metrics, then the metrics in it without the group prefix
+    private static String format(SortedMap<String, String> metrics) {
+        StringBuilder text = new StringBuilder();
+        String group = null;
+
+        for (Map.Entry<String, String> entry : metrics.entrySet()) {
+            String name = entry.getKey();
+            int dot = name.indexOf('.');
+            String nameGroup = dot < 0 ? "" : name.substring(0, dot);
+
+            if (!nameGroup.equals(group)) {
+                if (group != null)
+                    text.append('\n');
+                text.append(nameGroup.isEmpty() ? "other" : nameGroup).append('\n');
+                group = nameGroup;
+            }
+
+            text.append("  ").append(name.substring(dot + 1)).append(": ").append(entry.getValue()).append('\n');
+        }
+
+        return text.toString();
+    }
+}
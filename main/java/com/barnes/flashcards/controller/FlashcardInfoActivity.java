@@ -2,13 +2,16 @@ package com.barnes.flashcards.controller;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.DialogFragment;
 import androidx.lifecycle.ViewModelProvider;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
+import android.widget.Toast;
 
 import com.barnes.flashcards.R;
 import com.barnes.flashcards.database.FlashcardsViewModel;
@@ -16,9 +19,10 @@ import com.barnes.flashcards.databinding.ActivityFlashcardInfoBinding;
 import com.barnes.flashcards.model.Deck;
 import com.barnes.flashcards.model.Flashcard;
 import com.barnes.flashcards.util.DeleteDialog;
+import com.barnes.flashcards.util.ScreenTimer;
+import com.barnes.flashcards.util.TaskDispatcher;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller for viewing a flashcard.
@@ -31,11 +35,16 @@ public class FlashcardInfoActivity extends AppCompatActivity implements DeleteDi
      */
     public static final String FLASHCARD_ID = "flashcard id";
 
+    private static final String TAG = "FlashcardInfoActivity";
+
     private ActivityFlashcardInfoBinding binding;
     private FlashcardsViewModel viewModel;
     private Flashcard flashcard;
     private Deck deck;
 
+    // Times how long the screen takes to show its content
+    private final ScreenTimer screenTimer = new ScreenTimer("flashcard_info");
+
     /**
      * Method that runs when the activity is created.
      *
@@ -78,8 +87,7 @@ public class FlashcardInfoActivity extends AppCompatActivity implements DeleteDi
      * @param cardId The ID of the user supplied flashcard
      */
     private void loadFlashcardTask(int cardId) {
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        executor.execute(() -> {
+        TaskDispatcher.getInstance().execute(this, () -> {
             flashcard = viewModel.getFlashcardFromId(cardId);
             deck = viewModel.getDeckFromId(flashcard.getDeckId());
 
@@ -91,18 +99,18 @@ public class FlashcardInfoActivity extends AppCompatActivity implements DeleteDi
                     binding.enterStatus.setText(flashcard.getStatus().toString());
 
                 binding.enterDeckTitle.setText(deck.getTitle());
+                screenTimer.recordShown(1);
             });
         });
     }
 
     /**
-     * Deletes the flashcard from the database and updates the deck.
+     * Deletes the flashcard from the database. The deck's size is updated by the database.
+     *
+     * @return Returns a future that completes once the flashcard is deleted
      */
-    private void deleteFlashcard() {
-        viewModel.delete(flashcard);
-
-        deck.decrementSize();
-        viewModel.update(deck);
+    private CompletableFuture<Void> deleteFlashcard() {
+        return viewModel.delete(flashcard);
     }
 
     /**
@@ -163,12 +171,18 @@ public class FlashcardInfoActivity extends AppCompatActivity implements DeleteDi
      */
     @Override
     public void onDeleteDialogPositive(DialogFragment dialog) {
-        deleteFlashcard();
-
-        // Go to view flashcards from the deleted flashcard's deck
-        Intent intent = new Intent(FlashcardInfoActivity.this, ViewFlashcardsActivity.class);
-        intent.putExtra(ViewFlashcardsActivity.DECK_ID, deck.getDeckId());
-        startActivity(intent);
+        // Go to view flashcards from the deleted flashcard's deck once it is deleted
+        deleteFlashcard().whenCompleteAsync((result, e) -> {
+            if (e != null) {
+                Log.w(TAG, "Deleting the flashcard failed", e);
+                Toast.makeText(FlashcardInfoActivity.this, R.string.delete_failed, Toast.LENGTH_LONG).show();
+                return;
+            }
+
+            Intent intent = new Intent(FlashcardInfoActivity.this, ViewFlashcardsActivity.class);
+            intent.putExtra(ViewFlashcardsActivity.DECK_ID, deck.getDeckId());
+            startActivity(intent);
+        }, ContextCompat.getMainExecutor(this));
     }
 
     /**
@@ -2,6 +2,7 @@ package com.barnes.flashcards.controller;
 
 import android.content.Context;
 import android.os.Bundle;
+import android.os.SystemClock;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -16,23 +17,20 @@ import android.widget.Toast;
 import com.barnes.flashcards.R;
 import com.barnes.flashcards.database.FlashcardsViewModel;
 import com.barnes.flashcards.databinding.FragmentMultipleChoiceBinding;
-import com.barnes.flashcards.model.Deck;
 import com.barnes.flashcards.model.Flashcard;
+import com.barnes.flashcards.model.ReviewSession;
 
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 
 /**
  * Fragment for a multiple choice quiz for a flashcard.
  *
  * <p> This fragment presents a multiple choice quiz for the user. The back of the flashcard is the
- * question. The front of the flashcard is the answer. The fragment chooses random flashcards from
- * same deck to act as the other options for an answer. </p>
+ * question. The front of the flashcard is the answer. Other flashcards from the same deck, preferably
+ * ones with similar answers, act as the other options for an answer. </p>
  */
 public class MultipleChoice extends Fragment {
 
@@ -47,16 +45,20 @@ public class MultipleChoice extends Fragment {
     // the fragment initialization parameter
     private static final String FLASHCARD_ID = "flashcard id";
 
-    // The number of answers the user can choose from
-    private static final int NUM_ANSWERS = 4;
+    /**
+     * The number of answers the user can choose from.
+     */
+    public static final int NUM_ANSWERS = 4;
 
     private FragmentMultipleChoiceBinding binding;
     private FlashcardsViewModel viewModel;
     private MultipleChoiceListener listener;
     private Flashcard currentCard;
-    private Deck deck;
     private List<Flashcard> answerList = new ArrayList<>();
 
+    // When the answers were shown, for timing the user's response
+    private long shownAt;
+
     /**
      * Default constructor.
      */
@@ -109,8 +111,8 @@ public class MultipleChoice extends Fragment {
     /**
      * Method that runs after the fragment view is created.
      *
-     * <p> The views in the layout are initialized here. It checks the Intent for a flashcard ID and
-     * loads that flashcard. It then calls methods to choose answers. </p>
+     * <p> The views in the layout are initialized here. It checks the arguments for a flashcard ID
+     * and loads that flashcard from the review session. It then calls methods to choose answers. </p>
      * @param view The view returned by onCreateView()
      * @param savedInstanceState Contains data supplied to onSaveInstanceState() or null
      */
@@ -145,95 +147,71 @@ public class MultipleChoice extends Fragment {
     /**
      * Loads the information from a given flashcard.
      *
-     * <p> This method uses the supplied flashcard ID to find the card in the database and load it
-     * its deck. It also sets up an answer list of possible answers and binds the information to
-     * the views. </p>
+     * <p> This method finds the flashcard with the supplied ID in the review session loaded by
+     * ReviewActivity, so it doesn't read the database. It also sets up an answer list of possible
+     * answers and binds the information to the views. </p>
      * @param cardId The ID of the flashcard
      * @param savedInstanceState Contains data supplied to onSaveInstanceState() or null
      */
     private void loadCardTask(int cardId, Bundle savedInstanceState) {
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        executor.execute(() -> {
-            currentCard = viewModel.getFlashcardFromId(cardId);
-            deck = viewModel.getDeckFromId(currentCard.getDeckId());
-
-            if (savedInstanceState != null) {
-                answerList = viewModel.getAnswerList();
-            } else {
-                // Choose 3 random flashcards to provide answers
-                chooseAnswers();
-            }
-
-            if (answerList.size() < (NUM_ANSWERS)) {
-                listener.multipleChoiceInput(INSUFFICIENT_CARDS);
-                return;
-            }
-
-
-            // Load information for the review flashcard
-            if (isAdded()) {
-                getActivity().runOnUiThread(() -> {
-                    binding.enterVocab.setText(currentCard.getBack());
-
-                    // Randomize the answers selection
-                    Random random = new Random();
-                    List<Flashcard> copyList = new ArrayList<>(answerList);
-
-                    int randomNum = random.nextInt(copyList.size());
-                    binding.enterAnswer1.setText(copyList.get(randomNum).getFront());
-                    copyList.remove(randomNum);
-
-                    randomNum = random.nextInt(copyList.size());
-                    binding.enterAnswer2.setText(copyList.get(randomNum).getFront());
-                    copyList.remove(randomNum);
-
-                    randomNum = random.nextInt(copyList.size());
-                    binding.enterAnswer3.setText(copyList.get(randomNum).getFront());
-                    copyList.remove(randomNum);
-
-                    binding.enterAnswer4.setText(copyList.get(0).getFront());
-                });
-            }
-        });
+        // The session is chosen again if the app was stopped, and this fragment will be replaced
+        ReviewSession session = viewModel.getReviewSession();
+        if (session == null || session.getCard(cardId) == null)
+            return;
+
+        currentCard = session.getCard(cardId);
+
+        if (savedInstanceState != null) {
+            answerList = viewModel.getAnswerList();
+        } else {
+            // Choose 3 random flashcards to provide answers
+            chooseAnswers(session);
+        }
+
+        if (answerList.size() < (NUM_ANSWERS)) {
+            listener.multipleChoiceInput(INSUFFICIENT_CARDS);
+            return;
+        }
+
+        // Load information for the review flashcard
+        binding.enterVocab.setText(currentCard.getBack());
+
+        // Randomize the answers selection
+        Random random = new Random();
+        List<Flashcard> copyList = new ArrayList<>(answerList);
+
+        int randomNum = random.nextInt(copyList.size());
+        binding.enterAnswer1.setText(copyList.get(randomNum).getFront());
+        copyList.remove(randomNum);
+
+        randomNum = random.nextInt(copyList.size());
+        binding.enterAnswer2.setText(copyList.get(randomNum).getFront());
+        copyList.remove(randomNum);
+
+        randomNum = random.nextInt(copyList.size());
+        binding.enterAnswer3.setText(copyList.get(randomNum).getFront());
+        copyList.remove(randomNum);
+
+        binding.enterAnswer4.setText(copyList.get(0).getFront());
+
+        shownAt = SystemClock.elapsedRealtime();
     }
 
     /**
      * Sets up an answer list of flashcards for possible answers.
      *
-     * <p> This method adds the selected flashcard plus 3 random flashcards for its deck to a list of
-     * possible answers. It should be run in a background thread. </p>
+     * <p> This method adds the selected flashcard plus 3 flashcards from its deck to a list of
+     * possible answers. The other flashcards were chosen for the whole session when the session
+     * was loaded. </p>
+     * @param session The review session the flashcard belongs to
      */
-    private void chooseAnswers() {
-        int deckSize = deck.getSize();
-        Random random = new Random();
-
+    private void chooseAnswers(ReviewSession session) {
         // Make sure answerList is clear
         answerList.clear();
         answerList.add(currentCard);
 
         // Get (NUM_ANSWERS - 1) more possible answers
-        for (int i = 0; i < (NUM_ANSWERS - 1); i++) {
-            // Get a random number from 1 to deckSize, inclusive
-            int randomNum = random.nextInt(deckSize) + 1;
-
-            Flashcard flashcard = viewModel.getRowCard(randomNum, deck.getDeckId());
-
-            int j = 0;
-            while (flashcard.equals(currentCard) || answerList.contains(flashcard)) {
-                randomNum++;
-                if (randomNum > deckSize)
-                    randomNum = randomNum % deckSize;
-
-                flashcard = viewModel.getRowCard(randomNum, deck.getDeckId());
-
-                // If j reaches deckSize, there are no more flashcards to add to reviewList
-                j++;
-                if (j >= deckSize)
-                    return;
-            }
-
-            answerList.add(flashcard);
-        }
+        answerList.addAll(session.getDistractors(currentCard.getCardId()));
     }
 
     /**
@@ -259,11 +237,12 @@ public class MultipleChoice extends Fragment {
             answer = binding.enterAnswer4.getText().toString();
         }
 
+        long responseMillis = SystemClock.elapsedRealtime() - shownAt;
+
         // Compare answer to current flashcard's front
+        // Answers are written to the deck when the session ends or ReviewActivity is stopped
         if (answer.equals(currentCard.getFront())) {
-            deck.guessedRight();
-            deck.setTimeReviewed(LocalDateTime.now());
-            viewModel.update(deck);
+            viewModel.recordAnswer(currentCard, true, answer, responseMillis);
 
             Toast.makeText(getContext(), CORRECT, Toast.LENGTH_SHORT)
                     .show();
@@ -271,9 +250,7 @@ public class MultipleChoice extends Fragment {
             listener.multipleChoiceInput(CORRECT);
 
         } else {
-            deck.guessedWrong();
-            deck.setTimeReviewed(LocalDateTime.now());
-            viewModel.update(deck);
+            viewModel.recordAnswer(currentCard, false, answer, responseMillis);
 
             listener.multipleChoiceInput(INCORRECT);
         }
@@ -6,26 +6,29 @@ import androidx.lifecycle.ViewModelProvider;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.widget.Toast;
 
 import com.barnes.flashcards.R;
 import com.barnes.flashcards.database.FlashcardsViewModel;
 import com.barnes.flashcards.databinding.ActivityReviewBinding;
 import com.barnes.flashcards.model.Deck;
 import com.barnes.flashcards.model.Flashcard;
+import com.barnes.flashcards.model.ReviewSession;
 import com.barnes.flashcards.util.InformationDialog;
+import com.barnes.flashcards.util.ScreenTimer;
+import com.barnes.flashcards.util.TaskDispatcher;
 
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
- * Controller for reviewing a list of random flashcards in a deck.
+ * Controller for reviewing the flashcards in a deck that are due.
  *
- * <p> This class lets the user review 10 random flashcards in the specified deck. The back of the
+ * <p> This class lets the user review the flashcards in the specified deck that are due soonest,
+ * or a random sample of the deck when none are due. The number of flashcards in a session can be
+ * passed through the Intent, and is 10 by default. The back of the
  * flashcard is the question and the front is the answer. It keeps track of correct or incorrect
  * guesses and shows the user the correct answer to incorrect guesses. It displays a list of the
  * reviewed flashcards and the results at the end. </p>
@@ -37,6 +40,16 @@ public class ReviewActivity extends AppCompatActivity implements WrongAnswerFrag
      */
     public static final String DECK_ID = "deck id";
 
+    /**
+     * Tag for passing the number of flashcards to review through an intent. Optional.
+     */
+    public static final String SESSION_SIZE = "session size";
+
+    /**
+     * The number of cards to study in a review session if no session size is passed.
+     */
+    public static final int DEFAULT_SESSION_SIZE = 10;
+
     private ActivityReviewBinding binding;
     private FlashcardsViewModel viewModel;
 
@@ -44,9 +57,10 @@ public class ReviewActivity extends AppCompatActivity implements WrongAnswerFrag
     private Map<Flashcard, String> finishedMap = new LinkedHashMap<>();
     private Deck deck;
     private Flashcard currentCard;
+    private int sessionSize = DEFAULT_SESSION_SIZE;
 
-    // The number of cards to study in a review session
-    private static final int NUM_CARDS = 10;
+    // Times how long the screen takes to show its content
+    private final ScreenTimer screenTimer = new ScreenTimer("review");
 
     /**
      * Method that runs when the activity is created.
@@ -68,6 +82,7 @@ public class ReviewActivity extends AppCompatActivity implements WrongAnswerFrag
         Bundle intentData = getIntent().getExtras();
         if (intentData != null) {
             deckId = intentData.getInt(DECK_ID);
+            sessionSize = intentData.getInt(SESSION_SIZE, DEFAULT_SESSION_SIZE);
         }
 
         // Load deck and choose cards to review
@@ -75,29 +90,43 @@ public class ReviewActivity extends AppCompatActivity implements WrongAnswerFrag
     }
 
     /**
-     * Loads the selected deck from the database.
+     * Loads the review session for the selected deck from the database.
      *
-     * <p> This method gets the select deck from the database. It choose a list of random flashcards
-     * to review if there is not a saved instance. It then starts the multiple choice fragment. It
+     * <p> This method loads the deck, the flashcards that are due soonest and their multiple
+     * choice answers, if there is not a saved instance. It then starts the multiple choice
+     * fragment. If the deck no longer exists, the user is told and the activity is finished. It
      * runs on a background thread. </p>
      * @param deckId The ID of the deck to get flashcards from
      * @param savedInstanceState Contains data supplied to onSaveInstanceState() or null
      */
     private void loadDeckTask(int deckId, Bundle savedInstanceState) {
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        executor.execute(() -> {
-            deck = viewModel.getDeckFromId(deckId);
+        TaskDispatcher.getInstance().execute(this, () -> {
+            // The session is lost with the view model if the app was stopped, so it is chosen again
+            ReviewSession session = viewModel.getReviewSession();
+            boolean isRestored = savedInstanceState != null && session != null;
 
-            if (savedInstanceState != null) {
+            if (isRestored) {
                 reviewList = viewModel.getReviewList();
                 finishedMap = viewModel.getReviewedMap();
             } else {
-                // Choose 10 random flashcards to review
-                chooseCards();
+                // Choose up to sessionSize flashcards to review, most overdue first, or random ones if
+                // none are due
+                session = chooseCards(deckId);
+
+                // The deck was deleted before the review started, so there is nothing to review
+                if (session == null) {
+                    runOnUiThread(() -> {
+                        Toast.makeText(ReviewActivity.this, R.string.deck_not_found, Toast.LENGTH_LONG).show();
+                        finish();
+                    });
+                    return;
+                }
             }
 
+            deck = session.getDeck();
+
             if (reviewList.size() == 0) {
-                reviewDone();
+                runOnUiThread(this::reviewDone);
                 return;
             }
 
@@ -105,8 +134,8 @@ public class ReviewActivity extends AppCompatActivity implements WrongAnswerFrag
 
             runOnUiThread(() -> {
                 // Set up the fragment container
-                // If savedInstanceState is not null, then the fragment is already added and doesn't need to be added again
-                if (savedInstanceState == null) {
+                // If the session was restored, then the fragment is already added and doesn't need to be added again
+                if (!isRestored) {
                     MultipleChoice fragment = MultipleChoice.newInstance(currentCard.getCardId());
 
                     getSupportFragmentManager().beginTransaction()
@@ -114,55 +143,42 @@ public class ReviewActivity extends AppCompatActivity implements WrongAnswerFrag
                             .replace(R.id.review_fragment_container, fragment, null)
                             .commit();
                 }
+                screenTimer.recordShown(reviewList.size());
             });
         });
     }
 
     /**
-     * Sets up a review list of NUM_CARDS number of random flashcards.
+     * Sets up a review list of up to sessionSize flashcards that are due.
      *
-     * <p> This method select NUM_CARDS random flashcards from the specified deck for the user to
-     * review. It should be run in a background thread. </p>
+     * <p> This method selects up to sessionSize flashcards from the specified deck for the user to
+     * review, the most overdue first, then the flashcards that will be due soonest if too few are
+     * due. If none are due, they are a random sample of the deck instead. They are shown in random
+     * order. Archived flashcards are never chosen. The deck, the flashcards and the multiple choice
+     * answers for every flashcard are read in a single transaction and kept in the view model, so
+     * the review fragments don't need to read the database. It should be run in a background
+     * thread. </p>
+     * @param deckId The ID of the deck to get flashcards from
+     * @return Returns the review session, or null if the deck doesn't exist
      */
-    private void chooseCards() {
-        int deckSize = deck.getSize();
-        Random random = new Random();
-
-        for (int i = 0; i < NUM_CARDS; i++) {
-            // Get a random number from 1 to deckSize, inclusive
-            int randomNum = random.nextInt(deckSize) + 1;
-
-            // Use random number to get a flashcard from the database
-            Flashcard flashcard = viewModel.getRowCard(randomNum, deck.getDeckId());
-
-            // If flashcard is archived (status) or already in reviewList,
-            // then increment random number (or return to zero if at deck size)
-            int j = 0;
-            while (flashcard.getStatus() == Flashcard.Status.ARCHIVED ||
-                    reviewList.contains(flashcard)) {
-                randomNum++;
-                if (randomNum > deckSize)
-                    randomNum = randomNum % deckSize;
-
-                flashcard = viewModel.getRowCard(randomNum, deck.getDeckId());
-
-                // If j reaches deckSize, there are no more non-archived flashcards to add to reviewList
-                j++;
-                if (j >= deckSize)
-                    return;
-            }
+    private ReviewSession chooseCards(int deckId) {
+        ReviewSession session = viewModel.loadReviewSession(deckId, sessionSize,
+                MultipleChoice.NUM_ANSWERS - 1);
 
-            reviewList.add(flashcard);
-        }
+        if (session != null)
+            reviewList = new ArrayList<>(session.getCards());
+        return session;
     }
 
     /**
      * Takes the user to a fragment indicating that the review is done.
      *
-     * <p> This method passes the map of reviewed flashcards to the view model. It then calls the
-     * fragment that will show the user a list of the reviewed flashcards. </p>
+     * <p> This method writes the session's answers to the deck and passes the map of reviewed
+     * flashcards to the view model. It then calls the fragment that will show the user a list of
+     * the reviewed flashcards. </p>
      */
     private void reviewDone() {
+        viewModel.flushReviewAnswers();
         viewModel.setReviewedMap(finishedMap);
 
         ReviewDoneFragment fragment = ReviewDoneFragment.newInstance();
@@ -266,6 +282,19 @@ public class ReviewActivity extends AppCompatActivity implements WrongAnswerFrag
         startActivity(intent);
     }
 
+    /**
+     * Method that runs when the activity is no longer visible.
+     *
+     * <p> This method writes the answers given so far to the deck and the review log, so they are
+     * not lost if the user leaves the review or the app is stopped. </p>
+     */
+    @Override
+    protected void onStop() {
+        super.onStop();
+
+        viewModel.flushReviewAnswers();
+    }
+
     /**
      * Saves the activity's current dynamic state for later reconstruction.
      *
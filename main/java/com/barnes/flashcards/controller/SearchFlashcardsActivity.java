@@ -7,34 +7,53 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.inputmethod.InputMethodManager;
 
 import com.barnes.flashcards.R;
-import com.barnes.flashcards.adapter.FlashcardRecyclerAdapter;
+import com.barnes.flashcards.adapter.FlashcardMatchRecyclerAdapter;
 import com.barnes.flashcards.database.FlashcardsViewModel;
 import com.barnes.flashcards.databinding.ActivitySearchFlashcardsBinding;
 import com.barnes.flashcards.model.Flashcard;
+import com.barnes.flashcards.model.FlashcardMatch;
+import com.barnes.flashcards.util.TaskDispatcher;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Controller for searching for existing flashcards.
  *
- * <p> This class lets the search the database for existing flashcards using a given String. </p>
+ * <p> This class lets the search the database for existing flashcards using a given String. The
+ * search runs as the user types, once they have stopped typing for DEBOUNCE_MILLIS. </p>
  */
 public class SearchFlashcardsActivity extends AppCompatActivity {
+    // How long the user must stop typing before the search runs
+    private static final long DEBOUNCE_MILLIS = 250;
+
     private ActivitySearchFlashcardsBinding binding;
     private FlashcardsViewModel viewModel;
-    private FlashcardRecyclerAdapter recyclerAdapter;
+    private FlashcardMatchRecyclerAdapter recyclerAdapter;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable debouncedSearch = this::searchFlashcards;
+
+    // The search that is running, and the text it is for. Only used on the main thread
+    private Future<?> searchTask;
+    private String lastSearch = "";
 
     /**
      * Method that runs when the activity is created.
      *
-     * <p> This method initializes the views in the layout. </p>
+     * <p> This method initializes the views in the layout. The recycler adapter is created once, and
+     * each search gives it a new list. Clicking on a flashcard will take the user to that
+     * flashcard's information. </p>
      * @param savedInstanceState contains data supplied to onSaveInstanceState() or null
      */
     @Override
@@ -44,14 +63,42 @@ public class SearchFlashcardsActivity extends AppCompatActivity {
         binding = ActivitySearchFlashcardsBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
-        viewModel = new ViewModelProvider.AndroidViewModelFactory(this.getApplication())
-                .create(FlashcardsViewModel.class);
+        viewModel = new ViewModelProvider(this).get(FlashcardsViewModel.class);
 
         binding.flashcardRecyclerView.setHasFixedSize(true);
         binding.flashcardRecyclerView.setLayoutManager(new LinearLayoutManager(this));
 
-        // Clicking on search will load the recycler view with the results
+        recyclerAdapter = new FlashcardMatchRecyclerAdapter((position, view) -> {  // OnContactClickListener
+            Flashcard flashcard = recyclerAdapter.getItems().get(position).getFlashcard();
+
+            Intent intent = new Intent(SearchFlashcardsActivity.this, FlashcardInfoActivity.class);
+            intent.putExtra(FlashcardInfoActivity.FLASHCARD_ID, flashcard.getCardId());
+            startActivity(intent);
+        });
+        binding.flashcardRecyclerView.setAdapter(recyclerAdapter);
+
+        // Search once the user stops typing. Each keystroke restarts the wait
+        binding.enterSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence text, int start, int count, int after) {
+                // Nothing to do
+            }
+
+            @Override
+            public void onTextChanged(CharSequence text, int start, int before, int count) {
+                // Nothing to do
+            }
+
+            @Override
+            public void afterTextChanged(Editable text) {
+                handler.removeCallbacks(debouncedSearch);
+                handler.postDelayed(debouncedSearch, DEBOUNCE_MILLIS);
+            }
+        });
+
+        // Clicking on search will search straight away
         binding.searchButton.setOnClickListener(view -> {
+            handler.removeCallbacks(debouncedSearch);
             searchFlashcards();
 
             // Hide the keyboard
@@ -62,34 +109,62 @@ public class SearchFlashcardsActivity extends AppCompatActivity {
     }
 
     /**
-     * Sets up the recycler view in response to a search.
+     * Updates the recycler view in response to a search.
      *
-     * <p> This method gets the list of all flashcards whose front or back are LIKE the search. It
-     * then sets up the recycler view using that list. Clicking on a view will take the user to
-     * that flashcard's information. It runs on a background thread. </p>
+     * <p> This method gets the list of flashcards whose front or back have words starting with
+     * every word in the search, from the best to the worst match, and gives it to the recycler
+     * adapter, which shows each with its snippet and only redraws the rows that changed. The search before it is cancelled, and its
+     * results are thrown away if it still finishes, so only the latest search is shown. The search
+     * runs on a background thread. </p>
      */
     private void searchFlashcards() {
         String search = binding.enterSearch.getText().toString().trim();
-        if (search.isEmpty())
+        if (search.equals(lastSearch))
             return;
+        lastSearch = search;
 
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        executor.execute(() -> {
-            List<Flashcard> searchList = viewModel.searchFlashcards(search);
+        if (searchTask != null)
+            searchTask.cancel(true);
 
-            recyclerAdapter = new FlashcardRecyclerAdapter(searchList, (position, view) -> {  // OnContactClickListener
-                Flashcard flashcard = recyclerAdapter.getItems().get(position);
+        if (search.isEmpty()) {
+            searchTask = null;
+            recyclerAdapter.submitList(new ArrayList<>());
+            return;
+        }
 
-                Intent intent = new Intent(SearchFlashcardsActivity.this, FlashcardInfoActivity.class);
-                intent.putExtra(FlashcardInfoActivity.FLASHCARD_ID, flashcard.getCardId());
-                startActivity(intent);
-            });
+        searchTask = TaskDispatcher.getInstance().execute(this, () -> {
+            List<FlashcardMatch> searchList = viewModel.liveSearch(search);
 
             runOnUiThread(() -> {
-                binding.flashcardRecyclerView.setAdapter(recyclerAdapter);
+                if (search.equals(lastSearch))
+                    recyclerAdapter.submitList(searchList);
             });
         });
+    }
 
+    /**
+     * Runs the search again when the screen is shown.
+     *
+     * <p> A flashcard may have been edited or deleted while the screen was hidden, for example from
+     * the flashcard's own screen, so the last results are thrown away instead of being shown or
+     * refined again. </p>
+     */
+    @Override
+    protected void onResume() {
+        super.onResume();
+
+        viewModel.clearLiveSearch();
+        lastSearch = null;
+        searchFlashcards();
+    }
+
+    /**
+     * Stops a waiting search when the screen is closed.
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        handler.removeCallbacks(debouncedSearch);
     }
 
     /**
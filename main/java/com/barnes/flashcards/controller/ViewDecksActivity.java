@@ -1,5 +1,7 @@
 package com.barnes.flashcards.controller;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.ViewModelProvider;
@@ -7,20 +9,29 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.net.Uri;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
+import android.widget.Toast;
 
+import com.barnes.flashcards.BuildConfig;
 import com.barnes.flashcards.R;
 import com.barnes.flashcards.adapter.DeckRecyclerAdapter;
 import com.barnes.flashcards.database.FlashcardsViewModel;
 import com.barnes.flashcards.databinding.ActivityViewDecksBinding;
+import com.barnes.flashcards.io.AnkiImporter;
+import com.barnes.flashcards.io.DeckExporter;
 import com.barnes.flashcards.model.Deck;
+import com.barnes.flashcards.util.ScreenTimer;
+import com.barnes.flashcards.util.StartupTimer;
+import com.barnes.flashcards.util.TaskDispatcher;
 
-import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * Controller for viewing all decks.
@@ -30,6 +41,32 @@ import java.util.concurrent.Executors;
 public class ViewDecksActivity extends AppCompatActivity {
     private ActivityViewDecksBinding binding;
     private FlashcardsViewModel viewModel;
+    private DeckRecyclerAdapter adapter;
+
+    // Times how long the screen takes to show its content
+    private final ScreenTimer screenTimer = new ScreenTimer("view_decks");
+
+    private static final String TAG = "ViewDecksActivity";
+
+    // The file name suggested when exporting, without its extension
+    private static final String EXPORT_FILE_NAME = "flashcards";
+
+    // Let the user choose where to save an export of every deck
+    private final ActivityResultLauncher<String> exportCsvLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument(DeckExporter.Format.CSV.getMimeType()),
+            uri -> exportDecks(uri, DeckExporter.Format.CSV));
+    private final ActivityResultLauncher<String> exportJsonLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument(DeckExporter.Format.JSON.getMimeType()),
+            uri -> exportDecks(uri, DeckExporter.Format.JSON));
+
+    // Lets the user choose an Anki package to import. Providers rarely know the .apkg type
+    private final ActivityResultLauncher<String[]> ankiImportLauncher = registerForActivityResult(
+            new ActivityResultContracts.OpenDocument(), this::importAnkiPackage);
+
+    // The size of the data the debug menu generates, and its seed, so every run is the same
+    private static final int GENERATE_DECK_COUNT = 20;
+    private static final int GENERATE_CARD_COUNT = 100_000;
+    private static final long GENERATE_SEED = 1;
 
     // Tags for if it's the first time loading the app
     private static final String SHARED_PREFERENCES = "shared preferences";
@@ -75,25 +112,27 @@ public class ViewDecksActivity extends AppCompatActivity {
     /**
      * Sets up the recycler view.
      *
-     * <p> This method gets the list of all decks in the database. It then sets up the recycler view
-     * using that list. It runs on a background thread. </p>
+     * <p> This method observes the list of all decks in the database and gives each new list to
+     * the recycler adapter. The list is only queried again when the deck table changes, and only
+     * the rows that changed are redrawn. The first list with decks in it records the startup time. </p>
      */
     private void loadDecksTask() {
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        executor.execute(() -> {
-            List<Deck> deckList = viewModel.getAllDecks();
+        adapter = new DeckRecyclerAdapter((position, view) -> {  // OnContactClickListener
+            Deck deck = adapter.getDeck(position);
 
-            DeckRecyclerAdapter adapter = new DeckRecyclerAdapter(deckList, (position, view) -> {  // OnContactClickListener
-                Deck deck = deckList.get(position);
+            Intent intent = new Intent(ViewDecksActivity.this, DeckInfoActivity.class);
+            intent.putExtra(DeckInfoActivity.DECK_ID, deck.getDeckId());
+            startActivity(intent);
+        });
+        binding.deckRecyclerview.setAdapter(adapter);
 
-                Intent intent = new Intent(ViewDecksActivity.this, DeckInfoActivity.class);
-                intent.putExtra(DeckInfoActivity.DECK_ID, deck.getDeckId());
-                startActivity(intent);
-            });
+        viewModel.observeAllDecks().observe(this, decks -> {
+            adapter.submitList(decks);
+            screenTimer.recordShown(decks.size());
 
-            runOnUiThread(() -> {
-                binding.deckRecyclerview.setAdapter(adapter);
-            });
+            // The deck list is the first screen, so this is how long startup took
+            if (!decks.isEmpty())
+                StartupTimer.recordFirstRows();
         });
     }
 
@@ -106,6 +145,11 @@ public class ViewDecksActivity extends AppCompatActivity {
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.view_decks_menu, menu);
+
+        // Generating test data and the performance tools are only offered in debug builds
+        menu.findItem(R.id.view_deck_generate).setVisible(BuildConfig.DEBUG);
+        menu.findItem(R.id.view_deck_query_stats).setVisible(BuildConfig.DEBUG);
+        menu.findItem(R.id.view_deck_diagnostics).setVisible(BuildConfig.DEBUG);
         return true;
     }
 
@@ -122,8 +166,153 @@ public class ViewDecksActivity extends AppCompatActivity {
         if (id == R.id.view_deck_add) {
             startActivity(new Intent(ViewDecksActivity.this, AddDeckActivity.class));
             return true;
+        } else if (id == R.id.view_deck_import_anki) {
+            ankiImportLauncher.launch(new String[]{"*/*"});
+            return true;
+        } else if (id == R.id.view_deck_export_csv) {
+            exportCsvLauncher.launch(EXPORT_FILE_NAME + DeckExporter.Format.CSV.getExtension());
+            return true;
+        } else if (id == R.id.view_deck_export_json) {
+            exportJsonLauncher.launch(EXPORT_FILE_NAME + DeckExporter.Format.JSON.getExtension());
+            return true;
+        } else if (id == R.id.view_deck_generate) {
+            generateData();
+            return true;
+        } else if (id == R.id.view_deck_query_stats) {
+            dumpQueryStats();
+            return true;
+        } else if (id == R.id.view_deck_diagnostics) {
+            startActivity(new Intent(ViewDecksActivity.this, DiagnosticsActivity.class));
+            return true;
         }
 
         return super.onOptionsItemSelected(item);
     }
+
+    /**
+     * Imports the notes of an Anki package as flashcards.
+     *
+     * <p> The package is read in a background thread. New decks appear in the list as they are
+     * created, and the number of notes read is shown under the title. </p>
+     * @param uri The file the user chose, or null if they cancelled
+     */
+    private void importAnkiPackage(Uri uri) {
+        if (uri == null)
+            return;
+
+        TaskDispatcher.getInstance().execute(this, TaskDispatcher.Priority.PREFETCH, () -> {
+            String message;
+            try (InputStream input = getContentResolver().openInputStream(uri)) {
+                if (input == null)
+                    throw new IOException("Could not open " + uri);
+
+                AnkiImporter.Result result = viewModel.importAnkiPackage(input,
+                        (notesRead, noteCount, imported) -> runOnUiThread(() -> {
+                            if (getSupportActionBar() != null)
+                                getSupportActionBar().setSubtitle(
+                                        getString(R.string.anki_import_progress, notesRead, noteCount));
+                        }));
+                message = getString(R.string.anki_import_done, result.getImported(), result.getDecks(),
+                        result.getDuplicates());
+            } catch (IOException e) {
+                Log.w(TAG, "Anki import failed", e);
+                message = getString(R.string.anki_import_failed);
+            }
+
+            String toast = message;
+            runOnUiThread(() -> {
+                if (getSupportActionBar() != null)
+                    getSupportActionBar().setSubtitle(null);
+                Toast.makeText(ViewDecksActivity.this, toast, Toast.LENGTH_LONG).show();
+            });
+        });
+    }
+
+    /**
+     * Fills the database with generated test data.
+     *
+     * <p> The data is written in a background thread, a batch at a time, so the new decks can be
+     * opened while it is written. The number of flashcards written is shown under the title. </p>
+     */
+    private void generateData() {
+        TaskDispatcher.getInstance().execute(this, TaskDispatcher.Priority.PREFETCH, () -> {
+            String message;
+            try {
+                long generated = viewModel.generateData(GENERATE_DECK_COUNT, GENERATE_CARD_COUNT, GENERATE_SEED,
+                        (written, cardCount) -> runOnUiThread(() -> {
+                            if (getSupportActionBar() != null)
+                                getSupportActionBar().setSubtitle(
+                                        getString(R.string.generate_progress, written, cardCount));
+                        }));
+                message = getString(R.string.generate_done, generated, GENERATE_DECK_COUNT);
+            } catch (IOException e) {
+                Log.w(TAG, "Generating test data failed", e);
+                message = getString(R.string.generate_failed);
+            }
+
+            String toast = message;
+            runOnUiThread(() -> {
+                if (getSupportActionBar() != null)
+                    getSupportActionBar().setSubtitle(null);
+                Toast.makeText(ViewDecksActivity.this, toast, Toast.LENGTH_LONG).show();
+            });
+        });
+    }
+
+    /**
+     * Writes the query latency statistics to a file, and shows where it was written.
+     */
+    private void dumpQueryStats() {
+        TaskDispatcher.getInstance().execute(this, TaskDispatcher.Priority.PREFETCH, () -> {
+            String message;
+            try {
+                message = getString(R.string.query_stats_done, viewModel.dumpQueryStats().getAbsolutePath());
+            } catch (IOException e) {
+                Log.w(TAG, "Dumping query statistics failed", e);
+                message = getString(R.string.query_stats_failed);
+            }
+
+            String toast = message;
+            runOnUiThread(() -> Toast.makeText(ViewDecksActivity.this, toast, Toast.LENGTH_LONG).show());
+        });
+    }
+
+    /**
+     * Exports every deck to a file.
+     *
+     * <p> The decks are written in a background thread, one deck at a time, and the deck being
+     * written is shown under the title. </p>
+     * @param uri The file the user chose, or null if they cancelled
+     * @param format The format to write
+     */
+    private void exportDecks(Uri uri, DeckExporter.Format format) {
+        if (uri == null)
+            return;
+
+        TaskDispatcher.getInstance().execute(this, TaskDispatcher.Priority.PREFETCH, () -> {
+            String message;
+            try (OutputStream output = getContentResolver().openOutputStream(uri)) {
+                if (output == null)
+                    throw new IOException("Could not open " + uri);
+
+                long exported = viewModel.exportDecks(viewModel.getAllDecks(), output, format,
+                        (decksExported, deckCount, flashcardsExported) -> runOnUiThread(() -> {
+                            if (getSupportActionBar() != null)
+                                getSupportActionBar().setSubtitle(
+                                        getString(R.string.export_progress, decksExported, deckCount));
+                        }));
+                message = getString(R.string.export_done, exported);
+            } catch (IOException e) {
+                Log.w(TAG, "Export failed", e);
+                message = getString(R.string.export_failed);
+            }
+
+            String toast = message;
+            runOnUiThread(() -> {
+                if (getSupportActionBar() != null)
+                    getSupportActionBar().setSubtitle(null);
+                Toast.makeText(ViewDecksActivity.this, toast, Toast.LENGTH_LONG).show();
+            });
+        });
+    }
 }
\ No newline at end of file
@@ -13,18 +13,16 @@ import android.view.MenuItem;
 import android.view.View;
 import android.widget.CheckBox;
 
-import com.barnes.flashcards.adapter.FlashcardRecyclerAdapter;
+import com.barnes.flashcards.adapter.FlashcardPagingAdapter;
 import com.barnes.flashcards.database.FlashcardsViewModel;
 import com.barnes.flashcards.databinding.ActivityViewFlashcardsBinding;
 import com.barnes.flashcards.model.Deck;
 import com.barnes.flashcards.model.Flashcard;
 import com.barnes.flashcards.R;
 import com.barnes.flashcards.util.DeleteDialog;
+import com.barnes.flashcards.util.ScreenTimer;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import kotlin.Unit;
 
 /**
  * Controller for viewing all flashcards in a deck.
@@ -39,16 +37,18 @@ public class ViewFlashcardsActivity extends AppCompatActivity implements DeleteD
 
     private ActivityViewFlashcardsBinding binding;
     private FlashcardsViewModel viewModel;
-    private FlashcardRecyclerAdapter adapter;
+    private FlashcardPagingAdapter adapter;
     private boolean isDelete = false;
-    private final List<Flashcard> deleteList = new ArrayList<>();
     private Deck deck;
 
+    // Times how long the screen takes to show its content
+    private final ScreenTimer screenTimer = new ScreenTimer("view_flashcards");
+
     /**
      * Method that runs when the activity is created.
      *
-     * <p> This method initializes the views in the layout. It gets a list of all flashcards in a
-     * deck and loads the Recycler Adapter with the list. Clicking on a flashcard will bring the
+     * <p> This method initializes the views in the layout. It loads the flashcards in a deck into
+     * the Recycler Adapter one page at a time. Clicking on a flashcard will bring the
      * user to a detailed view of the flashcard. </p>
      * @param savedInstanceState contains data supplied to onSaveInstanceState() or null
      */
@@ -59,9 +59,7 @@ public class ViewFlashcardsActivity extends AppCompatActivity implements DeleteD
         binding = ActivityViewFlashcardsBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
-        viewModel = new ViewModelProvider.AndroidViewModelFactory(
-                ViewFlashcardsActivity.this.getApplication())
-                .create(FlashcardsViewModel.class);
+        viewModel = new ViewModelProvider(this).get(FlashcardsViewModel.class);
 
         int deckId = 1;
         Bundle intentData = getIntent().getExtras();
@@ -84,71 +82,66 @@ public class ViewFlashcardsActivity extends AppCompatActivity implements DeleteD
     /**
      * Sets up the recycler view.
      *
-     * <p> This method gets the list of all flashcards in a deck. It then sets up the recycler
-     * view using that list. Clicking on a view will select it for deletion or take the user to
-     * that flashcard's information. It runs on a background thread. </p>
+     * <p> This method connects the recycler view to the paged flashcards in a deck, so only the
+     * pages the user scrolls to are loaded. The list is updated when the flashcards change.
+     * Clicking on a view will select it for deletion or take the user to that flashcard's
+     * information. The deck is observed so it stays up to date. </p>
      */
     private void loadFlashcardsTask(int deckId) {
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        executor.execute(() -> {
-            List<Flashcard> flashcardList = viewModel.getFlashcardsInDeck(deckId);
-            deck = viewModel.getDeckFromId(deckId);
-
-            adapter = new FlashcardRecyclerAdapter(flashcardList,
-                    (position, view) -> {  // OnContactClickListener
-                Flashcard flashcard = adapter.getItems().get(position);
-
-                if (isDelete) {
-                    selectDeleteCards(flashcard, view);
-                } else {
-                    Intent intent = new Intent(ViewFlashcardsActivity.this, FlashcardInfoActivity.class);
-                    intent.putExtra(FlashcardInfoActivity.FLASHCARD_ID, flashcard.getCardId());
-                    startActivity(intent);
-                }
-            });
-
-            runOnUiThread(() -> {
-                binding.flashcardRecyclerview.setAdapter(adapter);
-            });
+        adapter = new FlashcardPagingAdapter((position, view) -> {  // OnContactClickListener
+            Flashcard flashcard = adapter.peek(position);
+            if (flashcard == null)
+                return;
+
+            if (isDelete) {
+                selectDeleteCards(flashcard, view);
+            } else {
+                Intent intent = new Intent(ViewFlashcardsActivity.this, FlashcardInfoActivity.class);
+                intent.putExtra(FlashcardInfoActivity.FLASHCARD_ID, flashcard.getCardId());
+                startActivity(intent);
+            }
+        });
+        binding.flashcardRecyclerview.setAdapter(adapter);
+
+        viewModel.getFlashcardPages(deckId).observe(this, pagingData -> {
+            adapter.submitData(getLifecycle(), pagingData);
+        });
+
+        // The first page has been shown once the adapter has items, or the deck is empty
+        adapter.addOnPagesUpdatedListener(() -> {
+            screenTimer.recordShown(adapter.getItemCount());
+            return Unit.INSTANCE;
+        });
+
+        viewModel.observeDeck(deckId).observe(this, observedDeck -> {
+            if (observedDeck != null)
+                deck = observedDeck;
         });
     }
 
     /**
      * Checks or unchecks a flashcard as being selected for deletion.
      *
-     * <p> This method sets the view's delete checkbox to the opposite of what it currently is.
-     * It then uses that boolean value to either add or remove the view's course instructor from a
-     * list of instructors to be deleted. </p>
+     * <p> This method tells the adapter to select or unselect the flashcard, and sets the view's
+     * delete checkbox to match. </p>
      * @param flashcard The flashcard whose information is located in the view
      * @param view The ViewHolder view from the recycler adapter
      */
     private void selectDeleteCards(Flashcard flashcard, View view) {
         CheckBox deleteCheckBox = view.findViewById(R.id.card_delete_checkbox);
-        boolean isChecked = !deleteCheckBox.isChecked();
-
-        deleteCheckBox.setChecked(isChecked);
-
-        if (isChecked)
-            deleteList.add(flashcard);
-        else
-            deleteList.remove(flashcard);
+        deleteCheckBox.setChecked(adapter.toggleSelected(flashcard.getCardId()));
     }
 
     /**
-     * Deletes the flashcards in the delete list from the database and updates the deck.
+     * Deletes the selected flashcards from the database and updates the deck.
+     *
+     * <p> The flashcards are deleted and the deck size is recounted in a single transaction. The
+     * paged list removes the deleted rows by itself once the flashcard table changes. </p>
      */
     private void deleteFlashcards() {
-        for (Flashcard flashcard : deleteList) {
-            viewModel.delete(flashcard);
-            deck.decrementSize();
-            adapter.delete(flashcard);
-        }
-
-        viewModel.update(deck);
+        viewModel.deleteFlashcards(deck.getDeckId(), adapter.getSelectedIds());
 
-        deleteList.clear();
         isDelete = false;
-
         showDeleteButtons();
     }
 
@@ -164,14 +157,13 @@ public class ViewFlashcardsActivity extends AppCompatActivity implements DeleteD
         }
 
         adapter.setDelete(isDelete);
-        adapter.notifyDataSetChanged();
     }
 
     /**
      * Shows a message asking for confirmation to delete the selected flashcards.
      */
     private void showDeleteDialog() {
-        int deleteSize = deleteList.size();
+        int deleteSize = adapter.getSelectedIds().size();
 
         if (deleteSize == 0) {
             isDelete = false;
@@ -208,7 +200,6 @@ public class ViewFlashcardsActivity extends AppCompatActivity implements DeleteD
      */
     @Override
     public void onDeleteDialogNegative(DialogFragment dialog) {
-        deleteList.clear();
         isDelete = false;
         showDeleteButtons();
     }
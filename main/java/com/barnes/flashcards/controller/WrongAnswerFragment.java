@@ -15,9 +15,7 @@ import android.view.ViewGroup;
 import com.barnes.flashcards.database.FlashcardsViewModel;
 import com.barnes.flashcards.databinding.FragmentWrongAnswerBinding;
 import com.barnes.flashcards.model.Flashcard;
-
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import com.barnes.flashcards.model.ReviewSession;
 
 /**
  * Fragment that shows the correct answer to a flashcard quiz.
@@ -89,8 +87,8 @@ public class WrongAnswerFragment extends Fragment {
     /**
      * Method that runs after the fragment view is created.
      *
-     * <p> The views in the layout are initialized here. It checks the Intent for a flashcard ID and
-     * loads that flashcard. </p>
+     * <p> The views in the layout are initialized here. It checks the arguments for a flashcard ID
+     * and loads that flashcard from the review session. </p>
      * @param view The view returned by onCreateView()
      * @param savedInstanceState Contains data supplied to onSaveInstanceState() or null
      */
@@ -98,8 +96,8 @@ public class WrongAnswerFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        viewModel = new ViewModelProvider.AndroidViewModelFactory(this.getActivity().getApplication())
-                .create(FlashcardsViewModel.class);
+        // Share ReviewActivity's view model, which holds the review session
+        viewModel = new ViewModelProvider(requireActivity()).get(FlashcardsViewModel.class);
 
         int cardId = 1;
         if (getArguments() != null) {
@@ -116,22 +114,21 @@ public class WrongAnswerFragment extends Fragment {
     /**
      * Loads the information from a given flashcard.
      *
-     * <p> This method uses the supplied flashcard ID to find the card in the database and binds its
-     * information to the layout's views. </p>
+     * <p> This method uses the supplied flashcard ID to find the card in the review session loaded
+     * by ReviewActivity, so it doesn't read the database. It binds the card's information to the
+     * layout's views. </p>
      * @param cardId The ID of the flashcard
      */
     private void loadCardTask(int cardId) {
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        executor.execute(() -> {
-            flashcard = viewModel.getFlashcardFromId(cardId);
-
-            if (isAdded()) {
-                getActivity().runOnUiThread(() -> {
-                    binding.enterVocab2.setText(flashcard.getBack());
-                    binding.enterAnswer.setText(flashcard.getFront());
-                });
-            }
-        });
+        // The session is chosen again if the app was stopped, and this fragment will be replaced
+        ReviewSession session = viewModel.getReviewSession();
+        if (session == null || session.getCard(cardId) == null)
+            return;
+
+        flashcard = session.getCard(cardId);
+
+        binding.enterVocab2.setText(flashcard.getBack());
+        binding.enterAnswer.setText(flashcard.getFront());
     }
 
     /**
@@ -0,0 +1,51 @@
+package com.barnes.flashcards.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.barnes.flashcards.model.CardSchedule;
+import com.barnes.flashcards.model.Flashcard;
+
+import java.util.List;
+
+/**
+ * Sets up operations for the flashcard schedule table in the database.
+ *
+ * <p> Schedule rows are created by a trigger when a flashcard is inserted and deleted with it, so
+ * they are only ever read and updated here. Times are epoch milliseconds. </p>
+ */
+@Dao
+public interface CardScheduleDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsert(CardSchedule schedule);
+
+    @Query("SELECT * FROM card_schedule WHERE card_id = :cardId")
+    CardSchedule getSchedule(int cardId);
+
+    // Gets up to limit non-archived flashcards that are due, most overdue first. Walks the
+    // (deck_id, due) index, so it stops after limit rows instead of sorting the deck
+    @Query("SELECT f.* FROM card_schedule s JOIN flashcard_table f ON f.cardId = s.card_id " +
+            "WHERE s.deck_id = :deckId AND s.due <= :now AND f.status != 'ARCHIVED' " +
+            "ORDER BY s.due LIMIT :limit")
+    List<Flashcard> getDueCards(int deckId, long now, int limit);
+
+    // Gets the limit non-archived flashcards that are due soonest, whether or not they are due yet
+    @Query("SELECT f.* FROM card_schedule s JOIN flashcard_table f ON f.cardId = s.card_id " +
+            "WHERE s.deck_id = :deckId AND f.status != 'ARCHIVED' " +
+            "ORDER BY s.due LIMIT :limit")
+    List<Flashcard> getNextCards(int deckId, int limit);
+
+    // The same as getNextCards(), for while a migrated database is still having schedules created for
+    // its flashcards. A flashcard without a schedule is treated as due at now. This sorts the whole
+    // deck, so it is only used until the schedules have all been created
+    @Query("SELECT f.* FROM flashcard_table f LEFT JOIN card_schedule s ON s.card_id = f.cardId " +
+            "WHERE f.deck_id = :deckId AND f.status != 'ARCHIVED' " +
+            "ORDER BY IFNULL(s.due, :now) LIMIT :limit")
+    List<Flashcard> getNextCardsWithUnscheduled(int deckId, long now, int limit);
+
+    @Query("SELECT COUNT(*) FROM card_schedule WHERE deck_id = :deckId AND due <= :now")
+    int getDueCount(int deckId, long now);
+}
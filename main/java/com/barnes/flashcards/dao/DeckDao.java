@@ -5,9 +5,9 @@ import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
-import androidx.room.Update;
 
 import com.barnes.flashcards.model.Deck;
+import com.barnes.flashcards.model.DeckCounts;
 
 import java.util.List;
 
@@ -18,10 +18,43 @@ import java.util.List;
 public interface DeckDao {
 
     @Insert(onConflict = OnConflictStrategy.IGNORE)
-    void insert(Deck deck);
+    long insert(Deck deck);
 
-    @Update
-    void update(Deck deck);
+    @Query("UPDATE deck_table SET title = :title WHERE deck_id = :deckId")
+    void updateTitle(int deckId, String title);
+
+    /**
+     * Updates a deck in the database.
+     *
+     * <p> Only the title of the deck is written. The size and status counts are maintained by
+     * triggers, and the guess totals are only changed by addGuesses(), so a deck that was loaded
+     * before flashcards were added or reviewed can't overwrite them with old values. </p>
+     * @param deck The deck to update
+     */
+    default void update(Deck deck) {
+        updateTitle(deck.getDeckId(), deck.getTitle());
+    }
+
+    /**
+     * Adds the answers from a review session to a deck's guess totals.
+     *
+     * <p> The totals are added to in the database instead of being written from Java, so two
+     * sessions of the same deck can't overwrite each other's answers. Like Deck.checkOverflow(),
+     * both totals are halved once the total guesses reach 2 billion. SQLite works out every new
+     * value from the row's old values, so total_right is checked against the old total_guesses. </p>
+     * @param deckId The ID of the deck that was reviewed
+     * @param guesses The number of answers
+     * @param right The number of correct answers
+     * @param timeReviewed The time of the last answer, in epoch milliseconds
+     */
+    @Query("UPDATE deck_table SET " +
+            "total_guesses = CASE WHEN total_guesses + :guesses >= 2000000000 " +
+            "THEN (total_guesses + :guesses) / 2 ELSE total_guesses + :guesses END, " +
+            "total_right = CASE WHEN total_guesses + :guesses >= 2000000000 " +
+            "THEN (total_right + :right) / 2 ELSE total_right + :right END, " +
+            "time_reviewed = :timeReviewed " +
+            "WHERE deck_id = :deckId")
+    void addGuesses(int deckId, int guesses, int right, long timeReviewed);
 
     @Delete
     void delete(Deck deck);
@@ -31,4 +64,19 @@ public interface DeckDao {
 
     @Query("SELECT * FROM deck_table WHERE deck_id = :deckId")
     Deck getDeckFromId(int deckId);
+
+    @Query("SELECT COUNT(*) FROM deck_table")
+    int getDeckCount();
+
+    // The number of flashcards in every deck, from the sizes the triggers keep, without reading
+    // the flashcard table
+    @Query("SELECT IFNULL(SUM(size), 0) FROM deck_table")
+    long getTotalSize();
+
+    @Query("SELECT deck_id, size, still_learning_count, learned_count, archived_count " +
+            "FROM deck_table WHERE deck_id = :deckId")
+    DeckCounts getDeckCounts(int deckId);
+
+    @Query("SELECT deck_id, size, still_learning_count, learned_count, archived_count FROM deck_table")
+    List<DeckCounts> getAllDeckCounts();
 }
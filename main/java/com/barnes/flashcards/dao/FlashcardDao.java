@@ -1,24 +1,39 @@
 package com.barnes.flashcards.dao;
 
+import android.database.Cursor;
+
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
 import com.barnes.flashcards.model.Flashcard;
+import com.barnes.flashcards.model.FlashcardMatch;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
 
 /**
  * Sets up CRUD operations for the flashcard table in the database.
  */
 @Dao
 public interface FlashcardDao {
+    // The most IDs bound to a single IN (...) list. SQLite allows 999 variables on older versions
+    int MAX_BATCH_IDS = 900;
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long insert(Flashcard flashcard);
 
+    // Inserts many flashcards with one prepared statement. Used by the importers, which call it in
+    // a transaction for each batch
     @Insert(onConflict = OnConflictStrategy.IGNORE)
-    void insert(Flashcard flashcard);
+    void insertAll(List<Flashcard> flashcards);
 
     @Update
     void update(Flashcard flashcard);
@@ -26,20 +41,167 @@ public interface FlashcardDao {
     @Delete
     void delete(Flashcard flashcard);
 
+    @Query("DELETE FROM flashcard_table WHERE cardId IN (:cardIds)")
+    int deleteFlashcardsFromIds(List<Integer> cardIds);
+
+    /**
+     * Deletes a list of flashcards.
+     *
+     * <p> All of the flashcards are deleted in a single transaction, so no one sees some of the
+     * flashcards deleted. The deck counts are updated by triggers in the same transaction. </p>
+     * @param cardIds The IDs of the flashcards to delete
+     * @return Returns the number of flashcards that were deleted
+     */
+    @Transaction
+    default int deleteFlashcards(List<Integer> cardIds) {
+        int deleted = 0;
+
+        for (int start = 0; start < cardIds.size(); start += MAX_BATCH_IDS) {
+            int end = Math.min(cardIds.size(), start + MAX_BATCH_IDS);
+            deleted += deleteFlashcardsFromIds(cardIds.subList(start, end));
+        }
+
+        return deleted;
+    }
+
     @Query("SELECT * FROM flashcard_table")
     List<Flashcard> getAllFlashcards();
 
     @Query("SELECT * FROM flashcard_table WHERE cardId = :cardId")
     Flashcard getFlashcardFromId(int cardId);
 
-    @Query("SELECT * FROM flashcard_table WHERE deck_id = :deckId")
+    @Query("SELECT * FROM flashcard_table WHERE deck_id = :deckId ORDER BY cardId")
     List<Flashcard> getFlashcardsInDeck(int deckId);
 
+    // Keyset pagination for a deck, ordered by cardId. Gets up to limit flashcards after afterId
+    @Query("SELECT * FROM flashcard_table WHERE deck_id = :deckId AND cardId > :afterId " +
+            "ORDER BY cardId LIMIT :limit")
+    List<Flashcard> getFlashcardsAfter(int deckId, int afterId, int limit);
+
+    // Gets up to limit flashcards before beforeId, closest first
+    @Query("SELECT * FROM flashcard_table WHERE deck_id = :deckId AND cardId < :beforeId " +
+            "ORDER BY cardId DESC LIMIT :limit")
+    List<Flashcard> getFlashcardsBefore(int deckId, int beforeId, int limit);
+
+    // A cursor over the next limit flashcards of a deck after afterId, for exporting without loading
+    // the flashcards into objects. The columns are cardId, front, back and status, in that order.
+    // The caller must close the cursor
+    @Query("SELECT cardId, front, back, status FROM flashcard_table " +
+            "WHERE deck_id = :deckId AND cardId > :afterId ORDER BY cardId LIMIT :limit")
+    Cursor getExportCursor(int deckId, int afterId, int limit);
+
+    // A cursor over the next limit fronts after afterId, for building an index of every front without
+    // loading the flashcards. The columns are cardId and front. The caller must close the cursor
+    @Query("SELECT cardId, front FROM flashcard_table WHERE cardId > :afterId ORDER BY cardId LIMIT :limit")
+    Cursor getFrontCursor(int afterId, int limit);
+
+    @Query("SELECT COUNT(*) FROM flashcard_table")
+    int getFlashcardCount();
+
     @Query("SELECT * FROM flashcard_table WHERE lower(front) LIKE :search OR lower(back) LIKE :search")
     List<Flashcard> searchFlashcards(String search);
 
+    // A cursor over the ID and matchinfo(flashcard_fts, 'pcnalx') of every match of a full-text search,
+    // for ranking the matches without reading the flashcards. The caller must close the cursor
+    @Query("SELECT rowid, matchinfo(flashcard_fts, 'pcnalx') FROM flashcard_fts WHERE flashcard_fts MATCH :query")
+    Cursor getMatchInfoCursor(String query);
+
+    // The matches of a full-text search with the given IDs, unordered, each with a snippet whose matched
+    // words are between FlashcardMatch.SNIPPET_START and SNIPPET_END
+    @Query("SELECT flashcard_table.*, matchinfo(flashcard_fts, 'pcnalx') AS match_info, " +
+            "snippet(flashcard_fts, char(2), char(3), '...', -1, 8) AS snippet " +
+            "FROM flashcard_fts JOIN flashcard_table ON flashcard_table.cardId = flashcard_fts.rowid " +
+            "WHERE flashcard_fts MATCH :query AND flashcard_fts.rowid IN (:cardIds)")
+    List<FlashcardMatch> getMatchesFromIds(String query, List<Integer> cardIds);
+
+    /**
+     * Full-text search using the FTS4 index.
+     *
+     * <p> FTS4 can't rank in SQL, so the BM25 rank of every match is calculated from its matchinfo()
+     * before any are dropped, and only the best limit matches have their flashcards read. Both reads
+     * are in one transaction, so the matches are consistent with their ranks. </p>
+     * @param query The search, in the FTS MATCH syntax
+     * @param limit The most matches to return
+     * @return Returns the best limit matches, from the best to the worst BM25 rank
+     */
+    @Transaction
+    default List<FlashcardMatch> matchFlashcards(String query, int limit) {
+        // The best matches so far, with the worst at the head
+        PriorityQueue<double[]> best = new PriorityQueue<>(Math.max(1, limit),
+                (a, b) -> a[0] != b[0] ? Double.compare(a[0], b[0]) : Double.compare(b[1], a[1]));
+
+        try (Cursor cursor = getMatchInfoCursor(query)) {
+            while (cursor.moveToNext()) {
+                best.add(new double[]{FlashcardMatch.bm25(cursor.getBlob(1)), cursor.getInt(0)});
+                if (best.size() > limit)
+                    best.poll();
+            }
+        }
+
+        List<Integer> cardIds = new ArrayList<>(best.size());
+        for (double[] match : best)
+            cardIds.add((int) match[1]);
+
+        List<FlashcardMatch> matches = new ArrayList<>(cardIds.size());
+        for (int start = 0; start < cardIds.size(); start += MAX_BATCH_IDS) {
+            int end = Math.min(cardIds.size(), start + MAX_BATCH_IDS);
+            matches.addAll(getMatchesFromIds(query, cardIds.subList(start, end)));
+        }
+
+        matches.sort(Comparator.comparingDouble(FlashcardMatch::getRank).reversed()
+                .thenComparingInt(match -> match.getFlashcard().getCardId()));
+        return matches;
+    }
+
     // Get a flashcard row from the table using OFFSET. Calling activity must make sure row is in the table using Deck size
-    // Selects the (rowNumber + 1) row
+    // Selects the (rowNumber + 1) row. Only kept as DaoBenchmark's baseline for sampleCards()
     @Query("SELECT * FROM flashcard_table WHERE deck_id = :deckId LIMIT 1 OFFSET :rowNumber")
     Flashcard getRowCard(int rowNumber, int deckId);
+
+    // Chooses up to count random, non-archived card IDs from a deck. Only reads the
+    // (deck_id, status) index, so no flashcard rows are loaded while sorting
+    @Query("SELECT cardId FROM flashcard_table WHERE deck_id = :deckId AND status != 'ARCHIVED' " +
+            "ORDER BY RANDOM() LIMIT :count")
+    List<Integer> sampleCardIds(int deckId, int count);
+
+    @Query("SELECT * FROM flashcard_table WHERE cardId IN (:cardIds)")
+    List<Flashcard> getFlashcardsFromIds(List<Integer> cardIds);
+
+    /**
+     * Gets a list of random flashcards from a deck.
+     *
+     * <p> This method chooses up to count distinct flashcards from the deck that are not archived.
+     * The IDs and the flashcards are read in the same transaction, so the sample is consistent
+     * even if the deck is being changed at the same time. The list is returned in random order. </p>
+     * @param deckId The ID of the deck to choose flashcards from
+     * @param count The maximum number of flashcards to choose
+     * @return Returns a list of random flashcards, which is smaller than count if the deck does not
+     *         have enough non-archived flashcards
+     */
+    @Transaction
+    default List<Flashcard> sampleCards(int deckId, int count) {
+        List<Integer> cardIds = sampleCardIds(deckId, count);
+        if (cardIds.isEmpty())
+            return new ArrayList<>();
+
+        // IN (...) does not keep the order of the IDs, so shuffle the rows again
+        List<Flashcard> flashcards = getFlashcardsFromIds(cardIds);
+        Collections.shuffle(flashcards);
+        return flashcards;
+    }
+
+    // The lowest and highest card IDs in a deck, or null if the deck is empty. Both are read from the
+    // end of the (deck_id, cardId) index
+    @Query("SELECT MIN(cardId) FROM flashcard_table WHERE deck_id = :deckId")
+    Integer getMinCardId(int deckId);
+
+    @Query("SELECT MAX(cardId) FROM flashcard_table WHERE deck_id = :deckId")
+    Integer getMaxCardId(int deckId);
+
+    // Get up to limit non-archived flashcards from a deck with IDs from fromId to toId, in ID order.
+    // Walks the (deck_id, cardId) index from fromId, so only the rows returned and any archived rows
+    // between them are read
+    @Query("SELECT * FROM flashcard_table WHERE deck_id = :deckId AND cardId BETWEEN :fromId AND :toId " +
+            "AND status != 'ARCHIVED' ORDER BY cardId LIMIT :limit")
+    List<Flashcard> getFlashcardRun(int deckId, int fromId, int toId, int limit);
 }
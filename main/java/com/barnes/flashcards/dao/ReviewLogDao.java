@@ -0,0 +1,41 @@
+package com.barnes.flashcards.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+
+import com.barnes.flashcards.model.ReviewLog;
+
+import java.util.List;
+
+/**
+ * Sets up operations for the review log table in the database.
+ *
+ * <p> The review log is append only, so there are no updates. Every read is a time range, which
+ * is answered from one of the table's (column, reviewed_at) indexes. Times are epoch milliseconds,
+ * from inclusive and to exclusive. </p>
+ */
+@Dao
+public interface ReviewLogDao {
+
+    @Insert
+    void insertAll(List<ReviewLog> logs);
+
+    @Query("SELECT * FROM review_log WHERE reviewed_at >= :from AND reviewed_at < :to " +
+            "ORDER BY reviewed_at")
+    List<ReviewLog> getLogsBetween(long from, long to);
+
+    @Query("SELECT * FROM review_log WHERE deck_id = :deckId " +
+            "AND reviewed_at >= :from AND reviewed_at < :to ORDER BY reviewed_at")
+    List<ReviewLog> getDeckLogsBetween(int deckId, long from, long to);
+
+    @Query("SELECT * FROM review_log WHERE card_id = :cardId ORDER BY reviewed_at")
+    List<ReviewLog> getCardLogs(int cardId);
+
+    @Query("SELECT COUNT(*) FROM review_log")
+    int getLogCount();
+
+    // Removes history older than a time, for keeping the log from growing forever
+    @Query("DELETE FROM review_log WHERE reviewed_at < :before")
+    int deleteLogsBefore(long before);
+}
@@ -0,0 +1,184 @@
+package com.barnes.flashcards.database;
+
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Rewrites a large table in small transactions.
+ *
+ * <p> Room runs every migration in a single transaction, which holds the write lock until the whole
+ * migration is done. A migration that rewrites every flashcard of a large database would keep the
+ * app waiting for minutes, so it should only change the schema, and call schedule() for the slow
+ * part. The rows are then rewritten after the database has opened, a chunk of keys at a time, each
+ * chunk in its own write through the write queue so other writes can run in between. </p>
+ *
+ * <p> The last key of each chunk is saved in the same transaction as the chunk, so if the app is
+ * stopped the work starts again from that key the next time the database is opened. A chunk's
+ * statement must be safe to run twice on the same rows. </p>
+ */
+public class ChunkedMigration {
+    private static final String TAG = "ChunkedMigration";
+
+    // Room only checks the tables of its entities, so it ignores this one
+    private static final String PROGRESS_TABLE = "chunked_migration";
+
+    private final String name;
+    private final String table;
+    private final String keyColumn;
+    private final String chunkSql;
+    private final int chunkSize;
+
+    // True from when the database is opened with chunks left until the last chunk is committed
+    private volatile boolean isRunning = false;
+
+    /**
+     * Constructor for ChunkedMigration.
+     *
+     * @param name A name for the work that is unique among chunked migrations
+     * @param table The table whose keys are split into chunks
+     * @param keyColumn An indexed integer column of the table, usually its primary key
+     * @param chunkSql The statement that rewrites one chunk. It is given the last key of the
+     *                 previous chunk and the last key of this chunk as its two arguments, and should
+     *                 change the rows with keys in (first, second]
+     * @param chunkSize The number of keys in each chunk
+     */
+    public ChunkedMigration(String name, String table, String keyColumn, String chunkSql, int chunkSize) {
+        this.name = name;
+        this.table = table;
+        this.keyColumn = keyColumn;
+        this.chunkSql = chunkSql;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Getter for name.
+     *
+     * @return The name of the work
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records that the work needs to be done. Called from Migration.migrate().
+     *
+     * @param database The database being migrated
+     */
+    public void schedule(SupportSQLiteDatabase database) {
+        createProgressTable(database);
+        database.execSQL("INSERT OR REPLACE INTO `" + PROGRESS_TABLE + "` (`name`, `last_key`) " +
+                "VALUES (?, ?)", new Object[]{name, Long.MIN_VALUE});
+    }
+
+    /**
+     * Starts every scheduled chunked migration that hasn't finished. Called when the database is
+     * opened.
+     *
+     * @param openedDatabase The database that was just opened
+     * @param database The Room database the chunks are written to
+     * @param writeQueue The queue every chunk is written through
+     * @param migrations Every chunked migration the app knows about
+     */
+    public static void resumeAll(SupportSQLiteDatabase openedDatabase, RoomDatabase database,
+                                 WriteQueue writeQueue, ChunkedMigration... migrations) {
+        createProgressTable(openedDatabase);
+
+        for (ChunkedMigration migration : migrations) {
+            Long lastKey = migration.getLastKey(openedDatabase);
+            if (lastKey != null) {
+                migration.isRunning = true;
+                migration.runFrom(database, writeQueue, lastKey);
+            }
+        }
+    }
+
+    /**
+     * Runs every remaining chunk in the caller's transaction.
+     *
+     * <p> This holds the write lock for the whole table, so it is only for tests and benchmarks on
+     * small databases. </p>
+     * @param database The database to migrate
+     */
+    public void runToCompletion(SupportSQLiteDatabase database) {
+        Long lastKey = getLastKey(database);
+        while (lastKey != null)
+            lastKey = runChunk(database, lastKey);
+    }
+
+    /**
+     * Checks if the work has been scheduled and not finished.
+     *
+     * @param database The database to check
+     * @return Returns true if there are chunks left to run
+     */
+    public boolean isPending(SupportSQLiteDatabase database) {
+        createProgressTable(database);
+        return getLastKey(database) != null;
+    }
+
+    /**
+     * Checks if the work was resumed when the database was opened and hasn't finished yet. Unlike
+     * isPending(), this doesn't read the database, so it can be checked before every query that
+     * depends on the work being done.
+     *
+     * @return Returns true until the last chunk is committed
+     */
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    // Queue the next chunk once the last one has been committed
+    private CompletableFuture<Long> runFrom(RoomDatabase database, WriteQueue writeQueue, long lastKey) {
+        return writeQueue.submit(() -> runChunk(database.getOpenHelper().getWritableDatabase(), lastKey))
+                .whenComplete((nextKey, e) -> {
+                    if (e != null)
+                        // The saved key is still the last committed chunk, so this is tried again
+                        // the next time the database is opened
+                        Log.w(TAG, "Chunked migration " + name + " failed after key " + lastKey, e);
+                    else if (nextKey != null)
+                        runFrom(database, writeQueue, nextKey);
+                    else {
+                        isRunning = false;
+                        Log.i(TAG, "Chunked migration " + name + " finished");
+                    }
+                });
+    }
+
+    // Rewrite the chunk after lastKey and save its last key. Returns null once there are no keys left
+    private Long runChunk(SupportSQLiteDatabase database, long lastKey) {
+        Long chunkEnd;
+        try (Cursor cursor = database.query("SELECT MAX(`key`) FROM (SELECT `" + keyColumn + "` AS `key` " +
+                "FROM `" + table + "` WHERE `" + keyColumn + "` > ? ORDER BY `" + keyColumn + "` " +
+                "LIMIT " + chunkSize + ")", new Object[]{lastKey})) {
+            cursor.moveToFirst();
+            chunkEnd = cursor.isNull(0) ? null : cursor.getLong(0);
+        }
+
+        if (chunkEnd == null) {
+            database.execSQL("DELETE FROM `" + PROGRESS_TABLE + "` WHERE `name` = ?", new Object[]{name});
+            return null;
+        }
+
+        database.execSQL(chunkSql, new Object[]{lastKey, chunkEnd});
+        database.execSQL("UPDATE `" + PROGRESS_TABLE + "` SET `last_key` = ? WHERE `name` = ?",
+                new Object[]{chunkEnd, name});
+        return chunkEnd;
+    }
+
+    private Long getLastKey(SupportSQLiteDatabase database) {
+        try (Cursor cursor = database.query("SELECT `last_key` FROM `" + PROGRESS_TABLE + "` " +
+                "WHERE `name` = ?", new Object[]{name})) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : null;
+        }
+    }
+
+    private static void createProgressTable(SupportSQLiteDatabase database) {
+        database.execSQL("CREATE TABLE IF NOT EXISTS `" + PROGRESS_TABLE + "` (" +
+                "`name` TEXT PRIMARY KEY NOT NULL, `last_key` INTEGER NOT NULL)");
+    }
+}
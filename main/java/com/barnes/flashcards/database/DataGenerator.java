@@ -0,0 +1,343 @@
+package com.barnes.flashcards.database;
+
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import com.barnes.flashcards.model.CardSchedule;
+import com.barnes.flashcards.model.Flashcard;
+import com.barnes.flashcards.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Fills a database with generated decks, flashcards and review histories for load testing.
+ *
+ * <p> Everything is drawn from a random number generator with a fixed seed, so the same seed and
+ * sizes always write the same rows. Deck sizes vary, the fronts are short and the backs are longer,
+ * and most flashcards are still being learned. Every flashcard that isn't new gets a review log
+ * and a schedule that agree with each other, and the decks' guess totals add up to their logs. </p>
+ *
+ * <p> The rows are written with prepared statements, like SampleData, BATCH_SIZE flashcards to a
+ * transaction. The triggers fill in the deck counts and create the schedules as the flashcards are
+ * inserted. A generator is not thread safe, and each call to generate() starts from the seed
+ * again. </p>
+ */
+public class DataGenerator {
+    // The number of flashcards written in each transaction
+    private static final int BATCH_SIZE = 2000;
+
+    // The share of flashcards with each status, out of 100
+    private static final int LEARNED_PERCENT = 35;
+    private static final int ARCHIVED_PERCENT = 10;
+
+    // Reviews are spread over this many days before now
+    private static final int HISTORY_DAYS = 365;
+
+    private static final String[] SYLLABLES = {"ka", "to", "ri", "ne", "su", "mo", "la", "vi", "pe", "dan",
+            "ter", "ol", "is", "ech", "ram", "bu", "fo", "gil", "th", "en", "qua", "ix", "sor", "mel"};
+
+    /**
+     * Listens for the progress of a generate() call.
+     */
+    public interface ProgressListener {
+        /**
+         * Called after each batch is committed, on the generating thread.
+         *
+         * @param written The number of flashcards written so far
+         * @param cardCount The number of flashcards that will be written
+         */
+        void onProgress(long written, long cardCount);
+    }
+
+    // Writes one batch of rows in a transaction
+    private interface Batch {
+        void write(SupportSQLiteDatabase database);
+    }
+
+    // Runs each batch, and returns once it is committed
+    private interface BatchRunner {
+        void run(Batch batch) throws IOException;
+    }
+
+    private final long seed;
+    private Random random;
+
+    // The decks being written, and the review totals of each
+    private long[] deckIds;
+    private int[] deckEnds;
+    private long[] totalGuesses;
+    private long[] totalRight;
+    private long[] timeReviewed;
+
+    /**
+     * Constructor for DataGenerator.
+     *
+     * @param seed The seed for every random choice
+     */
+    public DataGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Writes the data directly to a database, in the calling thread.
+     *
+     * <p> This is for databases no one else is writing to, such as an in-memory database in a test or
+     * benchmark. The caller must not be in a transaction. </p>
+     * @param database The database to write to
+     * @param deckCount The number of decks to create
+     * @param cardCount The number of flashcards to create, spread over the decks
+     * @param listener Told after each batch is committed, or null
+     * @return Returns the number of flashcards written
+     */
+    public long generate(SupportSQLiteDatabase database, int deckCount, int cardCount, ProgressListener listener) {
+        try {
+            return generate(batch -> {
+                database.beginTransaction();
+                try {
+                    batch.write(database);
+                    database.setTransactionSuccessful();
+                } finally {
+                    database.endTransaction();
+                }
+            }, deckCount, cardCount, listener);
+        } catch (IOException e) {
+            // Only the write queue's batches throw it
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes the data through the write queue.
+     *
+     * <p> Each batch is a single write, and the next batch is only made once the last one is
+     * committed, so other writes can run between them and only one batch is held in memory. Must be
+     * called in a background thread. </p>
+     * @param writeQueue The queue to write with
+     * @param database The database the queue writes to
+     * @param deckCount The number of decks to create
+     * @param cardCount The number of flashcards to create, spread over the decks
+     * @param listener Told after each batch is committed, or null
+     * @return Returns the number of flashcards written
+     * @throws IOException If a batch failed, or the thread was interrupted
+     */
+    public long generate(WriteQueue writeQueue, RoomDatabase database, int deckCount, int cardCount,
+                         ProgressListener listener) throws IOException {
+        return generate(batch -> {
+            if (Thread.currentThread().isInterrupted())
+                throw new InterruptedIOException("Generating was interrupted");
+
+            try {
+                writeQueue.execute(() -> batch.write(database.getOpenHelper().getWritableDatabase())).join();
+            } catch (CompletionException e) {
+                throw new IOException("Could not write generated data", e.getCause());
+            }
+        }, deckCount, cardCount, listener);
+    }
+
+    private long generate(BatchRunner runner, int deckCount, int cardCount, ProgressListener listener)
+            throws IOException {
+        deckCount = Math.max(1, deckCount);
+        cardCount = Math.max(0, cardCount);
+        random = new Random(seed);
+        long now = System.currentTimeMillis();
+
+        deckIds = new long[deckCount];
+        deckEnds = chooseDeckEnds(deckCount, cardCount);
+        totalGuesses = new long[deckCount];
+        totalRight = new long[deckCount];
+        timeReviewed = new long[deckCount];
+
+        runner.run(this::writeDecks);
+
+        for (int start = 0; start < cardCount; start += BATCH_SIZE) {
+            int batchStart = start;
+            int batchEnd = Math.min(cardCount, start + BATCH_SIZE);
+            runner.run(database -> writeFlashcards(database, batchStart, batchEnd, now));
+
+            if (listener != null)
+                listener.onProgress(batchEnd, cardCount);
+        }
+
+        runner.run(this::writeDeckTotals);
+        return cardCount;
+    }
+
+    // Decide where each deck's flashcards end. Deck sizes are log-normal, so a few decks are much
+    // larger than the rest, as in real collections
+    private int[] chooseDeckEnds(int deckCount, int cardCount) {
+        double[] weights = new double[deckCount];
+        double total = 0;
+        for (int i = 0; i < deckCount; i++) {
+            weights[i] = Math.exp(random.nextGaussian());
+            total += weights[i];
+        }
+
+        int[] ends = new int[deckCount];
+        double sum = 0;
+        for (int i = 0; i < deckCount; i++) {
+            sum += weights[i];
+            ends[i] = (int) Math.round(cardCount * sum / total);
+        }
+        ends[deckCount - 1] = cardCount;
+        return ends;
+    }
+
+    private void writeDecks(SupportSQLiteDatabase database) {
+        SupportSQLiteStatement insertDeck = database.compileStatement("INSERT INTO `deck_table` " +
+                "(`size`, `still_learning_count`, `learned_count`, `archived_count`, `total_guesses`, " +
+                "`total_right`, `title`, `time_reviewed`) VALUES (0, 0, 0, 0, 0, 0, ?, NULL)");
+
+        for (int deck = 0; deck < deckIds.length; deck++) {
+            insertDeck.bindString(1, capitalize(words(2, 0.5, 4)) + " " + (deck + 1));
+            deckIds[deck] = insertDeck.executeInsert();
+        }
+    }
+
+    private void writeFlashcards(SupportSQLiteDatabase database, int start, int end, long now) {
+        SupportSQLiteStatement insertFlashcard = database.compileStatement("INSERT INTO `flashcard_table` " +
+                "(`front`, `back`, `status`, `deck_id`) VALUES (?, ?, ?, ?)");
+        SupportSQLiteStatement insertLog = database.compileStatement("INSERT INTO `review_log` " +
+                "(`card_id`, `deck_id`, `reviewed_at`, `correct`, `chosen_answer`, `response_millis`) " +
+                "VALUES (?, ?, ?, ?, ?, ?)");
+        SupportSQLiteStatement updateSchedule = database.compileStatement("UPDATE `card_schedule` SET " +
+                "`due` = ?, `last_review` = ?, `stability` = ?, `difficulty` = ?, `ease` = ?, " +
+                "`interval_days` = ?, `reps` = ?, `lapses` = ? WHERE `card_id` = ?");
+
+        int deck = 0;
+        for (int card = start; card < end; card++) {
+            while (card >= deckEnds[deck])
+                deck++;
+            long deckId = deckIds[deck];
+
+            String back = capitalize(words(6, 0.8, 60));
+            Flashcard.Status status = chooseStatus();
+
+            insertFlashcard.bindString(1, capitalize(words(2, 0.6, 12)));
+            insertFlashcard.bindString(2, back);
+            insertFlashcard.bindString(3, DatabaseConverter.fromStatus(status));
+            insertFlashcard.bindLong(4, deckId);
+            long cardId = insertFlashcard.executeInsert();
+
+            int reps = chooseReps(status);
+            if (reps == 0)
+                continue;
+
+            // Spread the reviews from a first review in the history up to now, oldest first
+            long first = now - (long) (random.nextDouble() * HISTORY_DAYS * Scheduler.DAY_MILLIS);
+            long[] times = new long[reps];
+            for (int i = 0; i < reps; i++)
+                times[i] = first + (long) (random.nextDouble() * (now - first));
+            Arrays.sort(times);
+
+            double correctChance = status == Flashcard.Status.STILL_LEARNING ? 0.6 : 0.9;
+            int right = 0;
+            int lapses = 0;
+            boolean wasRight = false;
+            for (long time : times) {
+                boolean isCorrect = random.nextDouble() < correctChance;
+                if (isCorrect)
+                    right++;
+                else if (wasRight)
+                    lapses++;
+                wasRight = isCorrect;
+
+                insertLog.bindLong(1, cardId);
+                insertLog.bindLong(2, deckId);
+                insertLog.bindLong(3, time);
+                insertLog.bindLong(4, isCorrect ? 1 : 0);
+                insertLog.bindString(5, isCorrect ? back : capitalize(words(6, 0.8, 60)));
+                insertLog.bindLong(6, Math.min(60_000, Math.max(500,
+                        (long) (3500 * Math.exp(0.6 * random.nextGaussian())))));
+                insertLog.executeInsert();
+            }
+
+            // The interval grows with how well the flashcard is known
+            double intervalDays;
+            if (status == Flashcard.Status.STILL_LEARNING)
+                intervalDays = random.nextDouble();
+            else if (status == Flashcard.Status.LEARNED)
+                intervalDays = Math.min(60, Math.exp(2 + random.nextGaussian()));
+            else
+                intervalDays = 30 + random.nextDouble() * (HISTORY_DAYS - 30);
+
+            long lastReview = times[reps - 1];
+            updateSchedule.bindLong(1, lastReview + (long) (intervalDays * Scheduler.DAY_MILLIS));
+            updateSchedule.bindLong(2, lastReview);
+            updateSchedule.bindDouble(3, intervalDays);
+            updateSchedule.bindDouble(4, 1 + 9.0 * (reps - right) / reps);
+            updateSchedule.bindDouble(5, Math.max(1.3, CardSchedule.INITIAL_EASE - 0.15 * lapses));
+            updateSchedule.bindDouble(6, intervalDays);
+            updateSchedule.bindLong(7, reps);
+            updateSchedule.bindLong(8, lapses);
+            updateSchedule.bindLong(9, cardId);
+            updateSchedule.executeUpdateDelete();
+
+            totalGuesses[deck] += reps;
+            totalRight[deck] += right;
+            timeReviewed[deck] = Math.max(timeReviewed[deck], lastReview);
+        }
+    }
+
+    private void writeDeckTotals(SupportSQLiteDatabase database) {
+        SupportSQLiteStatement updateDeck = database.compileStatement("UPDATE `deck_table` SET " +
+                "`total_guesses` = ?, `total_right` = ?, `time_reviewed` = ? WHERE `deck_id` = ?");
+
+        for (int deck = 0; deck < deckIds.length; deck++) {
+            if (totalGuesses[deck] == 0)
+                continue;
+
+            updateDeck.bindLong(1, totalGuesses[deck]);
+            updateDeck.bindLong(2, totalRight[deck]);
+            updateDeck.bindLong(3, timeReviewed[deck]);
+            updateDeck.bindLong(4, deckIds[deck]);
+            updateDeck.executeUpdateDelete();
+        }
+    }
+
+    private Flashcard.Status chooseStatus() {
+        int percent = random.nextInt(100);
+        if (percent < ARCHIVED_PERCENT)
+            return Flashcard.Status.ARCHIVED;
+        if (percent < ARCHIVED_PERCENT + LEARNED_PERCENT)
+            return Flashcard.Status.LEARNED;
+        return Flashcard.Status.STILL_LEARNING;
+    }
+
+    // Flashcards still being learned are often new. Learned and archived ones have been seen more
+    private int chooseReps(Flashcard.Status status) {
+        switch (status) {
+            case LEARNED:
+                return 3 + random.nextInt(10);
+            case ARCHIVED:
+                return 5 + random.nextInt(16);
+            default:
+                return random.nextInt(3) == 0 ? 0 : 1 + random.nextInt(4);
+        }
+    }
+
+    // Makes a phrase of made up words. The number of words is log-normal around median, up to max
+    private String words(double median, double sigma, int max) {
+        int count = (int) Math.round(median * Math.exp(sigma * random.nextGaussian()));
+        count = Math.max(1, Math.min(max, count));
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0)
+                builder.append(' ');
+
+            int syllables = 1 + random.nextInt(3);
+            for (int j = 0; j < syllables; j++)
+                builder.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return builder.toString();
+    }
+
+    private static String capitalize(String text) {
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+}
@@ -4,13 +4,19 @@ import androidx.room.TypeConverter;
 
 import com.barnes.flashcards.model.Flashcard;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 
 /**
  * Converts data types for the SQLite database.
  *
  * <p> SQLite can only store null, integer, real, text, and blob in the database. This class is used
  * to convert between complex objects and these data types.</p>
+ *
+ * <p> Times are stored as INTEGER epoch milliseconds, so time columns can be compared, sorted and
+ * range scanned by SQLite. A LocalDateTime is converted using the device's time zone. </p>
  */
 public class DatabaseConverter {
     @TypeConverter
@@ -24,12 +30,26 @@ public class DatabaseConverter {
     }
 
     @TypeConverter
-    public static String dateTimeToString(LocalDateTime date) {
-        return date == null ? null : date.toString();
+    public static Long dateTimeToMillis(LocalDateTime date) {
+        return date == null ? null : date.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 
     @TypeConverter
-    public static LocalDateTime stringToDateTime(String dateString) {
-        return dateString == null ? null : LocalDateTime.parse(dateString);
+    public static LocalDateTime millisToDateTime(Long millis) {
+        return millis == null ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    // Reads a time stored by older versions of the database, which kept it as an ISO string.
+    // Returns null if the string is null or can't be parsed
+    public static Long isoStringToMillis(String dateString) {
+        if (dateString == null)
+            return null;
+
+        try {
+            return dateTimeToMillis(LocalDateTime.parse(dateString));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
     }
 }
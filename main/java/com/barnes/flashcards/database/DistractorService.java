@@ -0,0 +1,250 @@
+package com.barnes.flashcards.database;
+
+import com.barnes.flashcards.dao.FlashcardDao;
+import com.barnes.flashcards.model.Flashcard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chooses the wrong answers for multiple choice quizzes.
+ *
+ * <p> This class loads a pool of candidate flashcards for a deck and keeps it in memory until the
+ * deck's flashcards change. The pool is sorted by the front of the flashcard, so the neighbours of a
+ * flashcard in the pool are the candidates with the most similar answers. Distractors for a whole
+ * review session are chosen from the pool without going back to the database. </p>
+ *
+ * <p> The pool is not the whole deck. It holds at most POOL_SIZE non-archived flashcards, read as
+ * POOL_RUNS runs of consecutive card IDs from random places in the deck, so a large deck is sampled
+ * through its (deck_id, cardId) index instead of being sorted. The neighbours of a flashcard are
+ * therefore the nearest fronts within that sample, not within the deck: in a deck much larger than
+ * the pool, a closer front that wasn't sampled is never chosen. The sample is taken again whenever
+ * the deck changes. </p>
+ *
+ * <p> A pool is only cached if no invalidation happened while it was being read. Each invalidation
+ * increases a version, and a pool read under an older version is used once but not kept, like the
+ * rows of IdCache. </p>
+ */
+public class DistractorService {
+    // The most flashcards that will be kept in memory for a single deck
+    private static final int POOL_SIZE = 500;
+
+    // The number of runs of consecutive flashcards the pool is read as
+    private static final int POOL_RUNS = 10;
+
+    // How many neighbours on each side of a flashcard are scored when choosing distractors
+    private static final int NEIGHBOUR_WINDOW = 8;
+
+    // Added to the score of a candidate that does not have the same status as the flashcard
+    private static final double STATUS_PENALTY = 0.25;
+
+    // Maximum random noise added to scores, so the same distractors are not always chosen
+    private static final double JITTER = 0.15;
+
+    private final FlashcardDao flashcardDao;
+    private final Map<Integer, NeighbourTable> deckTables = new ConcurrentHashMap<>();
+    private final Random random = new Random();
+
+    // Increased by every invalidation, so a pool read before one isn't cached. Guarded by this
+    private long version = 0;
+
+    /**
+     * Constructor for DistractorService.
+     *
+     * @param flashcardDao The DAO used to load the candidate pools
+     */
+    public DistractorService(FlashcardDao flashcardDao) {
+        this.flashcardDao = flashcardDao;
+    }
+
+    /**
+     * Chooses distractors for every flashcard in a review session.
+     *
+     * <p> This method returns a map from card ID to a list of up to count flashcards from the same
+     * deck whose fronts can be shown as wrong answers. Plausible distractors, those with a similar
+     * length, a shared prefix, or the same status, are preferred. A list is shorter than count if the
+     * deck does not have enough other flashcards. It should be run in a background thread. </p>
+     * @param deckId The ID of the deck the flashcards belong to
+     * @param flashcards The flashcards being reviewed
+     * @param count The number of distractors for each flashcard
+     * @return Returns a map from card ID to that flashcard's distractors
+     */
+    public Map<Integer, List<Flashcard>> chooseDistractors(int deckId, List<Flashcard> flashcards, int count) {
+        NeighbourTable table = getTable(deckId);
+        Map<Integer, List<Flashcard>> distractorMap = new HashMap<>();
+
+        for (Flashcard flashcard : flashcards) {
+            if (!distractorMap.containsKey(flashcard.getCardId()))
+                distractorMap.put(flashcard.getCardId(), table.choose(flashcard, count));
+        }
+
+        return distractorMap;
+    }
+
+    /**
+     * Removes the cached pool for a deck. Called whenever a flashcard in the deck is changed.
+     *
+     * @param deckId The ID of the deck that changed
+     */
+    public synchronized void invalidate(int deckId) {
+        version++;
+        deckTables.remove(deckId);
+    }
+
+    /**
+     * Removes the cached pools for all decks.
+     */
+    public synchronized void invalidateAll() {
+        version++;
+        deckTables.clear();
+    }
+
+    // Get the neighbour table for a deck, loading it from the database if it isn't cached. A table
+    // read while the flashcards changed is returned but not cached
+    private NeighbourTable getTable(int deckId) {
+        NeighbourTable table = deckTables.get(deckId);
+        if (table != null)
+            return table;
+
+        long readVersion;
+        synchronized (this) {
+            readVersion = version;
+        }
+
+        table = new NeighbourTable(loadPool(deckId));
+
+        synchronized (this) {
+            if (readVersion == version)
+                deckTables.put(deckId, table);
+        }
+        return table;
+    }
+
+    // Read up to POOL_SIZE non-archived flashcards as runs of consecutive IDs from random start IDs,
+    // wrapping around to the lowest ID when a run reaches the end of the deck
+    private List<Flashcard> loadPool(int deckId) {
+        Integer minId = flashcardDao.getMinCardId(deckId);
+        Integer maxId = flashcardDao.getMaxCardId(deckId);
+        if (minId == null || maxId == null)
+            return new ArrayList<>();
+
+        int runSize = POOL_SIZE / POOL_RUNS;
+        Map<Integer, Flashcard> pool = new LinkedHashMap<>();
+
+        for (int run = 0; run < POOL_RUNS; run++) {
+            int startId = minId + random.nextInt(maxId - minId + 1);
+            List<Flashcard> flashcards = new ArrayList<>(flashcardDao.getFlashcardRun(deckId, startId, maxId, runSize));
+            if (flashcards.size() < runSize && startId > minId)
+                flashcards.addAll(flashcardDao.getFlashcardRun(deckId, minId, startId - 1, runSize - flashcards.size()));
+
+            for (Flashcard flashcard : flashcards)
+                pool.putIfAbsent(flashcard.getCardId(), flashcard);
+
+            // A short run went all the way around the deck, so every flashcard has been read
+            if (flashcards.size() < runSize)
+                break;
+        }
+
+        return new ArrayList<>(pool.values());
+    }
+
+    /**
+     * The candidate pool of a single deck, sorted by front.
+     */
+    private class NeighbourTable {
+        private final Flashcard[] pool;
+        private final String[] keys;
+
+        NeighbourTable(List<Flashcard> candidates) {
+            pool = candidates.toArray(new Flashcard[0]);
+            Arrays.sort(pool, Comparator.comparing(DistractorService::keyOf));
+
+            keys = new String[pool.length];
+            for (int i = 0; i < pool.length; i++)
+                keys[i] = keyOf(pool[i]);
+        }
+
+        // Choose the count most plausible distractors for the flashcard
+        List<Flashcard> choose(Flashcard flashcard, int count) {
+            String key = keyOf(flashcard);
+
+            // Find where the flashcard's front would be in the pool
+            int position = Arrays.binarySearch(keys, key);
+            if (position < 0)
+                position = -position - 1;
+
+            List<Flashcard> candidates = new ArrayList<>();
+            List<Double> scores = new ArrayList<>();
+            int window = Math.max(NEIGHBOUR_WINDOW, count);
+
+            // Only the neighbours are scored, unless there are too few of them to choose from
+            while (true) {
+                int start = Math.max(0, position - window);
+                int end = Math.min(pool.length, position + window + 1);
+
+                for (int i = start; i < end; i++) {
+                    Flashcard candidate = pool[i];
+
+                    // A distractor must not be the flashcard or have the same answer
+                    if (candidate.equals(flashcard) || keys[i].equals(key))
+                        continue;
+
+                    candidates.add(candidate);
+                    scores.add(score(flashcard, key, candidate, keys[i]));
+                }
+
+                if (candidates.size() >= count || (start == 0 && end == pool.length))
+                    break;
+
+                candidates.clear();
+                scores.clear();
+                window = pool.length;
+            }
+
+            // Keep the count lowest scoring candidates
+            List<Flashcard> distractors = new ArrayList<>();
+            while (distractors.size() < count && !candidates.isEmpty()) {
+                int best = 0;
+                for (int i = 1; i < scores.size(); i++) {
+                    if (scores.get(i) < scores.get(best))
+                        best = i;
+                }
+
+                distractors.add(candidates.remove(best));
+                scores.remove(best);
+            }
+
+            return distractors;
+        }
+
+        // Lower scores are more plausible distractors
+        private double score(Flashcard flashcard, String key, Flashcard candidate, String candidateKey) {
+            int longest = Math.max(1, Math.max(key.length(), candidateKey.length()));
+            double lengthDifference = (double) Math.abs(key.length() - candidateKey.length()) / longest;
+
+            int prefix = 0;
+            int shortest = Math.min(key.length(), candidateKey.length());
+            while (prefix < shortest && key.charAt(prefix) == candidateKey.charAt(prefix))
+                prefix++;
+
+            double score = lengthDifference + 1.0 - (double) prefix / longest;
+            if (flashcard.getStatus() != candidate.getStatus())
+                score += STATUS_PENALTY;
+
+            return score + random.nextDouble() * JITTER;
+        }
+    }
+
+    // Distractors are compared by their lowercase front, which is what the user sees as the answer
+    private static String keyOf(Flashcard flashcard) {
+        return flashcard.getFront() == null ? "" : flashcard.getFront().toLowerCase(Locale.ROOT);
+    }
+}
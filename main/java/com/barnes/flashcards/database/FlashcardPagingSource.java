@@ -0,0 +1,142 @@
+package com.barnes.flashcards.database;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.ListenableFuturePagingSource;
+import androidx.paging.PagingState;
+import androidx.room.InvalidationTracker;
+
+import com.barnes.flashcards.dao.FlashcardDao;
+import com.barnes.flashcards.model.Flashcard;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import kotlin.Unit;
+
+/**
+ * Paging source for the flashcards in a deck.
+ *
+ * <p> This class loads the flashcards of a deck one page at a time, ordered by card ID. Pages are
+ * found with keyset pagination: the key of a page is a card ID, and a page is the flashcards just
+ * after or just before that ID. Every page is an index range scan no matter how deep into the deck
+ * it is, unlike OFFSET. The source invalidates itself when the flashcard table changes, so the
+ * list is reloaded around the user's scroll position. </p>
+ */
+public class FlashcardPagingSource extends ListenableFuturePagingSource<Integer, Flashcard> {
+    private final FlashcardsRoomDatabase database;
+    private final FlashcardDao flashcardDao;
+    private final int deckId;
+    private final InvalidationTracker.Observer observer;
+
+    /**
+     * Constructor for FlashcardPagingSource.
+     *
+     * @param database The database to load from
+     * @param deckId The ID of the deck whose flashcards are loaded
+     */
+    public FlashcardPagingSource(FlashcardsRoomDatabase database, int deckId) {
+        this.database = database;
+        this.flashcardDao = database.flashcardDao();
+        this.deckId = deckId;
+
+        observer = new InvalidationTracker.Observer("flashcard_table") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidate();
+            }
+        };
+        database.getInvalidationTracker().addObserver(observer);
+
+        registerInvalidatedCallback(() -> {
+            database.getInvalidationTracker().removeObserver(observer);
+            return Unit.INSTANCE;
+        });
+    }
+
+    /**
+     * Loads a page of flashcards on the database's query executor.
+     *
+     * @param params The key and size of the page to load, and whether it is before or after the key
+     * @return Returns a future holding the loaded page
+     */
+    @NonNull
+    @Override
+    public ListenableFuture<LoadResult<Integer, Flashcard>> loadFuture(@NonNull LoadParams<Integer> params) {
+        ListenableFutureTask<LoadResult<Integer, Flashcard>> task = ListenableFutureTask.create(() -> {
+            try {
+                return load(params);
+            } catch (RuntimeException e) {
+                return new LoadResult.Error<>(e);
+            }
+        });
+
+        database.getQueryExecutor().execute(task);
+        return task;
+    }
+
+    // Load a page. The prevKey of a page is its first card ID and the nextKey is its last card ID.
+    // The reads are timed by QueryStats, like the repository's
+    private LoadResult<Integer, Flashcard> load(LoadParams<Integer> params) {
+        Integer key = params.getKey();
+        int loadSize = params.getLoadSize();
+        List<Flashcard> flashcards;
+        boolean hasBefore;
+        boolean hasAfter;
+
+        if (params instanceof LoadParams.Prepend) {
+            flashcards = QueryStats.time("getFlashcardsBefore",
+                    () -> flashcardDao.getFlashcardsBefore(deckId, key, loadSize));
+            Collections.reverse(flashcards);
+
+            hasBefore = flashcards.size() == loadSize;
+            hasAfter = true;
+        } else if (params instanceof LoadParams.Append) {
+            flashcards = QueryStats.time("getFlashcardsAfter",
+                    () -> flashcardDao.getFlashcardsAfter(deckId, key, loadSize));
+
+            hasBefore = true;
+            hasAfter = flashcards.size() == loadSize;
+        } else {
+            // A refresh starts at the key's flashcard, or at the start of the deck if there is no key
+            int afterId = key == null ? 0 : key - 1;
+            flashcards = QueryStats.time("getFlashcardsAfter",
+                    () -> flashcardDao.getFlashcardsAfter(deckId, afterId, loadSize));
+
+            hasBefore = key != null;
+            hasAfter = flashcards.size() == loadSize;
+        }
+
+        if (flashcards.isEmpty())
+            return new LoadResult.Page<>(flashcards, null, null);
+
+        Integer prevKey = hasBefore ? flashcards.get(0).getCardId() : null;
+        Integer nextKey = hasAfter ? flashcards.get(flashcards.size() - 1).getCardId() : null;
+        return new LoadResult.Page<>(flashcards, prevKey, nextKey);
+    }
+
+    /**
+     * Gets the key to reload from after the source is invalidated.
+     *
+     * <p> This method returns the first card ID of the page closest to the user's scroll position,
+     * so that the reloaded list starts where the user was looking. </p>
+     * @param state The pages loaded so far and the scroll position
+     * @return Returns the key to refresh from, or null to start from the beginning of the deck
+     */
+    @Nullable
+    @Override
+    public Integer getRefreshKey(@NonNull PagingState<Integer, Flashcard> state) {
+        Integer anchorPosition = state.getAnchorPosition();
+        if (anchorPosition == null)
+            return null;
+
+        LoadResult.Page<Integer, Flashcard> page = state.closestPageToPosition(anchorPosition);
+        if (page == null || page.getData().isEmpty())
+            return null;
+
+        return page.getData().get(0).getCardId();
+    }
+}
@@ -1,96 +1,574 @@
 package com.barnes.flashcards.database;
 
 import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
 
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.room.InvalidationTracker;
+
+import com.barnes.flashcards.dao.CardScheduleDao;
 import com.barnes.flashcards.dao.DeckDao;
 import com.barnes.flashcards.dao.FlashcardDao;
+import com.barnes.flashcards.dao.ReviewLogDao;
+import com.barnes.flashcards.io.AnkiImporter;
+import com.barnes.flashcards.io.DeckExporter;
+import com.barnes.flashcards.io.DelimitedImporter;
+import com.barnes.flashcards.model.CardSchedule;
 import com.barnes.flashcards.model.Deck;
+import com.barnes.flashcards.model.DeckCounts;
 import com.barnes.flashcards.model.Flashcard;
+import com.barnes.flashcards.model.FlashcardMatch;
+import com.barnes.flashcards.model.ReviewLog;
+import com.barnes.flashcards.model.ReviewSession;
+import com.barnes.flashcards.scheduler.FsrsScheduler;
+import com.barnes.flashcards.scheduler.Scheduler;
+import com.barnes.flashcards.util.MetricsRegistry;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Class that acts as a repository between the database and the View Model.
  */
 public class FlashcardsRepository {
 
+    private FlashcardsRoomDatabase database;
     private DeckDao deckDao;
     private FlashcardDao flashcardDao;
+    private ReviewLogDao reviewLogDao;
+    private CardScheduleDao cardScheduleDao;
+    private WriteQueue writeQueue;
+
+    // The most full-text matches that are ranked for a single search
+    public static final int SEARCH_LIMIT = 500;
+
+    // Shared by every repository so the cached distractor pools survive between screens
+    private static volatile DistractorService distractorService;
+
+    // Shared by every repository so review log rows are batched across sessions
+    private static volatile ReviewLogAppender reviewLogAppender;
+
+    // Chooses when reviewed flashcards are next due
+    private static volatile Scheduler scheduler = new FsrsScheduler();
+
+    // Rows read by ID, also shared by every repository. They are removed when the repository writes
+    // them, cleared when their table is changed by any other write, such as a chunked migration or
+    // a DAO used directly, and trimmed when the system is low on memory
+    private static final int FLASHCARD_CACHE_SIZE = 256;
+    private static final int DECK_CACHE_SIZE = 32;
+    private static final IdCache<Flashcard> flashcardCache = new IdCache<>(FLASHCARD_CACHE_SIZE);
+    private static final IdCache<Deck> deckCache = new IdCache<>(DECK_CACHE_SIZE);
+
+    // Imports started from a screen run on their own thread, one at a time, instead of on the
+    // screen's TaskDispatcher tasks, so rotating or leaving the screen doesn't stop them halfway
+    private static final ExecutorService importExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "flashcards-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Observable queries, also shared by every repository. A screen that is opened again gets the
+    // last result straight away, and the query is only run again if its table has changed since
+    private static final int MAX_OBSERVED_QUERIES = 16;
+    private static LiveData<List<Deck>> observedAllDecks;
+    private static final Map<Integer, LiveData<Deck>> observedDecks = newObservedMap();
+    private static final Map<Integer, LiveData<List<Flashcard>>> observedDeckFlashcards = newObservedMap();
 
     public FlashcardsRepository(Application application) {
         // Get an instance of the database
-        FlashcardsRoomDatabase database = FlashcardsRoomDatabase.getDatabase(application);
+        database = FlashcardsRoomDatabase.getDatabase(application);
 
         deckDao = database.deckDao();
         flashcardDao = database.flashcardDao();
+        reviewLogDao = database.reviewLogDao();
+        cardScheduleDao = database.cardScheduleDao();
+        writeQueue = FlashcardsRoomDatabase.getWriteQueue();
+
+        if (distractorService == null) {
+            synchronized (FlashcardsRepository.class) {
+                if (distractorService == null) {
+                    distractorService = new DistractorService(flashcardDao);
+                    reviewLogAppender = new ReviewLogAppender(writeQueue, reviewLogDao);
+                    application.registerComponentCallbacks(trimCallbacks);
+                    database.getInvalidationTracker().addObserver(cacheInvalidator);
+                    registerGauges(deckDao, reviewLogDao);
+                }
+            }
+        }
     }
 
-    public void insert(Deck deck) {
-        FlashcardsRoomDatabase.databaseWriteExecutor.execute(() -> {
-            deckDao.insert(deck);
-        });
+    // Every write is run by the database's single writer. The returned futures complete once the
+    // write has been committed, and the cached rows and distractor pools are cleared after the commit.
+    // Adding, moving or deleting a flashcard changes its deck's counts, so the deck is cleared too
+    public CompletableFuture<Long> insert(Deck deck) {
+        return writeQueue.submit(() -> deckDao.insert(deck));
     }
 
-    public void insert(Flashcard flashcard) {
-        FlashcardsRoomDatabase.databaseWriteExecutor.execute(() -> {
-            flashcardDao.insert(flashcard);
-        });
+    public CompletableFuture<Long> insert(Flashcard flashcard) {
+        return writeQueue.submit(() -> flashcardDao.insert(flashcard))
+                .whenComplete((cardId, e) -> {
+                    deckCache.remove(flashcard.getDeckId());
+                    distractorService.invalidate(flashcard.getDeckId());
+                });
     }
 
-    public void update(Deck deck) {
-        FlashcardsRoomDatabase.databaseWriteExecutor.execute(() -> {
-            deckDao.update(deck);
-        });
+    public CompletableFuture<Void> update(Deck deck) {
+        return writeQueue.execute(() -> deckDao.update(deck))
+                .whenComplete((result, e) -> deckCache.remove(deck.getDeckId()));
     }
 
-    public void update(Flashcard flashcard) {
-        FlashcardsRoomDatabase.databaseWriteExecutor.execute(() -> {
-            flashcardDao.update(flashcard);
-        });
+    // Add a review session's answers to the deck's guess totals
+    // timeReviewed is the time of the last answer, in epoch milliseconds
+    public CompletableFuture<Void> addGuesses(int deckId, int guesses, int right, long timeReviewed) {
+        return writeQueue.execute(() -> deckDao.addGuesses(deckId, guesses, right, timeReviewed))
+                .whenComplete((result, e) -> deckCache.remove(deckId));
     }
 
-    public void delete(Deck deck) {
-        FlashcardsRoomDatabase.databaseWriteExecutor.execute(() -> {
-            deckDao.delete(deck);
-        });
+    // Add a review session's answers to the deck's guess totals and reschedule the flashcards that
+    // were answered, all in one transaction. Each flashcard is scheduled from the time it was
+    // answered, and the deck is reviewed at lastAnswered. Flashcards deleted during the session are
+    // skipped, and a flashcard a migration hasn't given a schedule yet gets a new one
+    public CompletableFuture<Void> addReviews(int deckId, int guesses, int right,
+                                              Map<Integer, ReviewAccumulator.Answer> answers, long lastAnswered) {
+        Scheduler reviewScheduler = scheduler;
+
+        return writeQueue.execute(() -> database.runInTransaction(() -> {
+            deckDao.addGuesses(deckId, guesses, right, lastAnswered);
+
+            for (Map.Entry<Integer, ReviewAccumulator.Answer> entry : answers.entrySet()) {
+                CardSchedule schedule = cardScheduleDao.getSchedule(entry.getKey());
+                if (schedule == null) {
+                    Flashcard flashcard = flashcardDao.getFlashcardFromId(entry.getKey());
+                    if (flashcard == null)
+                        continue;
+
+                    schedule = new CardSchedule();
+                    schedule.setCardId(flashcard.getCardId());
+                    schedule.setDeckId(flashcard.getDeckId());
+                }
+
+                ReviewAccumulator.Answer answer = entry.getValue();
+                reviewScheduler.review(schedule, answer.getRating(), answer.getAnsweredAt());
+                cardScheduleDao.upsert(schedule);
+            }
+        })).whenComplete((result, e) -> deckCache.remove(deckId));
+    }
+
+    // Choose the scheduling algorithm, e.g. Sm2Scheduler instead of the default FsrsScheduler
+    public static void setScheduler(Scheduler scheduler) {
+        FlashcardsRepository.scheduler = scheduler;
+    }
+
+    public static Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    // Add an answer to the review log. It is inserted with the rest of its batch
+    public void appendReviewLog(ReviewLog log) {
+        reviewLogAppender.append(log);
+    }
+
+    // Insert every review log row that is still buffered
+    public CompletableFuture<Void> flushReviewLog() {
+        return reviewLogAppender.flush();
     }
 
-    public void delete(Flashcard flashcard) {
-        FlashcardsRoomDatabase.databaseWriteExecutor.execute(() -> {
-            flashcardDao.delete(flashcard);
+    // Import the flashcards in a CSV or TSV file into a deck, a batch at a time. Must be called in a
+    // background thread. The deck and its distractors are cleared once, when the import is done
+    public DelimitedImporter.Result importFlashcards(int deckId, InputStream input, DelimitedImporter.Format format,
+                                                     DelimitedImporter.ProgressListener listener) throws IOException {
+        try {
+            return new DelimitedImporter(writeQueue, flashcardDao).importInto(deckId, input, format, listener);
+        } finally {
+            deckCache.remove(deckId);
+            distractorService.invalidate(deckId);
+        }
+    }
+
+    // Run an import on the import thread. The future completes with the import's result, or with
+    // the exception it threw
+    public <T> CompletableFuture<T> runImport(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        importExecutor.execute(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
         });
+        return future;
+    }
+
+    // Import the notes of an Anki package as flashcards, creating decks as needed. Must be called in
+    // a background thread. tempDirectory is where the package's collection is extracted to
+    public AnkiImporter.Result importAnkiPackage(InputStream input, File tempDirectory,
+                                                 AnkiImporter.ProgressListener listener) throws IOException {
+        try {
+            return new AnkiImporter(writeQueue, deckDao, flashcardDao, tempDirectory)
+                    .importPackage(input, listener);
+        } finally {
+            deckCache.clear();
+            distractorService.invalidateAll();
+        }
+    }
+
+    // Fill the database with generated decks, flashcards and review histories, for load testing.
+    // Must be called in a background thread. Returns the number of flashcards written
+    public long generateData(int deckCount, int cardCount, long seed, DataGenerator.ProgressListener listener)
+            throws IOException {
+        try {
+            return new DataGenerator(seed).generate(writeQueue, database, deckCount, cardCount, listener);
+        } finally {
+            deckCache.clear();
+            distractorService.invalidateAll();
+        }
+    }
+
+    // Write decks and their flashcards to a stream in constant memory. Must be called in a background
+    // thread. Returns the number of flashcards written
+    public long exportDecks(List<Deck> decks, OutputStream output, DeckExporter.Format format,
+                            DeckExporter.ProgressListener listener) throws IOException {
+        return new DeckExporter(flashcardDao).export(decks, output, format, listener);
+    }
+
+    public CompletableFuture<Void> update(Flashcard flashcard) {
+        // The flashcard may have moved from another deck
+        return writeQueue.execute(() -> flashcardDao.update(flashcard))
+                .whenComplete((result, e) -> {
+                    flashcardCache.remove(flashcard.getCardId());
+                    deckCache.clear();
+                    distractorService.invalidateAll();
+                });
+    }
+
+    public CompletableFuture<Void> delete(Deck deck) {
+        // The deck's flashcards are deleted with it
+        return writeQueue.execute(() -> deckDao.delete(deck))
+                .whenComplete((result, e) -> {
+                    deckCache.remove(deck.getDeckId());
+                    flashcardCache.clear();
+                    distractorService.invalidate(deck.getDeckId());
+                });
+    }
+
+    public CompletableFuture<Void> delete(Flashcard flashcard) {
+        return writeQueue.execute(() -> flashcardDao.delete(flashcard))
+                .whenComplete((result, e) -> {
+                    flashcardCache.remove(flashcard.getCardId());
+                    deckCache.remove(flashcard.getDeckId());
+                    distractorService.invalidate(flashcard.getDeckId());
+                });
+    }
+
+    // Delete many flashcards from a deck in one transaction
+    public CompletableFuture<Void> deleteFlashcards(int deckId, List<Integer> cardIds) {
+        return writeQueue.execute(() -> flashcardDao.deleteFlashcards(cardIds))
+                .whenComplete((result, e) -> {
+                    for (int cardId : cardIds)
+                        flashcardCache.remove(cardId);
+                    deckCache.remove(deckId);
+                    distractorService.invalidate(deckId);
+                });
+    }
+
+    // Reads are timed by QueryStats, so a slow screen can be traced to the read behind it
+    public DeckCounts getDeckCounts(int deckId) {
+        return QueryStats.time("getDeckCounts", () -> deckDao.getDeckCounts(deckId));
     }
 
     public List<Deck> getAllDecks() {
-        return deckDao.getAllDecks();
+        return QueryStats.time("getAllDecks", deckDao::getAllDecks);
     }
 
+    // Get a deck from the cache, or from the database if it isn't cached. Callers change the decks
+    // they are given, so they get a copy instead of the cached deck
     public Deck getDeckFromId(int deckId) {
-        return deckDao.getDeckFromId(deckId);
+        Deck deck = deckCache.get(deckId);
+        if (deck == null) {
+            long version = deckCache.getVersion();
+            deck = QueryStats.time("getDeckFromId", () -> deckDao.getDeckFromId(deckId));
+            if (deck == null)
+                return null;
+            deckCache.putIfUnchanged(deckId, deck, version);
+        }
+
+        return new Deck(deck);
+    }
+
+    // Observable reads are timed by QueryStats too, each time they are run again after a change
+    public LiveData<List<Deck>> observeAllDecks() {
+        synchronized (FlashcardsRepository.class) {
+            if (observedAllDecks == null)
+                observedAllDecks = new TimedLiveData<>(database, "observeAllDecks", deckDao::getAllDecks,
+                        "deck_table");
+            return observedAllDecks;
+        }
+    }
+
+    public LiveData<Deck> observeDeck(int deckId) {
+        synchronized (observedDecks) {
+            return observedDecks.computeIfAbsent(deckId, id -> new TimedLiveData<>(database, "observeDeck",
+                    () -> deckDao.getDeckFromId(id), "deck_table"));
+        }
     }
 
     public List<Flashcard> getAllFlashcards() {
-        return flashcardDao.getAllFlashcards();
+        return QueryStats.time("getAllFlashcards", flashcardDao::getAllFlashcards);
     }
 
+    // Get a flashcard from the cache, or from the database if it isn't cached
     public Flashcard getFlashcardFromId(int cardId) {
-        return flashcardDao.getFlashcardFromId(cardId);
+        Flashcard flashcard = flashcardCache.get(cardId);
+        if (flashcard == null) {
+            long version = flashcardCache.getVersion();
+            flashcard = QueryStats.time("getFlashcardFromId", () -> flashcardDao.getFlashcardFromId(cardId));
+            if (flashcard == null)
+                return null;
+            flashcardCache.putIfUnchanged(cardId, flashcard, version);
+        }
+
+        return new Flashcard(flashcard);
+    }
+
+    // The ID caches, for reading their size and hit and miss counts
+    public IdCache<Flashcard> getFlashcardCache() {
+        return flashcardCache;
+    }
+
+    public IdCache<Deck> getDeckCache() {
+        return deckCache;
     }
 
     public List<Flashcard> getFlashcardsInDeck(int deckId) {
-        return flashcardDao.getFlashcardsInDeck(deckId);
+        return QueryStats.time("getFlashcardsInDeck", () -> flashcardDao.getFlashcardsInDeck(deckId));
+    }
+
+    public LiveData<List<Flashcard>> observeFlashcardsInDeck(int deckId) {
+        synchronized (observedDeckFlashcards) {
+            return observedDeckFlashcards.computeIfAbsent(deckId, id -> new TimedLiveData<>(database,
+                    "observeFlashcardsInDeck", () -> flashcardDao.getFlashcardsInDeck(id), "flashcard_table"));
+        }
+    }
+
+    // Tell an observer after its tables change, until it is removed
+    public void addObserver(InvalidationTracker.Observer observer) {
+        database.getInvalidationTracker().addObserver(observer);
+    }
+
+    public void removeObserver(InvalidationTracker.Observer observer) {
+        database.getInvalidationTracker().removeObserver(observer);
+    }
+
+    // Get a paging source that loads the flashcards in a deck one page at a time
+    public FlashcardPagingSource getFlashcardPagingSource(int deckId) {
+        return new FlashcardPagingSource(database, deckId);
     }
 
     public List<Flashcard> searchFlashcards(String search) {
-        search = "%" + search.toLowerCase() + "%";
-        return flashcardDao.searchFlashcards(search);
+        String likeSearch = "%" + search.toLowerCase() + "%";
+        return QueryStats.time("searchFlashcards", () -> flashcardDao.searchFlashcards(likeSearch));
+    }
+
+    // Search the full-text index for flashcards with words starting with every word in the search.
+    // The matches are sorted from best to worst BM25 rank
+    public List<FlashcardMatch> matchFlashcards(String search, int limit) {
+        String query = toMatchQuery(search);
+        if (query.isEmpty())
+            return new ArrayList<>();
+
+        return QueryStats.time("matchFlashcards", () -> flashcardDao.matchFlashcards(query, limit));
+    }
+
+    // Turn user input into an FTS prefix query, e.g. "Cat sci-fi" becomes "cat* sci* fi*".
+    // Only letters and digits are kept, so the input can't contain FTS operators
+    public static String toMatchQuery(String search) {
+        StringBuilder query = new StringBuilder();
+
+        for (String word : toSearchTerms(search)) {
+            if (query.length() > 0)
+                query.append(' ');
+            query.append(word).append('*');
+        }
+
+        return query.toString();
+    }
+
+    // Split user input into the lower case words that toMatchQuery() searches for
+    public static List<String> toSearchTerms(String search) {
+        List<String> terms = new ArrayList<>();
+
+        for (String word : search.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty())
+                terms.add(word);
+        }
+
+        return terms;
+    }
+
+    // Get up to count random, non-archived flashcards from a deck in a single read
+    public List<Flashcard> sampleCards(int deckId, int count) {
+        return QueryStats.time("sampleCards", () -> flashcardDao.sampleCards(deckId, count));
+    }
+
+    // Read the review log by time range. Times are epoch milliseconds, from inclusive and to exclusive
+    public List<ReviewLog> getReviewLogs(long from, long to) {
+        return QueryStats.time("getReviewLogs", () -> reviewLogDao.getLogsBetween(from, to));
+    }
+
+    public List<ReviewLog> getDeckReviewLogs(int deckId, long from, long to) {
+        return QueryStats.time("getDeckReviewLogs", () -> reviewLogDao.getDeckLogsBetween(deckId, from, to));
+    }
+
+    public List<ReviewLog> getCardReviewLogs(int cardId) {
+        return QueryStats.time("getCardReviewLogs", () -> reviewLogDao.getCardLogs(cardId));
+    }
+
+    // Get up to limit non-archived flashcards from a deck that are due, most overdue first
+    public List<Flashcard> getDueCards(int deckId, long now, int limit) {
+        return QueryStats.time("getDueCards", () -> cardScheduleDao.getDueCards(deckId, now, limit));
+    }
+
+    public int getDueCount(int deckId, long now) {
+        return QueryStats.time("getDueCount", () -> cardScheduleDao.getDueCount(deckId, now));
+    }
+
+    // Read everything a review session needs in one transaction, so the deck, the flashcards and their
+    // distractors are consistent with each other. The session is the flashcards that are due soonest,
+    // overdue ones first, shown in random order. When nothing in the deck is due, it is a random
+    // sample of the deck's non-archived flashcards instead, so the deck can still be practised.
+    // Returns null if the deck doesn't exist. Until the flashcards of a migrated database all have
+    // schedules, the ones without are treated as due now
+    public ReviewSession loadReviewSession(int deckId, int size, int distractorCount) {
+        return QueryStats.time("loadReviewSession", () -> database.runInTransaction(() -> {
+            Deck deck = deckDao.getDeckFromId(deckId);
+            if (deck == null)
+                return null;
+
+            long now = System.currentTimeMillis();
+            List<Flashcard> cards;
+            if (Migrations.SCHEDULE_BACKFILL.isRunning())
+                cards = cardScheduleDao.getNextCardsWithUnscheduled(deckId, now, size);
+            else if (cardScheduleDao.getDueCards(deckId, now, 1).isEmpty())
+                cards = flashcardDao.sampleCards(deckId, size);
+            else
+                cards = cardScheduleDao.getNextCards(deckId, size);
+            Collections.shuffle(cards);
+            Map<Integer, List<Flashcard>> distractorMap =
+                    distractorService.chooseDistractors(deckId, cards, distractorCount);
+
+            return new ReviewSession(deck, cards, distractorMap);
+        }));
     }
 
+    // Choose count distractors for each flashcard in a review session, keyed by card ID
+    public Map<Integer, List<Flashcard>> chooseDistractors(int deckId, List<Flashcard> flashcards, int count) {
+        return distractorService.chooseDistractors(deckId, flashcards, count);
+    }
+
+    // Add the caches and the table sizes to the metrics. The table sizes are counted when the metrics
+    // are read, so they cost nothing until then
+    private static void registerGauges(DeckDao deckDao, ReviewLogDao reviewLogDao) {
+        registerCacheGauges("cache.flashcard.", flashcardCache);
+        registerCacheGauges("cache.deck.", deckCache);
+
+        // The deck table is small, and its sizes count the flashcards. The review log is only
+        // counted again after it has changed, so a snapshot doesn't scan it every time
+        MetricsRegistry.registerGauge("table.decks", deckDao::getDeckCount);
+        MetricsRegistry.registerGauge("table.flashcards", deckDao::getTotalSize);
+        MetricsRegistry.registerGauge("table.review_log", () -> {
+            if (isLogCountStale.getAndSet(false))
+                logCount = reviewLogDao.getLogCount();
+            return logCount;
+        });
+        MetricsRegistry.registerGauge("review_log.buffered", reviewLogAppender::getBufferedCount);
+    }
+
+    private static void registerCacheGauges(String prefix, IdCache<?> cache) {
+        MetricsRegistry.registerGauge(prefix + "size", cache::size);
+        MetricsRegistry.registerGauge(prefix + "hit_rate", cache::getHitRate);
+        MetricsRegistry.registerGauge(prefix + "hits", cache::getHitCount);
+        MetricsRegistry.registerGauge(prefix + "misses", cache::getMissCount);
+        MetricsRegistry.registerGauge(prefix + "evictions", cache::getEvictionCount);
+    }
+
+    // The review log's row count for its gauge, and whether the log has changed since it was counted
+    private static final AtomicBoolean isLogCountStale = new AtomicBoolean(true);
+    private static volatile int logCount;
+
+    // Clear a cache whenever its table changes, and mark the review log count as out of date. Room
+    // tells observers after the change is committed, on a background thread, so the repository's
+    // own writes still remove their rows straight away
+    private static final InvalidationTracker.Observer cacheInvalidator =
+            new InvalidationTracker.Observer("flashcard_table", "deck_table", "review_log") {
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            if (tables.contains("flashcard_table"))
+                flashcardCache.clear();
+            if (tables.contains("deck_table"))
+                deckCache.clear();
+            if (tables.contains("review_log"))
+                isLogCountStale.set(true);
+        }
+    };
+
+    // Give memory back when the system asks. The cached rows can always be read again. The levels
+    // aren't ordered by how little memory there is: the RUNNING_* levels come while the app is in the
+    // foreground, UI_HIDDEN only means the screens were hidden, and BACKGROUND and above mean the
+    // process may be killed
+    private static final ComponentCallbacks2 trimCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            if (level >= TRIM_MEMORY_BACKGROUND) {
+                flashcardCache.clear();
+                deckCache.clear();
+                distractorService.invalidateAll();
+            } else if (level == TRIM_MEMORY_RUNNING_CRITICAL) {
+                flashcardCache.trimTo(0.25f);
+                deckCache.trimTo(0.25f);
+            } else if (level == TRIM_MEMORY_RUNNING_LOW) {
+                flashcardCache.trimTo(0.5f);
+                deckCache.trimTo(0.5f);
+            } else if (level == TRIM_MEMORY_RUNNING_MODERATE) {
+                flashcardCache.trimTo(0.75f);
+                deckCache.trimTo(0.75f);
+            }
+        }
+
+        @Override
+        public void onLowMemory() {
+            onTrimMemory(TRIM_MEMORY_COMPLETE);
+        }
+
+        @Override
+        public void onConfigurationChanged(@NonNull Configuration newConfig) {
+            // Nothing to do
+        }
+    };
 
-    // Get a flashcard from the database located on row rowNumber
-    public Flashcard getRowCard(int rowNumber, int deckId) {
-        // OFFSET gets the rowNumber + 1 row, so rowNumber should be decremented
-        rowNumber--;
-        return flashcardDao.getRowCard(rowNumber, deckId);
+    // Keep the most recently used observable queries for each deck. A query that is dropped keeps
+    // working for any screen still observing it
+    private static <V> Map<Integer, V> newObservedMap() {
+        return new LinkedHashMap<Integer, V>(MAX_OBSERVED_QUERIES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, V> eldest) {
+                return size() > MAX_OBSERVED_QUERIES;
+            }
+        };
     }
 }
@@ -9,102 +9,152 @@ import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
+import com.barnes.flashcards.BuildConfig;
+import com.barnes.flashcards.dao.CardScheduleDao;
 import com.barnes.flashcards.dao.DeckDao;
 import com.barnes.flashcards.dao.FlashcardDao;
+import com.barnes.flashcards.dao.ReviewLogDao;
+import com.barnes.flashcards.model.CardSchedule;
 import com.barnes.flashcards.model.Deck;
 import com.barnes.flashcards.model.Flashcard;
+import com.barnes.flashcards.model.FlashcardFts;
+import com.barnes.flashcards.model.ReviewLog;
+import com.barnes.flashcards.util.MetricsRegistry;
 
-import java.time.LocalDateTime;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Class that builds the SQLite database in the Room style.
+ *
+ * <p> The migrations between schema versions are in Migrations. The schema of every version is
+ * exported as JSON to the directory given by the room.schemaLocation annotation processor argument,
+ * which the app module sets to its schemas directory with
+ * {@code javaCompileOptions.annotationProcessorOptions.arguments += ["room.schemaLocation":
+ * "$projectDir/schemas".toString()]}. The exported file of each new version must be committed with
+ * the migration to it, so the migrations can be checked against the schemas they go between. </p>
  */
-@Database(entities = {Deck.class, Flashcard.class},
-        version = 1, exportSchema = false)
+@Database(entities = {Deck.class, Flashcard.class, FlashcardFts.class, ReviewLog.class,
+        CardSchedule.class}, version = 8, exportSchema = true)
 @TypeConverters({DatabaseConverter.class})
 public abstract class FlashcardsRoomDatabase extends RoomDatabase {
 
     public abstract DeckDao deckDao();
     public abstract FlashcardDao flashcardDao();
-
-    // The number of threads the database can operate on
-    public static final int NUMBER_OF_THREADS = 4;
+    public abstract ReviewLogDao reviewLogDao();
+    public abstract CardScheduleDao cardScheduleDao();
 
     //Holds the instance of the database. There should only be one instance of the database in the program
     private static volatile FlashcardsRoomDatabase INSTANCE;
 
-    public static final ExecutorService databaseWriteExecutor =
-            Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+    // All writes go through this queue, so there is only ever one writer
+    private static volatile WriteQueue writeQueue;
+
+    // The current time in epoch milliseconds, in SQLite
+    static final String NOW_MILLIS = "CAST(strftime('%s', 'now') AS INTEGER) * 1000";
+
+    /**
+     * Creates the triggers that keep the flashcard schedules in step with the flashcard table.
+     *
+     * <p> A new flashcard is given a schedule that is due straight away, and the schedule's copy of
+     * the deck ID follows the flashcard when it is moved to another deck. Deleting a flashcard
+     * deletes its schedule through the foreign key. </p>
+     * @param database The database to create the triggers in
+     */
+    static void createScheduleTriggers(SupportSQLiteDatabase database) {
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS card_schedule_AFTER_INSERT " +
+                "AFTER INSERT ON `flashcard_table` BEGIN " +
+                "INSERT OR IGNORE INTO `card_schedule` (`card_id`, `deck_id`, `due`, `last_review`, " +
+                "`stability`, `difficulty`, `ease`, `interval_days`, `reps`, `lapses`) " +
+                "VALUES (NEW.`cardId`, NEW.`deck_id`, " + NOW_MILLIS + ", 0, 0, 0, " +
+                CardSchedule.INITIAL_EASE + ", 0, 0, 0); END");
+
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS card_schedule_AFTER_UPDATE " +
+                "AFTER UPDATE OF `deck_id` ON `flashcard_table` " +
+                "WHEN OLD.`deck_id` != NEW.`deck_id` BEGIN " +
+                "UPDATE `card_schedule` SET `deck_id` = NEW.`deck_id` " +
+                "WHERE `card_id` = NEW.`cardId`; END");
+    }
+
+    /**
+     * Creates the triggers that keep the flashcard counts in the deck table up to date.
+     *
+     * <p> Room does not create triggers for normal tables, so this is called both when the database
+     * is created and when it is migrated. Every insert, delete, or status or deck change of a
+     * flashcard adjusts the counts of its deck in the same transaction. (x IS 'STATUS') is 1 or 0,
+     * even when the status is null. </p>
+     * @param database The database to create the triggers in
+     */
+    static void createDeckCountTriggers(SupportSQLiteDatabase database) {
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS deck_counts_AFTER_INSERT " +
+                "AFTER INSERT ON `flashcard_table` BEGIN " +
+                countUpdate("+", "NEW") + " END");
+
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS deck_counts_AFTER_DELETE " +
+                "AFTER DELETE ON `flashcard_table` BEGIN " +
+                countUpdate("-", "OLD") + " END");
+
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS deck_counts_AFTER_UPDATE " +
+                "AFTER UPDATE OF `status`, `deck_id` ON `flashcard_table` " +
+                "WHEN OLD.`status` IS NOT NEW.`status` OR OLD.`deck_id` != NEW.`deck_id` BEGIN " +
+                countUpdate("-", "OLD") + " " + countUpdate("+", "NEW") + " END");
+    }
+
+    // The statement that adds (or subtracts) a flashcard row to the counts of its deck
+    private static String countUpdate(String sign, String row) {
+        return "UPDATE `deck_table` SET " +
+                "`size` = `size` " + sign + " 1, " +
+                "`still_learning_count` = `still_learning_count` " + sign + " (" + row + ".`status` IS 'STILL_LEARNING'), " +
+                "`learned_count` = `learned_count` " + sign + " (" + row + ".`status` IS 'LEARNED'), " +
+                "`archived_count` = `archived_count` " + sign + " (" + row + ".`status` IS 'ARCHIVED') " +
+                "WHERE `deck_id` = " + row + ".`deck_id`;";
+    }
+
+    private static final String DATABASE_NAME = "flashcards_database";
+
+    // The prepackaged database, if the app was built with one. It must have the current schema
+    private static final String ASSET_DIRECTORY = "databases";
+    private static final String ASSET_NAME = "flashcards.db";
 
-    //This callback creates test data in the database
+    //This callback creates test data in the database, and resumes chunked migrations when it is opened
     private static final RoomDatabase.Callback sRoomDatabaseCallback =
         new RoomDatabase.Callback() {
             @Override
             public void onCreate(@NonNull SupportSQLiteDatabase db) {
             super.onCreate(db);
 
-            databaseWriteExecutor.execute(() -> {
-                // create test data
-                DeckDao deckDao = INSTANCE.deckDao();
-
-                LocalDateTime date = LocalDateTime.now();
-
-                deckDao.insert(new Deck(1, 10, 0, 0, "Deck 1", date));
-                deckDao.insert(new Deck(2, 10, 0, 0, "Deck 2", date));
-                deckDao.insert(new Deck(3, 0, 0, 0, "Deck 3", date));
-                deckDao.insert(new Deck(4, 0, 0, 0, "Deck 4", date));
-                deckDao.insert(new Deck(5, 0, 0, 0, "Deck 5", date));
-
-                FlashcardDao flashcardDao = INSTANCE.flashcardDao();
-
-                flashcardDao.insert(new Flashcard(1, "deck 1 front 1", "deck 1 back 1",
-                        Flashcard.Status.STILL_LEARNING, 1));
-                flashcardDao.insert(new Flashcard(2, "deck 1 front 2", "deck 1 back 2",
-                        Flashcard.Status.STILL_LEARNING, 1));
-                flashcardDao.insert(new Flashcard(3, "deck 1 front 3", "deck 1 back 3",
-                        Flashcard.Status.STILL_LEARNING, 1));
-                flashcardDao.insert(new Flashcard(4, "deck 1 front 4", "deck 1 back 4",
-                        Flashcard.Status.STILL_LEARNING, 1));
-                flashcardDao.insert(new Flashcard(5, "deck 1 front 5", "deck 1 back 5",
-                        Flashcard.Status.STILL_LEARNING, 1));
-                flashcardDao.insert(new Flashcard(6, "deck 1 front 6", "deck 1 back 6",
-                        Flashcard.Status.STILL_LEARNING, 1));
-                flashcardDao.insert(new Flashcard(7, "deck 1 front 7", "deck 1 back 7",
-                        Flashcard.Status.STILL_LEARNING, 1));
-                flashcardDao.insert(new Flashcard(8, "deck 1 front 8", "deck 1 back 8",
-                        Flashcard.Status.STILL_LEARNING, 1));
-                flashcardDao.insert(new Flashcard(9, "deck 1 front 9", "deck 1 back 9",
-                        Flashcard.Status.STILL_LEARNING, 1));
-                flashcardDao.insert(new Flashcard(10, "deck 1 front 10", "deck 1 back 10",
-                        Flashcard.Status.STILL_LEARNING, 1));
-
-                flashcardDao.insert(new Flashcard(11, "deck 2 front 1", "deck 2 back 1",
-                        Flashcard.Status.STILL_LEARNING, 2));
-                flashcardDao.insert(new Flashcard(12, "deck 2 front 2", "deck 2 back 2",
-                        Flashcard.Status.STILL_LEARNING, 2));
-                flashcardDao.insert(new Flashcard(13, "deck 2 front 3", "deck 2 back 3",
-                        Flashcard.Status.STILL_LEARNING, 2));
-                flashcardDao.insert(new Flashcard(14, "deck 2 front 4", "deck 2 back 4",
-                        Flashcard.Status.STILL_LEARNING, 2));
-                flashcardDao.insert(new Flashcard(15, "deck 2 front 5", "deck 2 back 5",
-                        Flashcard.Status.STILL_LEARNING, 2));
-                flashcardDao.insert(new Flashcard(16, "deck 2 front 6", "deck 2 back 6",
-                        Flashcard.Status.STILL_LEARNING, 2));
-                flashcardDao.insert(new Flashcard(17, "deck 2 front 7", "deck 2 back 7",
-                        Flashcard.Status.STILL_LEARNING, 2));
-                flashcardDao.insert(new Flashcard(18, "deck 2 front 8", "deck 2 back 8",
-                        Flashcard.Status.STILL_LEARNING, 2));
-                flashcardDao.insert(new Flashcard(19, "deck 2 front 9", "deck 2 back 9",
-                        Flashcard.Status.STILL_LEARNING, 2));
-                flashcardDao.insert(new Flashcard(20, "deck 2 front 10", "deck 2 back 10",
-                        Flashcard.Status.STILL_LEARNING, 2));
-
-            });
+            createDeckCountTriggers(db);
+            createScheduleTriggers(db);
+
+            // Written in the transaction that creates the database, so the first query sees it.
+            // A prepackaged database already has its content
+            if (!isPrepackaged)
+                SampleData.insertInto(db);
+            }
+
+            @Override
+            public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            super.onOpen(db);
+
+            // Finish any slow migration work in small transactions, now that the app can use the database
+            ChunkedMigration.resumeAll(db, INSTANCE, writeQueue, Migrations.CHUNKED);
+            }
+        };
+
+    // Room doesn't create triggers, so a prepackaged database gets them when it is copied
+    private static final RoomDatabase.PrepackagedDatabaseCallback sPrepackagedCallback =
+        new RoomDatabase.PrepackagedDatabaseCallback() {
+            @Override
+            public void onOpenPrepackagedDatabase(@NonNull SupportSQLiteDatabase db) {
+            createDeckCountTriggers(db);
+            createScheduleTriggers(db);
             }
         };
 
+    // True if the database is copied from ASSET_NAME instead of being created empty
+    private static volatile boolean isPrepackaged;
+
     /**
      * Method that gets an instance of the database.
      *
@@ -120,13 +170,79 @@ public abstract class FlashcardsRoomDatabase extends RoomDatabase {
                 if (INSTANCE == null) {
 
                     //Create an instance of the database
-                    INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
-                            FlashcardsRoomDatabase.class, "flashcards_database")
+                    RoomDatabase.Builder<FlashcardsRoomDatabase> builder = Room.databaseBuilder(
+                            context.getApplicationContext(), FlashcardsRoomDatabase.class, DATABASE_NAME)
                             .addCallback(sRoomDatabaseCallback)
-                            .build();
+                            .addMigrations(Migrations.ALL);
+
+                    // Statements are only counted in debug builds, as the callback adds work to every
+                    // statement. Counted on the thread that runs it, so it costs no thread switch
+                    if (BuildConfig.DEBUG)
+                        builder.setQueryCallback(QueryStats.queryCallback, Runnable::run);
+
+                    isPrepackaged = hasAsset(context);
+                    if (isPrepackaged)
+                        builder.createFromAsset(ASSET_DIRECTORY + "/" + ASSET_NAME, sPrepackagedCallback);
+
+                    FlashcardsRoomDatabase database = builder.build();
+
+                    // The write queue must exist before anyone can see the instance
+                    writeQueue = new WriteQueue(database);
+                    INSTANCE = database;
+
+                    File file = context.getDatabasePath(DATABASE_NAME);
+                    File wal = new File(file.getPath() + "-wal");
+                    MetricsRegistry.registerGauge("database.size_bytes", file::length);
+                    MetricsRegistry.registerGauge("database.wal_bytes", wal::length);
+                    MetricsRegistry.registerGauge("write_queue.depth", writeQueue::getQueueDepth);
                 }
             }
         }
         return INSTANCE;
     }
+
+    /**
+     * Method that builds a database that is only kept in memory.
+     *
+     * <p> The database has the same tables and triggers as the real one, but no sample data, and it
+     * is not the instance returned by getDatabase(). It is used to measure and test the DAOs on
+     * generated data, so it allows queries on the main thread, which is the thread a JVM test runs
+     * on. The caller must close it. </p>
+     * @param context The context building the database
+     * @return Returns a new, empty database
+     */
+    public static FlashcardsRoomDatabase buildInMemory(final Context context) {
+        return Room.inMemoryDatabaseBuilder(context.getApplicationContext(), FlashcardsRoomDatabase.class)
+                .addCallback(new RoomDatabase.Callback() {
+                    @Override
+                    public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                    super.onCreate(db);
+
+                    createDeckCountTriggers(db);
+                    createScheduleTriggers(db);
+                    }
+                })
+                .allowMainThreadQueries()
+                .build();
+    }
+
+    // Checks if the app was built with a prepackaged database
+    private static boolean hasAsset(Context context) {
+        try {
+            String[] assets = context.getAssets().list(ASSET_DIRECTORY);
+            return assets != null && Arrays.asList(assets).contains(ASSET_NAME);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Method that gets the queue all database writes should go through.
+     *
+     * <p> getDatabase() must be called first. </p>
+     * @return Returns the database's write queue
+     */
+    public static WriteQueue getWriteQueue() {
+        return writeQueue;
+    }
 }
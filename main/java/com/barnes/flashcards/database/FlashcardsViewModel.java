@@ -1,17 +1,43 @@
 package com.barnes.flashcards.database;
 
 import android.app.Application;
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.OpenableColumns;
 
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.ViewModelKt;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
+import androidx.room.InvalidationTracker;
 
+import com.barnes.flashcards.io.AnkiImporter;
+import com.barnes.flashcards.io.DeckExporter;
+import com.barnes.flashcards.io.DelimitedImporter;
 import com.barnes.flashcards.model.Deck;
+import com.barnes.flashcards.model.DeckCounts;
 import com.barnes.flashcards.model.Flashcard;
+import com.barnes.flashcards.model.FlashcardMatch;
+import com.barnes.flashcards.model.ReviewLog;
+import com.barnes.flashcards.model.ReviewSession;
+import com.barnes.flashcards.scheduler.Rating;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * View Model for the database.
@@ -24,9 +50,35 @@ public class FlashcardsViewModel extends AndroidViewModel {
 
     private static FlashcardsRepository repository;
 
+    // The number of flashcards loaded at a time when viewing a deck
+    private static final int PAGE_SIZE = 50;
+
+    // Paged flashcards for ViewFlashcardsActivity, kept so that they survive screen rotation
+    private LiveData<PagingData<Flashcard>> flashcardPages;
+    private int pagesDeckId;
+
+    // The number of flashcards imported so far by the file import started from this screen, or null
+    // when none is running. Kept here so the screen shows it again after it is rotated
+    private final MutableLiveData<Long> importProgress = new MutableLiveData<>();
+
+    // The search-as-you-type results for SearchFlashcardsActivity, refined as the search is typed
+    private LiveSearch liveSearch;
+
+    // Clears the live search's last results whenever the flashcards change, so an edited or deleted
+    // flashcard isn't shown by refining them. Registered when the live search is created
+    private final InvalidationTracker.Observer liveSearchInvalidator =
+            new InvalidationTracker.Observer("flashcard_table") {
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            clearLiveSearch();
+        }
+    };
+
     //For passing information in ReviewActivity and fragments
     private List<Flashcard> reviewList = new ArrayList<>();
     private List<Flashcard> answerList = new ArrayList<>();
+    private ReviewSession reviewSession;
+    private ReviewAccumulator reviewAccumulator;
     private Map<Flashcard, String> reviewedMap = new LinkedHashMap<>();
 
     public FlashcardsViewModel(@NonNull Application application) {
@@ -34,28 +86,36 @@ public class FlashcardsViewModel extends AndroidViewModel {
         repository = new FlashcardsRepository(application);
     }
 
-    public void insert(Deck deck) {
-        repository.insert(deck);
+    public CompletableFuture<Long> insert(Deck deck) {
+        return repository.insert(deck);
+    }
+
+    public CompletableFuture<Long> insert(Flashcard flashcard) {
+        return repository.insert(flashcard);
+    }
+
+    public CompletableFuture<Void> update(Deck deck) {
+        return repository.update(deck);
     }
 
-    public void insert(Flashcard flashcard) {
-        repository.insert(flashcard);
+    public CompletableFuture<Void> update(Flashcard flashcard) {
+        return repository.update(flashcard);
     }
 
-    public void update(Deck deck) {
-        repository.update(deck);
+    public CompletableFuture<Void> delete(Deck deck) {
+        return repository.delete(deck);
     }
 
-    public void update(Flashcard flashcard) {
-        repository.update(flashcard);
+    public CompletableFuture<Void> delete(Flashcard flashcard) {
+        return repository.delete(flashcard);
     }
 
-    public void delete(Deck deck) {
-        repository.delete(deck);
+    public CompletableFuture<Void> deleteFlashcards(int deckId, List<Integer> cardIds) {
+        return repository.deleteFlashcards(deckId, cardIds);
     }
 
-    public void delete(Flashcard flashcard) {
-        repository.delete(flashcard);
+    public DeckCounts getDeckCounts(int deckId) {
+        return repository.getDeckCounts(deckId);
     }
 
     public List<Deck> getAllDecks() {
@@ -66,6 +126,14 @@ public class FlashcardsViewModel extends AndroidViewModel {
         return repository.getDeckFromId(deckId);
     }
 
+    public LiveData<List<Deck>> observeAllDecks() {
+        return repository.observeAllDecks();
+    }
+
+    public LiveData<Deck> observeDeck(int deckId) {
+        return repository.observeDeck(deckId);
+    }
+
     public List<Flashcard> getAllFlashcards() {
         return repository.getAllFlashcards();
     }
@@ -78,12 +146,171 @@ public class FlashcardsViewModel extends AndroidViewModel {
         return repository.getFlashcardsInDeck(deckId);
     }
 
+    public LiveData<List<Flashcard>> observeFlashcardsInDeck(int deckId) {
+        return repository.observeFlashcardsInDeck(deckId);
+    }
+
+    public LiveData<PagingData<Flashcard>> getFlashcardPages(int deckId) {
+        if (flashcardPages == null || pagesDeckId != deckId) {
+            Pager<Integer, Flashcard> pager = new Pager<>(
+                    new PagingConfig(PAGE_SIZE, PAGE_SIZE, false),
+                    () -> repository.getFlashcardPagingSource(deckId));
+
+            flashcardPages = PagingLiveData.cachedIn(PagingLiveData.getLiveData(pager),
+                    ViewModelKt.getViewModelScope(this));
+            pagesDeckId = deckId;
+        }
+
+        return flashcardPages;
+    }
+
     public List<Flashcard> searchFlashcards(String search) {
         return repository.searchFlashcards(search);
     }
 
-    public Flashcard getRowCard(int rowNumber, int deckId) {
-        return repository.getRowCard(rowNumber, deckId);
+    public List<FlashcardMatch> matchFlashcards(String search) {
+        return repository.matchFlashcards(search, FlashcardsRepository.SEARCH_LIMIT);
+    }
+
+    // Search as the user types, refining the last results in memory when the search only got narrower.
+    // Must be called in a background thread
+    public List<FlashcardMatch> liveSearch(String search) {
+        LiveSearch currentSearch;
+        synchronized (this) {
+            if (liveSearch == null) {
+                liveSearch = new LiveSearch(repository, FlashcardsRepository.SEARCH_LIMIT);
+                repository.addObserver(liveSearchInvalidator);
+            }
+            currentSearch = liveSearch;
+        }
+        return currentSearch.search(search);
+    }
+
+    // Make the next live search query the index instead of refining the last results
+    public void clearLiveSearch() {
+        LiveSearch currentSearch;
+        synchronized (this) {
+            currentSearch = liveSearch;
+        }
+        if (currentSearch != null)
+            currentSearch.clear();
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+
+        synchronized (this) {
+            if (liveSearch != null)
+                repository.removeObserver(liveSearchInvalidator);
+        }
+    }
+
+    public List<Flashcard> sampleCards(int deckId, int count) {
+        return repository.sampleCards(deckId, count);
+    }
+
+    // Load a review session and keep it for the review fragments. Answers from an earlier session
+    // are written first
+    public ReviewSession loadReviewSession(int deckId, int size, int distractorCount) {
+        flushReviewAnswers();
+
+        reviewSession = repository.loadReviewSession(deckId, size, distractorCount);
+        reviewAccumulator = new ReviewAccumulator(repository, deckId);
+        return reviewSession;
+    }
+
+    // Record an answer in the current review session and add it to the review log. They are
+    // written by flushReviewAnswers(). The response time decides if a correct answer was hard or easy
+    public void recordAnswer(Flashcard flashcard, boolean isCorrect, String chosenAnswer, long responseMillis) {
+        if (reviewAccumulator != null)
+            reviewAccumulator.record(flashcard.getCardId(), isCorrect,
+                    Rating.fromAnswer(isCorrect, responseMillis));
+
+        repository.appendReviewLog(new ReviewLog(flashcard.getCardId(), flashcard.getDeckId(),
+                System.currentTimeMillis(), isCorrect, chosenAnswer, responseMillis));
+    }
+
+    // Write the current review session's answers to its deck and the review log
+    public CompletableFuture<Void> flushReviewAnswers() {
+        CompletableFuture<Void> logFlushed = repository.flushReviewLog();
+        if (reviewAccumulator == null)
+            return logFlushed;
+
+        return CompletableFuture.allOf(reviewAccumulator.flush(), logFlushed);
+    }
+
+    public List<ReviewLog> getDeckReviewLogs(int deckId, long from, long to) {
+        return repository.getDeckReviewLogs(deckId, from, to);
+    }
+
+    public List<ReviewLog> getCardReviewLogs(int cardId) {
+        return repository.getCardReviewLogs(cardId);
+    }
+
+    // Import a file the user chose into a deck on the repository's import thread, which carries on
+    // if the screen is rotated or left. The format is taken from the file's type or name, or
+    // detected from the file if they don't say
+    public CompletableFuture<DelimitedImporter.Result> importFlashcards(int deckId, Uri uri) {
+        ContentResolver resolver = getApplication().getContentResolver();
+        importProgress.setValue(0L);
+
+        return repository.runImport(() -> {
+            try (InputStream input = resolver.openInputStream(uri)) {
+                if (input == null)
+                    throw new IOException("Could not open " + uri);
+
+                DelimitedImporter.Format format = DelimitedImporter.Format.fromFile(
+                        resolver.getType(uri), getDisplayName(resolver, uri));
+                return repository.importFlashcards(deckId, input, format,
+                        (imported, bytesRead) -> importProgress.postValue(imported));
+            } finally {
+                importProgress.postValue(null);
+            }
+        });
+    }
+
+    public LiveData<Long> getImportProgress() {
+        return importProgress;
+    }
+
+    // The name of a chosen file, or null if the provider doesn't give one
+    private static String getDisplayName(ContentResolver resolver, Uri uri) {
+        try (Cursor cursor = resolver.query(uri,
+                new String[]{OpenableColumns.DISPLAY_NAME}, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst())
+                return cursor.getString(0);
+        }
+        return null;
+    }
+
+    // The package's collection is extracted to the app's cache directory while it is read
+    public AnkiImporter.Result importAnkiPackage(InputStream input, AnkiImporter.ProgressListener listener)
+            throws IOException {
+        return repository.importAnkiPackage(input, getApplication().getCacheDir(), listener);
+    }
+
+    public long generateData(int deckCount, int cardCount, long seed, DataGenerator.ProgressListener listener)
+            throws IOException {
+        return repository.generateData(deckCount, cardCount, seed, listener);
+    }
+
+    // Write the query latency statistics to a file in the app's files directory
+    public File dumpQueryStats() throws IOException {
+        return QueryStats.dumpTo(getApplication().getFilesDir());
+    }
+
+    public long exportDecks(List<Deck> decks, OutputStream output, DeckExporter.Format format,
+                            DeckExporter.ProgressListener listener) throws IOException {
+        return repository.exportDecks(decks, output, format, listener);
+    }
+
+    public int getDueCount(int deckId, long now) {
+        return repository.getDueCount(deckId, now);
+    }
+
+    public Map<Integer, List<Flashcard>> chooseDistractors(int deckId, List<Flashcard> flashcards, int count) {
+        return repository.chooseDistractors(deckId, flashcards, count);
     }
 
     public List<Flashcard> getReviewList() {
@@ -102,6 +329,10 @@ public class FlashcardsViewModel extends AndroidViewModel {
         this.answerList = answerList;
     }
 
+    public ReviewSession getReviewSession() {
+        return reviewSession;
+    }
+
     public Map<Flashcard, String> getReviewedMap() {
         return reviewedMap;
     }
@@ -0,0 +1,236 @@
+package com.barnes.flashcards.database;
+
+import android.util.SparseIntArray;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Least recently used cache of database rows, keyed by their integer ID.
+ *
+ * <p> The IDs are kept as primitive ints, so looking up a row doesn't box its ID. The entries are
+ * stored in fixed arrays and linked from the most to the least recently used, so no entry objects
+ * are created when entries are added or moved. When the cache is full, the least recently used entry
+ * is dropped. </p>
+ *
+ * <p> Every invalidation increases the cache's version. A reader that misses gets the version
+ * before reading the database, and passes it to putIfUnchanged(). If a row was invalidated in the
+ * meantime, the row it read may already be out of date, so it isn't cached. </p>
+ * @param <V> The type of the cached rows
+ */
+public class IdCache<V> {
+    private static final int NONE = -1;
+
+    private final int capacity;
+
+    // Maps an ID to the slot its entry is stored in
+    private final SparseIntArray slots;
+    private final int[] ids;
+    private final Object[] values;
+    private final int[] newer;
+    private final int[] older;
+    private int newest = NONE;
+    private int oldest = NONE;
+    private int size = 0;
+
+    private long version = 0;
+
+    // Read by the metrics gauges without taking the cache's lock
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Constructor for IdCache.
+     *
+     * @param capacity The most entries the cache can hold
+     */
+    public IdCache(int capacity) {
+        this.capacity = capacity;
+
+        slots = new SparseIntArray(capacity);
+        ids = new int[capacity];
+        values = new Object[capacity];
+        newer = new int[capacity];
+        older = new int[capacity];
+    }
+
+    /**
+     * Gets a cached row and marks it as the most recently used.
+     *
+     * @param id The ID of the row
+     * @return Returns the cached row, or null if it isn't cached
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized V get(int id) {
+        int slot = slots.get(id, NONE);
+        if (slot == NONE) {
+            missCount.increment();
+            return null;
+        }
+
+        hitCount.increment();
+        unlink(slot);
+        linkNewest(slot);
+        return (V) values[slot];
+    }
+
+    /**
+     * Gets the current version of the cache, to pass to putIfUnchanged() after reading a row.
+     *
+     * @return The number of invalidations so far
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Caches a row that was read from the database, unless the cache was invalidated since.
+     *
+     * @param id The ID of the row
+     * @param value The row
+     * @param readVersion The version returned by getVersion() before the row was read
+     */
+    public synchronized void putIfUnchanged(int id, V value, long readVersion) {
+        if (readVersion != version || value == null || capacity == 0)
+            return;
+
+        int slot = slots.get(id, NONE);
+        if (slot != NONE) {
+            values[slot] = value;
+            unlink(slot);
+            linkNewest(slot);
+            return;
+        }
+
+        if (size >= capacity) {
+            evictionCount.increment();
+            removeSlot(oldest);
+        }
+
+        // The slots in use are always 0 to size - 1
+        slot = size++;
+        ids[slot] = id;
+        values[slot] = value;
+        slots.put(id, slot);
+        linkNewest(slot);
+    }
+
+    /**
+     * Removes a row from the cache after it was written.
+     *
+     * @param id The ID of the row
+     */
+    public synchronized void remove(int id) {
+        version++;
+
+        int slot = slots.get(id, NONE);
+        if (slot != NONE)
+            removeSlot(slot);
+    }
+
+    /**
+     * Removes every row from the cache.
+     */
+    public synchronized void clear() {
+        version++;
+
+        for (int slot = 0; slot < size; slot++)
+            values[slot] = null;
+        slots.clear();
+        newest = NONE;
+        oldest = NONE;
+        size = 0;
+    }
+
+    /**
+     * Drops the least recently used rows until the cache holds no more than a fraction of its
+     * capacity.
+     *
+     * @param fraction The fraction of the capacity to keep, from 0 to 1
+     */
+    public synchronized void trimTo(float fraction) {
+        int keep = Math.max(0, Math.min(capacity, (int) (capacity * fraction)));
+        while (size > keep) {
+            evictionCount.increment();
+            removeSlot(oldest);
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    // The share of reads that were hits, from 0 to 1, or 0 before the first read. The counts are
+    // read one after the other, so a read in between can make it very slightly off
+    public double getHitRate() {
+        long hits = hitCount.sum();
+        long reads = hits + missCount.sum();
+        return reads == 0 ? 0.0 : (double) hits / reads;
+    }
+
+    // Remove the entry in slot and move the last entry into its place, so the slots stay packed
+    private void removeSlot(int slot) {
+        unlink(slot);
+        slots.delete(ids[slot]);
+
+        int last = --size;
+        if (slot != last) {
+            ids[slot] = ids[last];
+            values[slot] = values[last];
+            newer[slot] = newer[last];
+            older[slot] = older[last];
+            slots.put(ids[slot], slot);
+
+            if (newer[slot] != NONE)
+                older[newer[slot]] = slot;
+            else
+                newest = slot;
+
+            if (older[slot] != NONE)
+                newer[older[slot]] = slot;
+            else
+                oldest = slot;
+        }
+        values[last] = null;
+    }
+
+    private void unlink(int slot) {
+        if (newer[slot] != NONE)
+            older[newer[slot]] = older[slot];
+        else
+            newest = older[slot];
+
+        if (older[slot] != NONE)
+            newer[older[slot]] = newer[slot];
+        else
+            oldest = newer[slot];
+    }
+
+    private void linkNewest(int slot) {
+        newer[slot] = NONE;
+        older[slot] = newest;
+
+        if (newest != NONE)
+            newer[newest] = slot;
+        else
+            oldest = slot;
+
+        newest = slot;
+    }
+}
@@ -0,0 +1,174 @@
+package com.barnes.flashcards.database;
+
+import com.barnes.flashcards.model.Flashcard;
+import com.barnes.flashcards.model.FlashcardMatch;
+import com.barnes.flashcards.util.MetricsRegistry;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * Full-text search that is run again on every keystroke.
+ *
+ * <p> The matches of the last search are kept. When the next search only makes the last one
+ * narrower, because every word of the last search is the start of a word in the new one ("cat" to
+ * "cats", or "cat" to "cat do"), the new matches must be some of the old ones, so they are found by
+ * checking the old matches in memory instead of searching the index again. The words are compared
+ * the way the unicode61 tokenizer compares them, ignoring case and accents. This is only done if the
+ * last search wasn't cut off at the limit, as it could then be missing matches. Refined matches keep
+ * the ranking and the snippet of the search they came from, so a snippet only highlights the words
+ * of that search. </p>
+ *
+ * <p> search() can be called from several threads at once. The last results are swapped
+ * atomically, and each is correct for its own words, so a slow search finishing late can only make
+ * the next search query the index again. The last results must be cleared with clear() whenever the
+ * flashcards change, or they would be refined into matches that were edited or deleted. A search
+ * that was running when they were cleared doesn't keep its results either. </p>
+ */
+public class LiveSearch {
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+    private final FlashcardsRepository repository;
+    private final int limit;
+    private final AtomicReference<Results> last = new AtomicReference<>();
+
+    // Increased by clear(), so a search can tell if the flashcards changed while it ran
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Constructor for LiveSearch.
+     *
+     * @param repository The repository to search
+     * @param limit The most matches a search returns
+     */
+    public LiveSearch(FlashcardsRepository repository, int limit) {
+        this.repository = repository;
+        this.limit = limit;
+    }
+
+    /**
+     * Searches for flashcards with words starting with every word in the search.
+     *
+     * <p> This method either refines the last results or searches the index, and should be run in a
+     * background thread. </p>
+     * @param search The user input
+     * @return Returns the matches, from the best to the worst match
+     */
+    public List<FlashcardMatch> search(String search) {
+        List<String> terms = new ArrayList<>();
+        for (String term : FlashcardsRepository.toSearchTerms(search))
+            terms.add(fold(term));
+
+        if (terms.isEmpty()) {
+            last.set(null);
+            return new ArrayList<>();
+        }
+
+        long searchGeneration = generation.get();
+        Results previous = last.get();
+        Results results;
+        if (previous != null && previous.canRefineTo(terms)) {
+            results = new Results(terms, refine(previous.matches, terms), true);
+            MetricsRegistry.counter("search.refined").increment();
+        } else {
+            List<FlashcardMatch> matches = repository.matchFlashcards(search, limit);
+            results = new Results(terms, matches, matches.size() < limit);
+            MetricsRegistry.counter("search.queried").increment();
+        }
+        last.set(results);
+        if (generation.get() != searchGeneration)
+            last.compareAndSet(results, null);
+
+        return new ArrayList<>(results.matches);
+    }
+
+    /**
+     * Throws away the last results, so the next search queries the index.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        last.set(null);
+    }
+
+    // Keep the matches that have a word starting with every term, in their current order
+    private static List<FlashcardMatch> refine(List<FlashcardMatch> matches, List<String> terms) {
+        List<FlashcardMatch> refined = new ArrayList<>();
+
+        for (FlashcardMatch match : matches) {
+            Flashcard flashcard = match.getFlashcard();
+            String[] words = WORD_SEPARATOR.split(fold(flashcard.getFront() + " " + flashcard.getBack()));
+
+            boolean isMatch = true;
+            for (String term : terms) {
+                if (!hasWordStartingWith(words, term)) {
+                    isMatch = false;
+                    break;
+                }
+            }
+
+            if (isMatch)
+                refined.add(match);
+        }
+
+        return refined;
+    }
+
+    private static boolean hasWordStartingWith(String[] words, String term) {
+        for (String word : words) {
+            if (word.startsWith(term))
+                return true;
+        }
+        return false;
+    }
+
+    // Lower case without accents, as the unicode61 tokenizer indexes words
+    private static String fold(String text) {
+        if (text == null)
+            return "";
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return ACCENTS.matcher(decomposed).replaceAll("");
+    }
+
+    /**
+     * The matches of a search, and the folded words that were searched for.
+     */
+    private static class Results {
+        private final List<String> terms;
+        private final List<FlashcardMatch> matches;
+
+        // False if the search stopped at the limit, so there may be more matches
+        private final boolean isComplete;
+
+        Results(List<String> terms, List<FlashcardMatch> matches, boolean isComplete) {
+            this.terms = terms;
+            this.matches = matches;
+            this.isComplete = isComplete;
+        }
+
+        // Every match of the new terms is one of these matches if each of these terms starts a new term
+        boolean canRefineTo(List<String> newTerms) {
+            if (!isComplete)
+                return false;
+
+            for (String term : terms) {
+                boolean isCovered = false;
+                for (String newTerm : newTerms) {
+                    if (newTerm.startsWith(term)) {
+                        isCovered = true;
+                        break;
+                    }
+                }
+
+                if (!isCovered)
+                    return false;
+            }
+            return true;
+        }
+    }
+}
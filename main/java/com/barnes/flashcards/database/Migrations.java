@@ -0,0 +1,218 @@
+package com.barnes.flashcards.database;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import com.barnes.flashcards.model.CardSchedule;
+
+/**
+ * Every migration of the flashcards database.
+ *
+ * <p> Each schema version has one migration from the version before it, and they are all listed
+ * in ALL, which is given to the database builder. A migration should be quick: work that touches
+ * every row of a large table goes in a ChunkedMigration, which is scheduled by the migration and
+ * listed in CHUNKED so it is run in small transactions once the database is open. Room checks the
+ * migrated schema against the entities when the database is opened, and MigrationTest upgrades a
+ * version 1 database through every migration, so a new migration is tested by adding to it. </p>
+ */
+public final class Migrations {
+    // The number of rows rewritten by each transaction of a chunked migration
+    static final int CHUNK_SIZE = 2000;
+
+    // The number of decks converted by each query of MIGRATION_7_8
+    private static final int DECK_CHUNK_SIZE = 500;
+
+    private Migrations() {
+    }
+
+    // Version 2 adds an index for choosing random review cards from a deck
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_flashcard_table_deck_id_status` " +
+                    "ON `flashcard_table` (`deck_id`, `status`)");
+        }
+    };
+
+    // Version 3 adds the full-text search index. The triggers are the ones Room creates for an
+    // FTS4 table with a content entity, and the index is built from the existing flashcards
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `flashcard_fts` USING FTS4(" +
+                    "`front` TEXT, `back` TEXT, tokenize=unicode61, content=`flashcard_table`)");
+
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_flashcard_fts_BEFORE_UPDATE " +
+                    "BEFORE UPDATE ON `flashcard_table` BEGIN " +
+                    "DELETE FROM `flashcard_fts` WHERE `docid`=OLD.`rowid`; END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_flashcard_fts_BEFORE_DELETE " +
+                    "BEFORE DELETE ON `flashcard_table` BEGIN " +
+                    "DELETE FROM `flashcard_fts` WHERE `docid`=OLD.`rowid`; END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_flashcard_fts_AFTER_UPDATE " +
+                    "AFTER UPDATE ON `flashcard_table` BEGIN " +
+                    "INSERT INTO `flashcard_fts`(`docid`, `front`, `back`) " +
+                    "VALUES (NEW.`rowid`, NEW.`front`, NEW.`back`); END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_flashcard_fts_AFTER_INSERT " +
+                    "AFTER INSERT ON `flashcard_table` BEGIN " +
+                    "INSERT INTO `flashcard_fts`(`docid`, `front`, `back`) " +
+                    "VALUES (NEW.`rowid`, NEW.`front`, NEW.`back`); END");
+
+            database.execSQL("INSERT INTO `flashcard_fts`(`flashcard_fts`) VALUES('rebuild')");
+        }
+    };
+
+    // Version 4 adds an index for paging through a deck in cardId order
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_flashcard_table_deck_id_cardId` " +
+                    "ON `flashcard_table` (`deck_id`, `cardId`)");
+        }
+    };
+
+    // Version 5 adds the status counts to decks and the triggers that maintain all deck counts.
+    // The counts of existing decks are recounted, since size may have drifted
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE `deck_table` ADD COLUMN `still_learning_count` INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE `deck_table` ADD COLUMN `learned_count` INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE `deck_table` ADD COLUMN `archived_count` INTEGER NOT NULL DEFAULT 0");
+
+            FlashcardsRoomDatabase.createDeckCountTriggers(database);
+
+            database.execSQL("UPDATE `deck_table` SET " +
+                    "`size` = (SELECT COUNT(*) FROM `flashcard_table` f WHERE f.`deck_id` = `deck_table`.`deck_id`), " +
+                    "`still_learning_count` = (SELECT COUNT(*) FROM `flashcard_table` f " +
+                    "WHERE f.`deck_id` = `deck_table`.`deck_id` AND f.`status` = 'STILL_LEARNING'), " +
+                    "`learned_count` = (SELECT COUNT(*) FROM `flashcard_table` f " +
+                    "WHERE f.`deck_id` = `deck_table`.`deck_id` AND f.`status` = 'LEARNED'), " +
+                    "`archived_count` = (SELECT COUNT(*) FROM `flashcard_table` f " +
+                    "WHERE f.`deck_id` = `deck_table`.`deck_id` AND f.`status` = 'ARCHIVED')");
+        }
+    };
+
+    // Version 6 adds the review log and its indexes for reading it by time range
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `review_log` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `card_id` INTEGER NOT NULL, " +
+                    "`deck_id` INTEGER NOT NULL, `reviewed_at` INTEGER NOT NULL, " +
+                    "`correct` INTEGER NOT NULL, `chosen_answer` TEXT, `response_millis` INTEGER NOT NULL)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_review_log_reviewed_at` " +
+                    "ON `review_log` (`reviewed_at`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_review_log_deck_id_reviewed_at` " +
+                    "ON `review_log` (`deck_id`, `reviewed_at`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_review_log_card_id_reviewed_at` " +
+                    "ON `review_log` (`card_id`, `reviewed_at`)");
+        }
+    };
+
+    // Gives every flashcard without a schedule one that is due now, a chunk of card IDs at a time
+    static final ChunkedMigration SCHEDULE_BACKFILL = new ChunkedMigration("card_schedule_backfill",
+            "flashcard_table", "cardId",
+            "INSERT OR IGNORE INTO `card_schedule` (`card_id`, `deck_id`, `due`, `last_review`, " +
+                    "`stability`, `difficulty`, `ease`, `interval_days`, `reps`, `lapses`) " +
+                    "SELECT `cardId`, `deck_id`, " + FlashcardsRoomDatabase.NOW_MILLIS + ", 0, 0, 0, " +
+                    CardSchedule.INITIAL_EASE + ", 0, 0, 0 FROM `flashcard_table` " +
+                    "WHERE `cardId` > ? AND `cardId` <= ?",
+            CHUNK_SIZE);
+
+    // Version 7 adds the spaced repetition schedule of every flashcard. Existing flashcards are
+    // given a new schedule that is due now by SCHEDULE_BACKFILL, after the database has opened
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `card_schedule` (" +
+                    "`card_id` INTEGER NOT NULL, `deck_id` INTEGER NOT NULL, `due` INTEGER NOT NULL, " +
+                    "`last_review` INTEGER NOT NULL, `stability` REAL NOT NULL, " +
+                    "`difficulty` REAL NOT NULL, `ease` REAL NOT NULL, `interval_days` REAL NOT NULL, " +
+                    "`reps` INTEGER NOT NULL, `lapses` INTEGER NOT NULL, PRIMARY KEY(`card_id`), " +
+                    "FOREIGN KEY(`card_id`) REFERENCES `flashcard_table`(`cardId`) " +
+                    "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_card_schedule_deck_id_due` " +
+                    "ON `card_schedule` (`deck_id`, `due`)");
+
+            FlashcardsRoomDatabase.createScheduleTriggers(database);
+
+            SCHEDULE_BACKFILL.schedule(database);
+        }
+    };
+
+    // Version 8 stores deck_table.time_reviewed as INTEGER epoch milliseconds instead of an ISO
+    // string. SQLite can't change a column's type, so the table is copied into a new one. The times
+    // are parsed in Java, a chunk of decks at a time in deck_id order, so the whole table is never
+    // held in memory. Foreign keys are off during migrations, so dropping the old table doesn't
+    // delete any flashcards. The count triggers update deck_table, so they are made again after
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("DROP TRIGGER IF EXISTS deck_counts_AFTER_INSERT");
+            database.execSQL("DROP TRIGGER IF EXISTS deck_counts_AFTER_DELETE");
+            database.execSQL("DROP TRIGGER IF EXISTS deck_counts_AFTER_UPDATE");
+
+            database.execSQL("CREATE TABLE IF NOT EXISTS `deck_table_new` (" +
+                    "`deck_id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `size` INTEGER NOT NULL, " +
+                    "`still_learning_count` INTEGER NOT NULL DEFAULT 0, " +
+                    "`learned_count` INTEGER NOT NULL DEFAULT 0, " +
+                    "`archived_count` INTEGER NOT NULL DEFAULT 0, " +
+                    "`total_guesses` INTEGER NOT NULL, `total_right` INTEGER NOT NULL, " +
+                    "`title` TEXT, `time_reviewed` INTEGER)");
+            database.execSQL("INSERT INTO `deck_table_new` (`deck_id`, `size`, `still_learning_count`, " +
+                    "`learned_count`, `archived_count`, `total_guesses`, `total_right`, `title`) " +
+                    "SELECT `deck_id`, `size`, `still_learning_count`, `learned_count`, `archived_count`, " +
+                    "`total_guesses`, `total_right`, `title` FROM `deck_table`");
+
+            SupportSQLiteStatement update = database.compileStatement(
+                    "UPDATE `deck_table_new` SET `time_reviewed` = ? WHERE `deck_id` = ?");
+            int lastDeckId = -1;
+            int converted;
+            do {
+                converted = 0;
+                try (Cursor cursor = database.query("SELECT `deck_id`, `time_reviewed` FROM `deck_table` " +
+                        "WHERE `deck_id` > ? ORDER BY `deck_id` LIMIT " + DECK_CHUNK_SIZE,
+                        new Object[]{lastDeckId})) {
+                    while (cursor.moveToNext()) {
+                        lastDeckId = cursor.getInt(0);
+                        Long millis = DatabaseConverter.isoStringToMillis(cursor.getString(1));
+
+                        // A time that can't be parsed is left unknown
+                        if (millis != null) {
+                            update.bindLong(1, millis);
+                            update.bindLong(2, lastDeckId);
+                            update.executeUpdateDelete();
+                        }
+                        converted++;
+                    }
+                }
+            } while (converted == DECK_CHUNK_SIZE);
+
+            // Keep the autoincrement counter, so the IDs of deleted decks aren't given out again
+            database.execSQL("UPDATE `sqlite_sequence` SET `seq` = (SELECT `seq` FROM `sqlite_sequence` " +
+                    "WHERE `name` = 'deck_table') WHERE `name` = 'deck_table_new' " +
+                    "AND EXISTS (SELECT 1 FROM `sqlite_sequence` WHERE `name` = 'deck_table')");
+
+            database.execSQL("DROP TABLE `deck_table`");
+            database.execSQL("ALTER TABLE `deck_table_new` RENAME TO `deck_table`");
+
+            FlashcardsRoomDatabase.createDeckCountTriggers(database);
+        }
+    };
+
+    /**
+     * Every migration, in version order.
+     */
+    public static final Migration[] ALL = {MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5,
+            MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8};
+
+    /**
+     * Every chunked migration. Any that were scheduled and haven't finished are resumed when the
+     * database is opened.
+     */
+    public static final ChunkedMigration[] CHUNKED = {SCHEDULE_BACKFILL};
+}
@@ -0,0 +1,166 @@
+package com.barnes.flashcards.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+
+import com.barnes.flashcards.util.LatencyHistogram;
+import com.barnes.flashcards.util.MetricsRegistry;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Latency and row counts of the database reads, for finding slow screens.
+ *
+ * <p> The repository runs its reads through time(), which records the time and the number of rows
+ * of one call in SAMPLE_RATE in a histogram for that read. Its observable reads and the flashcard
+ * pages are timed the same way. In debug builds, Room's query callback counts the SQL statements
+ * that are run, also sampled, so the statements behind a slow read can be seen. Room does
+ * not report how long a statement took, so the times are only kept per repository method. Reads that
+ * take longer than a frame are also counted as slow. Everything is kept in the MetricsRegistry,
+ * under the names starting with READ_PREFIX, SLOW_READ_PREFIX and STATEMENT_PREFIX. The statistics
+ * can be written to a file with dumpTo(). </p>
+ */
+public final class QueryStats {
+    // One call in SAMPLE_RATE is recorded
+    private static final int SAMPLE_RATE = 4;
+
+    public static final String READ_PREFIX = "read.";
+    public static final String SLOW_READ_PREFIX = "read_slow.";
+    public static final String STATEMENT_PREFIX = "statement.";
+
+    // A read that takes longer than a frame at 60 Hz can make a screen stutter
+    private static final long SLOW_READ_NANOS = 16_000_000;
+
+    // Statements longer than this are cut, so large IN (...) lists don't fill the dump
+    private static final int MAX_STATEMENT_LENGTH = 200;
+
+    private QueryStats() {
+    }
+
+    /**
+     * Runs a read, and records its time and row count if it is sampled.
+     *
+     * <p> A list or other collection counts as its size in rows, null as 0, and anything else as 1. </p>
+     * @param name The name the read is recorded under
+     * @param read The read to run
+     * @param <T> The type of the result
+     * @return Returns the result of the read
+     */
+    public static <T> T time(String name, Supplier<T> read) {
+        if (!isSampled())
+            return read.get();
+
+        long start = System.nanoTime();
+        T result = read.get();
+        long nanos = System.nanoTime() - start;
+
+        long rows = result == null ? 0 : result instanceof Collection ? ((Collection<?>) result).size() : 1;
+        MetricsRegistry.timer(READ_PREFIX + name).record(nanos, rows);
+        if (nanos >= SLOW_READ_NANOS)
+            MetricsRegistry.counter(SLOW_READ_PREFIX + name).increment();
+        return result;
+    }
+
+    /**
+     * The callback given to Room, which counts the statements that are run.
+     */
+    static final RoomDatabase.QueryCallback queryCallback = new RoomDatabase.QueryCallback() {
+        @Override
+        public void onQuery(@NonNull String sqlQuery, @NonNull List<Object> bindArgs) {
+            if (!isSampled())
+                return;
+
+            String statement = sqlQuery.length() > MAX_STATEMENT_LENGTH
+                    ? sqlQuery.substring(0, MAX_STATEMENT_LENGTH) + "..." : sqlQuery;
+            MetricsRegistry.counter(STATEMENT_PREFIX + statement).increment();
+        }
+    };
+
+    private static boolean isSampled() {
+        return ThreadLocalRandom.current().nextInt(SAMPLE_RATE) == 0;
+    }
+
+    /**
+     * Gets the histograms of every read that has been recorded.
+     *
+     * @return A copy of the map of read names to histograms, sorted by name
+     */
+    public static Map<String, LatencyHistogram> getHistograms() {
+        return MetricsRegistry.getTimers(READ_PREFIX);
+    }
+
+    /**
+     * Gets the number of sampled reads of each kind that were slower than a frame.
+     *
+     * @return A map of read names to the number of slow reads, sorted by name
+     */
+    public static Map<String, LongAdder> getSlowReads() {
+        return MetricsRegistry.getCounters(SLOW_READ_PREFIX);
+    }
+
+    /**
+     * Clears every histogram, slow read count and statement count.
+     */
+    public static void reset() {
+        MetricsRegistry.reset(READ_PREFIX);
+        MetricsRegistry.reset(SLOW_READ_PREFIX);
+        MetricsRegistry.reset(STATEMENT_PREFIX);
+    }
+
+    /**
+     * Writes the statistics to a new file.
+     *
+     * @param directory The directory to write the file in
+     * @return Returns the file that was written
+     * @throws IOException If the file can't be written
+     */
+    public static File dumpTo(File directory) throws IOException {
+        File file = new File(directory, "query_stats_" + System.currentTimeMillis() + ".txt");
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+                StandardCharsets.UTF_8))) {
+            dump(writer);
+        }
+        return file;
+    }
+
+    /**
+     * Writes the statistics as text. Each read's histogram is written on its own line, then the
+     * number of slow reads of each kind, then each statement with the number of times it was
+     * sampled, most often first.
+     *
+     * @param writer The writer to write to. It is not closed
+     * @throws IOException If the writer can't be written to
+     */
+    public static void dump(Writer writer) throws IOException {
+        writer.write(String.format(Locale.ROOT, "Reads, sampled 1 in %d%n", SAMPLE_RATE));
+        for (Map.Entry<String, LatencyHistogram> entry : getHistograms().entrySet())
+            writer.write(entry.getKey() + ": " + entry.getValue() + "\n");
+
+        writer.write(String.format(Locale.ROOT, "%nSlow reads, over %d ms%n", SLOW_READ_NANOS / 1_000_000));
+        for (Map.Entry<String, LongAdder> entry : getSlowReads().entrySet())
+            writer.write(entry.getValue().sum() + "\t" + entry.getKey() + "\n");
+
+        List<Map.Entry<String, LongAdder>> counts =
+                new ArrayList<>(MetricsRegistry.getCounters(STATEMENT_PREFIX).entrySet());
+        counts.sort((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()));
+
+        writer.write(String.format(Locale.ROOT, "%nStatements, sampled 1 in %d%n", SAMPLE_RATE));
+        for (Map.Entry<String, LongAdder> entry : counts)
+            writer.write(entry.getValue().sum() + "\t" + entry.getKey() + "\n");
+    }
+}
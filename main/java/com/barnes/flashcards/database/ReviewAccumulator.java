@@ -0,0 +1,151 @@
+package com.barnes.flashcards.database;
+
+import com.barnes.flashcards.scheduler.Rating;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Collects the answers of a review session in memory.
+ *
+ * <p> Answering a flashcard only adds to the counts kept here. The counts are written to the deck
+ * in a single transaction when flush() is called, which is done when the session ends or the review
+ * screen is stopped. The first rating of each flashcard and the time it was given are kept too, and
+ * its schedule is updated from that time in the same transaction. The deck's totals are added to in
+ * the database, so answers from another session of the same deck are never lost. If a flush fails,
+ * its answers are kept for the next one. </p>
+ */
+public class ReviewAccumulator {
+    private final FlashcardsRepository repository;
+    private final int deckId;
+
+    private int guesses = 0;
+    private int right = 0;
+    // The time of the last answer, in epoch milliseconds
+    private long lastAnswered;
+
+    // The first answer of each flashcard answered in the session, by card ID
+    private Map<Integer, Answer> answers = new LinkedHashMap<>();
+
+    /**
+     * The first answer given for a flashcard in a session.
+     */
+    public static final class Answer {
+        private final Rating rating;
+        private final long answeredAt;
+
+        Answer(Rating rating, long answeredAt) {
+            this.rating = rating;
+            this.answeredAt = answeredAt;
+        }
+
+        /**
+         * Getter for rating.
+         *
+         * @return How well the user remembered the flashcard
+         */
+        public Rating getRating() {
+            return rating;
+        }
+
+        /**
+         * Getter for answeredAt.
+         *
+         * @return The time of the answer, in epoch milliseconds
+         */
+        public long getAnsweredAt() {
+            return answeredAt;
+        }
+    }
+
+    /**
+     * Constructor for ReviewAccumulator.
+     *
+     * @param repository The repository to write the answers with
+     * @param deckId The ID of the deck being reviewed
+     */
+    public ReviewAccumulator(FlashcardsRepository repository, int deckId) {
+        this.repository = repository;
+        this.deckId = deckId;
+    }
+
+    /**
+     * Getter for deckId.
+     *
+     * @return The ID of the deck being reviewed
+     */
+    public int getDeckId() {
+        return deckId;
+    }
+
+    /**
+     * Records an answer.
+     *
+     * <p> Only the first answer of a flashcard changes its schedule, so a flashcard that is shown
+     * again after a wrong answer is not scheduled twice. </p>
+     * @param cardId The ID of the flashcard that was answered
+     * @param isCorrect True if the flashcard was answered correctly
+     * @param rating How well the user remembered the flashcard
+     */
+    public synchronized void record(int cardId, boolean isCorrect, Rating rating) {
+        guesses++;
+        if (isCorrect)
+            right++;
+
+        lastAnswered = System.currentTimeMillis();
+        answers.putIfAbsent(cardId, new Answer(rating, lastAnswered));
+    }
+
+    /**
+     * Gets the number of answers that haven't been written yet.
+     *
+     * @return The number of answers waiting to be flushed
+     */
+    public synchronized int getPendingCount() {
+        return guesses;
+    }
+
+    /**
+     * Writes the recorded answers to the deck.
+     *
+     * @return Returns a future that completes once the answers are committed
+     */
+    public CompletableFuture<Void> flush() {
+        int flushGuesses;
+        int flushRight;
+        long flushTime;
+        Map<Integer, Answer> flushAnswers;
+
+        synchronized (this) {
+            if (guesses == 0)
+                return CompletableFuture.completedFuture(null);
+
+            flushGuesses = guesses;
+            flushRight = right;
+            flushTime = lastAnswered;
+            flushAnswers = answers;
+            guesses = 0;
+            right = 0;
+            answers = new LinkedHashMap<>();
+        }
+
+        return repository.addReviews(deckId, flushGuesses, flushRight, flushAnswers, flushTime)
+                .whenComplete((result, e) -> {
+                    if (e == null)
+                        return;
+
+                    // Keep the answers so the next flush writes them
+                    synchronized (this) {
+                        guesses += flushGuesses;
+                        right += flushRight;
+                        lastAnswered = Math.max(lastAnswered, flushTime);
+
+                        // The flushed answers came first, so they win over any given since
+                        for (Map.Entry<Integer, Answer> entry : answers.entrySet())
+                            flushAnswers.putIfAbsent(entry.getKey(), entry.getValue());
+                        answers = flushAnswers;
+                    }
+                });
+    }
+}
@@ -0,0 +1,88 @@
+package com.barnes.flashcards.database;
+
+import com.barnes.flashcards.dao.ReviewLogDao;
+import com.barnes.flashcards.model.ReviewLog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Buffers review log rows and inserts them in bulk.
+ *
+ * <p> Answers are added to an in-memory buffer, which is inserted with a single statement in a
+ * single write once it holds FLUSH_SIZE rows, or when flush() is called at the end of a session.
+ * If an insert fails, its rows are put back at the front of the buffer for the next flush. </p>
+ */
+public class ReviewLogAppender {
+    // The number of buffered rows that causes a flush
+    private static final int FLUSH_SIZE = 32;
+
+    private final WriteQueue writeQueue;
+    private final ReviewLogDao reviewLogDao;
+    private List<ReviewLog> buffer = new ArrayList<>();
+
+    /**
+     * Constructor for ReviewLogAppender.
+     *
+     * @param writeQueue The queue to insert the rows with
+     * @param reviewLogDao The DAO for the review log table
+     */
+    public ReviewLogAppender(WriteQueue writeQueue, ReviewLogDao reviewLogDao) {
+        this.writeQueue = writeQueue;
+        this.reviewLogDao = reviewLogDao;
+    }
+
+    /**
+     * Adds a row to the buffer, and flushes the buffer if it is full.
+     *
+     * @param log The row to add
+     */
+    public void append(ReviewLog log) {
+        boolean isFull;
+        synchronized (this) {
+            buffer.add(log);
+            isFull = buffer.size() >= FLUSH_SIZE;
+        }
+
+        if (isFull)
+            flush();
+    }
+
+    /**
+     * Gets the number of rows waiting to be inserted.
+     *
+     * @return The number of buffered rows
+     */
+    public synchronized int getBufferedCount() {
+        return buffer.size();
+    }
+
+    /**
+     * Inserts every buffered row.
+     *
+     * @return Returns a future that completes once the rows are committed
+     */
+    public CompletableFuture<Void> flush() {
+        List<ReviewLog> logs;
+        synchronized (this) {
+            if (buffer.isEmpty())
+                return CompletableFuture.completedFuture(null);
+
+            logs = buffer;
+            buffer = new ArrayList<>();
+        }
+
+        return writeQueue.execute(() -> reviewLogDao.insertAll(logs))
+                .whenComplete((result, e) -> {
+                    if (e == null)
+                        return;
+
+                    // Keep the rows, in order, so the next flush inserts them
+                    synchronized (this) {
+                        logs.addAll(buffer);
+                        buffer = logs;
+                    }
+                });
+    }
+}
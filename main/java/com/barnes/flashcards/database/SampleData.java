@@ -0,0 +1,58 @@
+package com.barnes.flashcards.database;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import com.barnes.flashcards.model.Flashcard;
+
+/**
+ * Sample decks and flashcards for a new install.
+ *
+ * <p> The rows are written with two prepared statements instead of through the DAOs, so they can be
+ * written inside Room's onCreate callback, in the same transaction that creates the tables. The
+ * first query waits for the database to be created, so it always sees the sample decks. The deck
+ * counts and flashcard schedules are filled in by the triggers as the flashcards are inserted. </p>
+ */
+public final class SampleData {
+    private static final int DECK_COUNT = 5;
+
+    // Only the first decks are given flashcards, so the others show what an empty deck looks like
+    private static final int DECKS_WITH_FLASHCARDS = 2;
+    private static final int FLASHCARDS_PER_DECK = 10;
+
+    private SampleData() {
+    }
+
+    /**
+     * Writes the sample decks and flashcards.
+     *
+     * <p> The caller must be in a transaction, and the triggers must already exist. </p>
+     * @param database The database to write to
+     */
+    public static void insertInto(SupportSQLiteDatabase database) {
+        long now = System.currentTimeMillis();
+
+        SupportSQLiteStatement insertDeck = database.compileStatement("INSERT INTO `deck_table` " +
+                "(`size`, `still_learning_count`, `learned_count`, `archived_count`, `total_guesses`, " +
+                "`total_right`, `title`, `time_reviewed`) VALUES (0, 0, 0, 0, 0, 0, ?, ?)");
+        SupportSQLiteStatement insertFlashcard = database.compileStatement("INSERT INTO `flashcard_table` " +
+                "(`front`, `back`, `status`, `deck_id`) VALUES (?, ?, ?, ?)");
+
+        for (int deck = 1; deck <= DECK_COUNT; deck++) {
+            insertDeck.bindString(1, "Deck " + deck);
+            insertDeck.bindLong(2, now);
+            long deckId = insertDeck.executeInsert();
+
+            if (deck > DECKS_WITH_FLASHCARDS)
+                continue;
+
+            for (int card = 1; card <= FLASHCARDS_PER_DECK; card++) {
+                insertFlashcard.bindString(1, "deck " + deck + " front " + card);
+                insertFlashcard.bindString(2, "deck " + deck + " back " + card);
+                insertFlashcard.bindString(3, DatabaseConverter.fromStatus(Flashcard.Status.STILL_LEARNING));
+                insertFlashcard.bindLong(4, deckId);
+                insertFlashcard.executeInsert();
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.barnes.flashcards.database;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.room.InvalidationTracker;
+
+import java.lang.ref.WeakReference;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * An observable read that is timed by QueryStats.
+ *
+ * <p> Room runs the query of a LiveData returned by a DAO itself, where it can't be timed. This
+ * class runs a plain DAO read through QueryStats.time() instead, on the database's query executor,
+ * and otherwise behaves like Room's LiveData: the read is run when the LiveData becomes active, and
+ * again when one of its tables changes while it is active. A change while it is inactive is only
+ * read once something observes it again, and changes that arrive during a read share the next read.
+ * The invalidation observer only holds the LiveData weakly, so a LiveData that is no longer used
+ * can be collected, and its observer removes itself the next time its tables change. </p>
+ *
+ * @param <T> The type of the value read
+ */
+class TimedLiveData<T> extends LiveData<T> {
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final FlashcardsRoomDatabase database;
+    private final String name;
+    private final Supplier<T> read;
+
+    // The invalidation tracker holds the observer, so it must be kept here while this is in use
+    private final WeakObserver observer;
+
+    // True when the value may be out of date, and true before the first read
+    private final AtomicBoolean isInvalid = new AtomicBoolean(true);
+    private final AtomicBoolean isReading = new AtomicBoolean(false);
+
+    /**
+     * Constructor for TimedLiveData.
+     *
+     * @param database The database to read from
+     * @param name The name the read is recorded under in QueryStats
+     * @param read The read to run
+     * @param tables The tables whose changes make the value out of date
+     */
+    TimedLiveData(FlashcardsRoomDatabase database, String name, Supplier<T> read, String... tables) {
+        this.database = database;
+        this.name = name;
+        this.read = read;
+
+        observer = new WeakObserver(this, database.getInvalidationTracker(), tables);
+        database.getInvalidationTracker().addObserver(observer);
+    }
+
+    @Override
+    protected void onActive() {
+        database.getQueryExecutor().execute(this::refresh);
+    }
+
+    // Called on the main thread after one of the tables changed
+    private void onInvalidated() {
+        isInvalid.set(true);
+        if (hasActiveObservers())
+            database.getQueryExecutor().execute(this::refresh);
+    }
+
+    // Read the value again while it is out of date. A change during a read is picked up by the
+    // loop, or by the read that the change started if this one had already finished
+    private void refresh() {
+        boolean hasRead;
+        do {
+            hasRead = false;
+            if (isReading.compareAndSet(false, true)) {
+                try {
+                    T value = null;
+                    while (isInvalid.compareAndSet(true, false)) {
+                        hasRead = true;
+                        value = QueryStats.time(name, read);
+                    }
+                    if (hasRead)
+                        postValue(value);
+                } finally {
+                    isReading.set(false);
+                }
+            }
+        } while (hasRead && isInvalid.get());
+    }
+
+    // Tells the LiveData about changes on the main thread, where it can check for observers, and
+    // removes itself once the LiveData has been collected
+    private static class WeakObserver extends InvalidationTracker.Observer {
+        private final WeakReference<TimedLiveData<?>> liveData;
+        private final InvalidationTracker tracker;
+
+        WeakObserver(TimedLiveData<?> liveData, InvalidationTracker tracker, String[] tables) {
+            super(tables);
+            this.liveData = new WeakReference<>(liveData);
+            this.tracker = tracker;
+        }
+
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            TimedLiveData<?> target = liveData.get();
+            if (target == null) {
+                tracker.removeObserver(this);
+                return;
+            }
+
+            mainHandler.post(target::onInvalidated);
+        }
+    }
+}
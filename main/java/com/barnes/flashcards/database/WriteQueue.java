@@ -0,0 +1,230 @@
+package com.barnes.flashcards.database;
+
+import android.util.Log;
+
+import androidx.room.RoomDatabase;
+
+import com.barnes.flashcards.util.LatencyHistogram;
+import com.barnes.flashcards.util.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Single writer for the database.
+ *
+ * <p> SQLite only allows one writer at a time, so every write goes through this queue and is run
+ * by a single thread in the order it was submitted. Writes that are waiting when the writer becomes
+ * free are committed together in one transaction, which saves a disk sync for each of them. Every
+ * write returns a future that completes after its transaction has been committed, so a caller can
+ * wait for its write before reading it back or moving to the next screen. </p>
+ *
+ * <p> If a write throws, its transaction is rolled back with every other write in the batch. The
+ * write that threw fails with what it threw, without being run again, and each of the others is
+ * run again in a transaction of its own. A write may therefore run twice, so it must only change
+ * the database: anything else it does, such as posting a value or deleting a file, would happen
+ * twice or be left behind by the rollback. Work like that belongs in a stage chained on the
+ * returned future, which only runs after the commit. A failing batch never stops the writer
+ * thread. </p>
+ *
+ * <p> The writer thread runs until shutdown() is called. The app's queue lives as long as the
+ * process, but a queue made for a test or a temporary database should be shut down when it is no
+ * longer used. </p>
+ */
+public class WriteQueue {
+    private static final String TAG = "WriteQueue";
+
+    // The most writes committed in a single transaction
+    private static final int MAX_BATCH_SIZE = 64;
+
+    private final RoomDatabase database;
+    private final BlockingQueue<Write<?>> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    // Queued by shutdown() after the last write. Nothing is queued after it
+    private final Write<Void> stop = new Write<>(() -> null);
+
+    // Guarded by queue, so no write can be queued after stop
+    private boolean isShutdown = false;
+
+    // The time of each committed batch, with the number of writes in it as its rows
+    private final LatencyHistogram transactionTimer = MetricsRegistry.timer("write_queue.transaction");
+
+    /**
+     * Constructor for WriteQueue. Starts the writer thread.
+     *
+     * @param database The database to write to
+     */
+    public WriteQueue(RoomDatabase database) {
+        this.database = database;
+
+        writer = new Thread(this::writeLoop, "flashcards-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Adds a write that returns a result to the queue.
+     *
+     * @param write The write to run in the writer thread
+     * @param <T> The type of the result
+     * @return Returns a future that completes with the result once the write is committed, or fails
+     *         with a RejectedExecutionException if the queue has been shut down
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> write) {
+        Write<T> task = new Write<>(write);
+        synchronized (queue) {
+            if (isShutdown)
+                task.future.completeExceptionally(new RejectedExecutionException("The write queue is shut down"));
+            else
+                queue.add(task);
+        }
+        return task.future;
+    }
+
+    /**
+     * Adds a write to the queue.
+     *
+     * @param write The write to run in the writer thread
+     * @return Returns a future that completes once the write is committed
+     */
+    public CompletableFuture<Void> execute(Runnable write) {
+        return submit(() -> {
+            write.run();
+            return null;
+        });
+    }
+
+    /**
+     * Stops the writer thread once the writes already queued have been committed.
+     *
+     * <p> Writes submitted after this fail straight away. Calling it more than once does nothing.
+     * </p>
+     */
+    public void shutdown() {
+        synchronized (queue) {
+            if (isShutdown)
+                return;
+            isShutdown = true;
+            queue.add(stop);
+        }
+    }
+
+    /**
+     * Waits for the writer thread to stop after shutdown().
+     *
+     * @param timeoutMillis The longest time to wait, in milliseconds
+     * @return Returns true if the writer thread has stopped
+     * @throws InterruptedException If the waiting thread is interrupted
+     */
+    public boolean awaitTermination(long timeoutMillis) throws InterruptedException {
+        writer.join(timeoutMillis);
+        return !writer.isAlive();
+    }
+
+    /**
+     * Gets the number of writes waiting to be run.
+     *
+     * @return The number of queued writes
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    // Take the next write, add whatever else is waiting, and commit them together
+    private void writeLoop() {
+        List<Write<?>> batch = new ArrayList<>();
+
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+
+            // stop is always the last write queued, so it can only be at the end of a batch
+            boolean isStopping = batch.get(batch.size() - 1) == stop;
+            if (isStopping)
+                batch.remove(batch.size() - 1);
+            if (batch.isEmpty())
+                return;
+
+            try {
+                long start = System.nanoTime();
+                database.runInTransaction(() -> {
+                    for (Write<?> write : batch)
+                        write.run();
+                });
+                transactionTimer.record(System.nanoTime() - start, batch.size());
+
+                for (Write<?> write : batch)
+                    write.complete();
+            } catch (Throwable e) {
+                // One of the writes, or the commit, failed and the whole batch was rolled back.
+                // The write that threw fails as it is, and the rest are run again in their own
+                // transactions so they don't fail with it
+                Log.w(TAG, "Batch of " + batch.size() + " writes failed, retrying them one at a time", e);
+                for (Write<?> write : batch) {
+                    if (write.error != null)
+                        write.future.completeExceptionally(write.error);
+                    else
+                        runAlone(write);
+                }
+            }
+
+            batch.clear();
+            if (isStopping)
+                return;
+        }
+    }
+
+    private void runAlone(Write<?> write) {
+        try {
+            database.runInTransaction(write::run);
+            write.complete();
+        } catch (Throwable e) {
+            write.future.completeExceptionally(write.error != null ? write.error : e);
+        }
+    }
+
+    /**
+     * A queued write and the future for its result.
+     *
+     * @param <T> The type of the result
+     */
+    private static class Write<T> {
+        private final Callable<T> callable;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+
+        // What the write threw, if it failed. Only used in the writer thread
+        private Throwable error;
+
+        Write(Callable<T> callable) {
+            this.callable = callable;
+        }
+
+        void run() {
+            try {
+                result = callable.call();
+            } catch (RuntimeException | Error e) {
+                error = e;
+                throw e;
+            } catch (Exception e) {
+                error = e;
+                throw new RuntimeException(e);
+            }
+        }
+
+        // Only called after the transaction that ran the write has been committed
+        void complete() {
+            future.complete(result);
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package com.barnes.flashcards.io;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.text.Html;
+
+import com.barnes.flashcards.dao.DeckDao;
+import com.barnes.flashcards.dao.FlashcardDao;
+import com.barnes.flashcards.database.WriteQueue;
+import com.barnes.flashcards.model.Deck;
+import com.barnes.flashcards.model.Flashcard;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Imports an Anki .apkg package.
+ *
+ * <p> A package is a zip file holding the Anki collection, which is an SQLite database, and its
+ * media. The zip is read as a stream and only the collection is written to a temporary file, since
+ * SQLite can only open files. The collection is then read with a cursor, one note at a time. Each
+ * note becomes a flashcard with the note's first field as its front and its second field as its
+ * back, in a deck with the same name as the Anki deck of the note's first card. Decks that already
+ * exist with that name are added to. Media is not imported. </p>
+ *
+ * <p> A note whose front is the same as the front of an existing flashcard, or of a note imported
+ * before it, is skipped. Fronts are compared by a 64-bit hash of their trimmed, lower case text,
+ * kept in a LongHashSet, so the whole flashcard table is never loaded as text. The flashcards are
+ * inserted in batches by a FlashcardBatchWriter, so the memory used doesn't grow with the size of
+ * the collection. </p>
+ */
+public class AnkiImporter {
+    // Newer packages have collection.anki21, older ones only collection.anki2
+    private static final String COLLECTION_21 = "collection.anki21";
+    private static final String COLLECTION_2 = "collection.anki2";
+
+    // Packages from Anki 2.1.50 and later may only have a zstd compressed collection.anki21b
+    private static final String COLLECTION_21B = "collection.anki21b";
+
+    // Anki separates the fields of a note with the unit separator character
+    private static final String FIELD_SEPARATOR = "\u001f";
+
+    // The number of existing fronts read by each query when building the hash index
+    private static final int FRONT_CHUNK_SIZE = 5000;
+
+    // Cards in the review queue with an interval of at least this many days are counted as learned
+    private static final int LEARNED_INTERVAL_DAYS = 21;
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Listens for the progress of an import.
+     */
+    public interface ProgressListener {
+        /**
+         * Called after each batch is committed, on the importing thread.
+         *
+         * @param notesRead The number of notes read so far
+         * @param noteCount The number of notes in the collection
+         * @param imported The number of flashcards inserted so far
+         */
+        void onProgress(long notesRead, long noteCount, long imported);
+    }
+
+    private final WriteQueue writeQueue;
+    private final DeckDao deckDao;
+    private final FlashcardDao flashcardDao;
+    private final File tempDirectory;
+
+    /**
+     * Constructor for AnkiImporter.
+     *
+     * @param writeQueue The queue to insert the decks and flashcards with
+     * @param deckDao The DAO for the deck table
+     * @param flashcardDao The DAO for the flashcard table
+     * @param tempDirectory The directory to extract the collection to, usually the cache directory
+     */
+    public AnkiImporter(WriteQueue writeQueue, DeckDao deckDao, FlashcardDao flashcardDao, File tempDirectory) {
+        this.writeQueue = writeQueue;
+        this.deckDao = deckDao;
+        this.flashcardDao = flashcardDao;
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * Imports every note in a package.
+     *
+     * <p> This should be run in a background thread. The stream is not closed. </p>
+     * @param input The .apkg file to read
+     * @param listener Told after each batch is committed, or null
+     * @return Returns the number of notes imported and skipped
+     * @throws IOException If the package can't be read, or the thread was interrupted
+     */
+    public Result importPackage(InputStream input, ProgressListener listener) throws IOException {
+        File collection = File.createTempFile("anki", ".db", tempDirectory);
+        try {
+            extractCollection(input, collection);
+            return importCollection(collection, listener);
+        } finally {
+            // SQLite may have made a journal next to the file
+            collection.delete();
+            new File(collection.getPath() + "-journal").delete();
+        }
+    }
+
+    // Copies the collection out of the zip, skipping the media
+    private static void extractCollection(InputStream input, File collection) throws IOException {
+        ZipInputStream zip = new ZipInputStream(input);
+        String extracted = null;
+        boolean hasCompressed = false;
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            String name = entry.getName();
+            if (name.equals(COLLECTION_21B))
+                hasCompressed = true;
+
+            // Prefer collection.anki21, which is newer when a package has both
+            boolean isWanted = name.equals(COLLECTION_21)
+                    || (name.equals(COLLECTION_2) && !COLLECTION_21.equals(extracted));
+            if (!isWanted)
+                continue;
+
+            try (OutputStream output = new FileOutputStream(collection)) {
+                int read;
+                while ((read = zip.read(buffer)) != -1)
+                    output.write(buffer, 0, read);
+            }
+            extracted = name;
+        }
+
+        if (extracted == null) {
+            throw new IOException(hasCompressed
+                    ? "Packages with only a compressed collection aren't supported. Export from Anki " +
+                    "with \"Support older Anki versions\" checked"
+                    : "The file is not an Anki package");
+        }
+    }
+
+    private Result importCollection(File collection, ProgressListener listener) throws IOException {
+        Result result = new Result();
+        LongHashSet fronts = loadFrontHashes();
+        Map<Long, Integer> deckIds = new HashMap<>();
+
+        SQLiteDatabase anki = SQLiteDatabase.openDatabase(collection.getPath(), null,
+                SQLiteDatabase.OPEN_READONLY);
+        try {
+            Map<Long, String> deckNames = readDeckNames(anki);
+            long noteCount = count(anki, "SELECT COUNT(*) FROM notes");
+            Map<String, Integer> existingDecks = new HashMap<>();
+            for (Deck deck : deckDao.getAllDecks())
+                existingDecks.putIfAbsent(deck.getTitle(), deck.getDeckId());
+
+            FlashcardBatchWriter writer = new FlashcardBatchWriter(writeQueue, flashcardDao, inserted -> {
+                if (listener != null)
+                    listener.onProgress(result.notesRead, noteCount, inserted);
+            });
+
+            // The deck and status of a note come from its first card
+            try (Cursor cursor = anki.rawQuery("SELECT n.flds, c.did, c.queue, c.type, c.ivl FROM notes n " +
+                    "JOIN cards c ON c.id = (SELECT id FROM cards WHERE nid = n.id ORDER BY ord LIMIT 1)",
+                    null)) {
+                while (cursor.moveToNext()) {
+                    result.notesRead++;
+
+                    String[] fields = cursor.getString(0).split(FIELD_SEPARATOR, -1);
+                    String front = fields.length > 0 ? toPlainText(fields[0]) : "";
+                    String back = fields.length > 1 ? toPlainText(fields[1]) : "";
+                    if (front.isEmpty() || back.isEmpty()) {
+                        result.skipped++;
+                        continue;
+                    }
+
+                    if (!fronts.add(hashFront(front))) {
+                        result.duplicates++;
+                        continue;
+                    }
+
+                    long ankiDeckId = cursor.getLong(1);
+                    Integer deckId = deckIds.get(ankiDeckId);
+                    if (deckId == null) {
+                        deckId = findOrCreateDeck(deckNames.get(ankiDeckId), existingDecks);
+                        deckIds.put(ankiDeckId, deckId);
+                    }
+
+                    Flashcard.Status status = toStatus(cursor.getInt(2), cursor.getInt(3), cursor.getInt(4));
+                    writer.add(new Flashcard(0, front, back, status, deckId));
+                }
+
+                result.imported = writer.finish();
+            } finally {
+                writer.abandon();
+            }
+        } finally {
+            anki.close();
+        }
+
+        result.decks = deckIds.size();
+        return result;
+    }
+
+    // Hashes the front of every existing flashcard, reading them a chunk at a time
+    private LongHashSet loadFrontHashes() {
+        LongHashSet fronts = new LongHashSet(flashcardDao.getFlashcardCount());
+        int afterId = -1;
+        int rows;
+
+        do {
+            rows = 0;
+            try (Cursor cursor = flashcardDao.getFrontCursor(afterId, FRONT_CHUNK_SIZE)) {
+                while (cursor.moveToNext()) {
+                    afterId = cursor.getInt(0);
+                    String front = cursor.getString(1);
+                    if (front != null)
+                        fronts.add(hashFront(front.trim()));
+                    rows++;
+                }
+            }
+        } while (rows == FRONT_CHUNK_SIZE);
+
+        return fronts;
+    }
+
+    // Anki keeps its decks in a decks table since schema 18, and as JSON in col.decks before that
+    private static Map<Long, String> readDeckNames(SQLiteDatabase anki) throws IOException {
+        Map<Long, String> names = new HashMap<>();
+
+        if (count(anki, "SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name = 'decks'") > 0) {
+            try (Cursor cursor = anki.rawQuery("SELECT id, name FROM decks", null)) {
+                while (cursor.moveToNext())
+                    names.put(cursor.getLong(0), cursor.getString(1).replace(FIELD_SEPARATOR, "::"));
+            }
+        }
+
+        if (names.isEmpty()) {
+            try (Cursor cursor = anki.rawQuery("SELECT decks FROM col LIMIT 1", null)) {
+                if (cursor.moveToFirst() && !cursor.isNull(0)) {
+                    JSONObject decks = new JSONObject(cursor.getString(0));
+                    for (Iterator<String> keys = decks.keys(); keys.hasNext(); ) {
+                        JSONObject deck = decks.getJSONObject(keys.next());
+                        names.put(deck.getLong("id"), deck.getString("name"));
+                    }
+                }
+            } catch (JSONException e) {
+                throw new IOException("The Anki decks could not be read", e);
+            }
+        }
+
+        return names;
+    }
+
+    // Adds to the deck with the same title, or creates one. The deck must exist before its
+    // flashcards are queued, so this waits for the insert
+    private int findOrCreateDeck(String name, Map<String, Integer> existingDecks) throws IOException {
+        String title = name == null || name.isEmpty() ? "Anki" : name;
+        Integer deckId = existingDecks.get(title);
+        if (deckId != null)
+            return deckId;
+
+        Deck deck = new Deck();
+        deck.setTitle(title);
+        try {
+            deckId = writeQueue.submit(() -> (int) deckDao.insert(deck)).join();
+        } catch (CompletionException e) {
+            throw new IOException("Could not create deck " + title, e.getCause());
+        }
+
+        existingDecks.put(title, deckId);
+        return deckId;
+    }
+
+    private static long count(SQLiteDatabase database, String sql) {
+        try (Cursor cursor = database.rawQuery(sql, null)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    // Suspended cards are archived, and mature review cards are learned
+    private static Flashcard.Status toStatus(int queue, int type, int interval) {
+        if (queue == -1)
+            return Flashcard.Status.ARCHIVED;
+        if (type == 2 && interval >= LEARNED_INTERVAL_DAYS)
+            return Flashcard.Status.LEARNED;
+        return Flashcard.Status.STILL_LEARNING;
+    }
+
+    // Anki fields are HTML. Only fields with tags or entities are parsed, since most are plain text
+    static String toPlainText(String field) {
+        String text = field.replaceAll("\\[sound:[^\\]]*]", "");
+        if (text.indexOf('<') >= 0 || text.indexOf('&') >= 0)
+            text = Html.fromHtml(text, Html.FROM_HTML_MODE_LEGACY).toString();
+        return text.trim();
+    }
+
+    // 64-bit FNV-1a hash of the lower case front. The chance of two different fronts colliding is
+    // negligible for any number of flashcards a phone can hold
+    static long hashFront(String front) {
+        String text = front.toLowerCase(Locale.ROOT);
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * The outcome of an import.
+     */
+    public static class Result {
+        private long notesRead;
+        private long imported;
+        private long duplicates;
+        private long skipped;
+        private int decks;
+
+        /**
+         * Getter for notesRead.
+         *
+         * @return The number of notes in the package
+         */
+        public long getNotesRead() {
+            return notesRead;
+        }
+
+        /**
+         * Getter for imported.
+         *
+         * @return The number of flashcards inserted
+         */
+        public long getImported() {
+            return imported;
+        }
+
+        /**
+         * Getter for duplicates.
+         *
+         * @return The number of notes skipped because a flashcard already had their front
+         */
+        public long getDuplicates() {
+            return duplicates;
+        }
+
+        /**
+         * Getter for skipped.
+         *
+         * @return The number of notes skipped because they had no front or back
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Getter for decks.
+         *
+         * @return The number of decks the flashcards were added to
+         */
+        public int getDecks() {
+            return decks;
+        }
+    }
+}
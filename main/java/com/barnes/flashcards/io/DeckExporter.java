@@ -0,0 +1,251 @@
+package com.barnes.flashcards.io;
+
+import android.database.Cursor;
+
+import com.barnes.flashcards.dao.FlashcardDao;
+import com.barnes.flashcards.model.Deck;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Exports decks to CSV or JSON.
+ *
+ * <p> The flashcards are read with a cursor, CHUNK_SIZE at a time in cardId order, and each row is
+ * written straight to a buffered stream, so no list of flashcards is ever built and a deck of any
+ * size is exported in constant memory. Each chunk is its own short query, so the export never
+ * holds a lock that would stop the user's writes. A flashcard added or deleted during the export may
+ * or may not be in the file, but no flashcard is written twice. </p>
+ *
+ * <p> CSV files have the columns front, back, status and deck, so they can be imported again with
+ * DelimitedImporter. JSON files are an object with a "decks" array, each deck holding its title and
+ * a "flashcards" array. </p>
+ */
+public class DeckExporter {
+    // The number of flashcards read by each query
+    public static final int CHUNK_SIZE = 1000;
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The file formats decks can be exported to.
+     */
+    public enum Format {
+        CSV("text/csv", ".csv"),
+        JSON("application/json", ".json");
+
+        private final String mimeType;
+        private final String extension;
+
+        Format(String mimeType, String extension) {
+            this.mimeType = mimeType;
+            this.extension = extension;
+        }
+
+        /**
+         * Getter for mimeType.
+         *
+         * @return The MIME type of the format
+         */
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        /**
+         * Getter for extension.
+         *
+         * @return The file extension of the format, including the dot
+         */
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Listens for the progress of an export.
+     */
+    public interface ProgressListener {
+        /**
+         * Called after each deck is written, on the exporting thread.
+         *
+         * @param decksExported The number of decks written so far
+         * @param deckCount The number of decks being exported
+         * @param flashcardsExported The number of flashcards written so far
+         */
+        void onDeckExported(int decksExported, int deckCount, long flashcardsExported);
+    }
+
+    private final FlashcardDao flashcardDao;
+
+    /**
+     * Constructor for DeckExporter.
+     *
+     * @param flashcardDao The DAO for the flashcard table
+     */
+    public DeckExporter(FlashcardDao flashcardDao) {
+        this.flashcardDao = flashcardDao;
+    }
+
+    /**
+     * Writes decks and their flashcards to a stream.
+     *
+     * <p> This should be run in a background thread. The stream is flushed but not closed. </p>
+     * @param decks The decks to export
+     * @param output The stream to write to
+     * @param format The format to write
+     * @param listener Told after each deck is written, or null
+     * @return Returns the number of flashcards written
+     * @throws IOException If the stream can't be written, or the thread was interrupted
+     */
+    public long export(List<Deck> decks, OutputStream output, Format format, ProgressListener listener)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8),
+                WRITE_BUFFER_SIZE);
+        long exported = 0;
+
+        if (format == Format.CSV)
+            writer.write("front,back,status,deck\n");
+        else
+            writer.write("{\"decks\":[");
+
+        for (int i = 0; i < decks.size(); i++) {
+            if (Thread.currentThread().isInterrupted())
+                throw new InterruptedIOException("Export was interrupted");
+
+            Deck deck = decks.get(i);
+            if (format == Format.CSV) {
+                exported += writeCsvDeck(deck, writer);
+            } else {
+                if (i > 0)
+                    writer.write(',');
+                exported += writeJsonDeck(deck, writer);
+            }
+
+            if (listener != null)
+                listener.onDeckExported(i + 1, decks.size(), exported);
+        }
+
+        if (format == Format.JSON)
+            writer.write("]}\n");
+        writer.flush();
+
+        return exported;
+    }
+
+    private long writeCsvDeck(Deck deck, Writer writer) throws IOException {
+        String title = csvField(deck.getTitle());
+        long written = 0;
+        int afterId = -1;
+        int rows;
+
+        do {
+            rows = 0;
+            try (Cursor cursor = flashcardDao.getExportCursor(deck.getDeckId(), afterId, CHUNK_SIZE)) {
+                while (cursor.moveToNext()) {
+                    afterId = cursor.getInt(0);
+                    writer.write(csvField(cursor.getString(1)));
+                    writer.write(',');
+                    writer.write(csvField(cursor.getString(2)));
+                    writer.write(',');
+                    writer.write(csvField(cursor.getString(3)));
+                    writer.write(',');
+                    writer.write(title);
+                    writer.write('\n');
+                    rows++;
+                }
+            }
+            written += rows;
+        } while (rows == CHUNK_SIZE);
+
+        return written;
+    }
+
+    private long writeJsonDeck(Deck deck, Writer writer) throws IOException {
+        writer.write("{\"id\":");
+        writer.write(Integer.toString(deck.getDeckId()));
+        writer.write(",\"title\":");
+        writeJsonString(deck.getTitle(), writer);
+        writer.write(",\"flashcards\":[");
+
+        long written = 0;
+        int afterId = -1;
+        int rows;
+
+        do {
+            rows = 0;
+            try (Cursor cursor = flashcardDao.getExportCursor(deck.getDeckId(), afterId, CHUNK_SIZE)) {
+                while (cursor.moveToNext()) {
+                    afterId = cursor.getInt(0);
+                    if (written + rows > 0)
+                        writer.write(',');
+                    writer.write("{\"front\":");
+                    writeJsonString(cursor.getString(1), writer);
+                    writer.write(",\"back\":");
+                    writeJsonString(cursor.getString(2), writer);
+                    writer.write(",\"status\":");
+                    writeJsonString(cursor.getString(3), writer);
+                    writer.write('}');
+                    rows++;
+                }
+            }
+            written += rows;
+        } while (rows == CHUNK_SIZE);
+
+        writer.write("]}");
+        return written;
+    }
+
+    // Quotes a field if it has a comma, quote or line break in it
+    static String csvField(String value) {
+        if (value == null)
+            return "";
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r')
+                return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    static void writeJsonString(String value, Writer writer) throws IOException {
+        if (value == null) {
+            writer.write("null");
+            return;
+        }
+
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                        writer.write(String.format("\\u%04x", (int) c));
+                    else
+                        writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,293 @@
+package com.barnes.flashcards.io;
+
+import com.barnes.flashcards.dao.FlashcardDao;
+import com.barnes.flashcards.database.WriteQueue;
+import com.barnes.flashcards.model.Flashcard;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Imports flashcards into a deck from a CSV or TSV file.
+ *
+ * <p> Each row is a flashcard's front, back and, optionally, status. The delimiter is taken from
+ * the file's type or name, or detected from its first row when they don't say. A first row of
+ * "front" and "back" is taken as a header and skipped. The file is read as a stream and the
+ * flashcards are inserted in batches by a FlashcardBatchWriter, so a large file never fills the
+ * heap. If the import fails or is interrupted, the batches before it are kept. The deck counts are
+ * kept up to date by the flashcard table's triggers in the same transaction as each batch. </p>
+ */
+public class DelimitedImporter {
+    // The most bytes read from the start of a file to detect its format
+    private static final int DETECT_LIMIT = 8192;
+
+    /**
+     * The file formats that can be imported.
+     */
+    public enum Format {
+        CSV(','),
+        TSV('\t');
+
+        private final char delimiter;
+
+        Format(char delimiter) {
+            this.delimiter = delimiter;
+        }
+
+        /**
+         * Chooses a format from a file's MIME type or name.
+         *
+         * <p> Only a type or an extension that names the format is trusted. A ".txt" or "text/plain"
+         * file can use either delimiter, so null is returned for it and importInto() detects the
+         * format from the file itself. </p>
+         * @param mimeType The MIME type of the file, or null if it is unknown
+         * @param fileName The name of the file, or null if it is unknown
+         * @return Returns TSV or CSV, or null if the type and name don't say which
+         */
+        public static Format fromFile(String mimeType, String fileName) {
+            if ("text/tab-separated-values".equals(mimeType))
+                return TSV;
+            if ("text/csv".equals(mimeType) || "text/comma-separated-values".equals(mimeType))
+                return CSV;
+            if (fileName != null) {
+                String name = fileName.toLowerCase(Locale.ROOT);
+                if (name.endsWith(".tsv") || name.endsWith(".tab"))
+                    return TSV;
+                if (name.endsWith(".csv"))
+                    return CSV;
+            }
+            return null;
+        }
+
+        /**
+         * Detects the format from the start of a file.
+         *
+         * <p> The tabs and commas in the first row are counted, leaving out any inside quotes, and
+         * the file is TSV if it has at least as many tabs as commas. A first row with neither is read
+         * as CSV. </p>
+         * @param text The start of the file, at least up to the end of its first row if it has one
+         * @return Returns TSV or CSV
+         */
+        public static Format detect(String text) {
+            int tabs = 0;
+            int commas = 0;
+            boolean isQuoted = false;
+
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"')
+                    isQuoted = !isQuoted;
+                else if (isQuoted)
+                    continue;
+                else if (c == '\n' || c == '\r')
+                    break;
+                else if (c == '\t')
+                    tabs++;
+                else if (c == ',')
+                    commas++;
+            }
+
+            return tabs > 0 && tabs >= commas ? TSV : CSV;
+        }
+    }
+
+    /**
+     * Listens for the progress of an import.
+     */
+    public interface ProgressListener {
+        /**
+         * Called after each batch is committed, on the importing thread.
+         *
+         * @param imported The number of flashcards inserted so far
+         * @param bytesRead The number of bytes of the file read so far
+         */
+        void onProgress(long imported, long bytesRead);
+    }
+
+    private final WriteQueue writeQueue;
+    private final FlashcardDao flashcardDao;
+
+    /**
+     * Constructor for DelimitedImporter.
+     *
+     * @param writeQueue The queue to insert the flashcards with
+     * @param flashcardDao The DAO for the flashcard table
+     */
+    public DelimitedImporter(WriteQueue writeQueue, FlashcardDao flashcardDao) {
+        this.writeQueue = writeQueue;
+        this.flashcardDao = flashcardDao;
+    }
+
+    /**
+     * Imports every flashcard in a file into a deck.
+     *
+     * <p> This should be run in a background thread. Rows without a front or a back are skipped,
+     * and a missing or unknown status is read as still learning. The stream is not closed. </p>
+     * @param deckId The ID of the deck to add the flashcards to
+     * @param input The file to read
+     * @param format The format of the file, or null to detect it from the file's first row
+     * @param listener Told after each batch is committed, or null
+     * @return Returns the number of flashcards imported and rows skipped
+     * @throws IOException If the file can't be read, or the thread was interrupted
+     */
+    public Result importInto(int deckId, InputStream input, Format format, ProgressListener listener)
+            throws IOException {
+        CountingInputStream countingInput = new CountingInputStream(input);
+        BufferedInputStream bufferedInput = new BufferedInputStream(countingInput);
+        if (format == null)
+            format = detectFormat(bufferedInput);
+
+        DelimitedReader reader = new DelimitedReader(
+                new InputStreamReader(bufferedInput, StandardCharsets.UTF_8), format.delimiter);
+
+        Result result = new Result();
+        FlashcardBatchWriter writer = new FlashcardBatchWriter(writeQueue, flashcardDao, inserted -> {
+            if (listener != null)
+                listener.onProgress(inserted, countingInput.getCount());
+        });
+
+        try {
+            List<String> row;
+            while ((row = reader.readRow()) != null) {
+                if (result.rowsRead++ == 0 && isHeader(row))
+                    continue;
+
+                Flashcard flashcard = toFlashcard(row, deckId);
+                if (flashcard == null) {
+                    result.skipped++;
+                    continue;
+                }
+
+                writer.add(flashcard);
+            }
+
+            result.imported = writer.finish();
+        } finally {
+            // Let any batch still queued finish before returning, so the caller sees every commit
+            writer.abandon();
+        }
+
+        return result;
+    }
+
+    // Reads the start of the file to detect its format, then puts it back to be imported
+    private static Format detectFormat(BufferedInputStream input) throws IOException {
+        byte[] start = new byte[DETECT_LIMIT];
+        int length = 0;
+
+        input.mark(DETECT_LIMIT);
+        int read;
+        while (length < start.length && (read = input.read(start, length, start.length - length)) != -1)
+            length += read;
+        input.reset();
+
+        return Format.detect(new String(start, 0, length, StandardCharsets.UTF_8));
+    }
+
+    private static boolean isHeader(List<String> row) {
+        return row.size() >= 2 && row.get(0).trim().equalsIgnoreCase("front")
+                && row.get(1).trim().equalsIgnoreCase("back");
+    }
+
+    // Returns null if the row doesn't have both a front and a back
+    private static Flashcard toFlashcard(List<String> row, int deckId) {
+        if (row.size() < 2)
+            return null;
+
+        String front = row.get(0).trim();
+        String back = row.get(1).trim();
+        if (front.isEmpty() || back.isEmpty())
+            return null;
+
+        Flashcard.Status status = row.size() > 2 ? parseStatus(row.get(2)) : Flashcard.Status.STILL_LEARNING;
+        return new Flashcard(0, front, back, status, deckId);
+    }
+
+    // Accepts the enum name or its display name, e.g. "STILL_LEARNING" or "Still learning"
+    static Flashcard.Status parseStatus(String value) {
+        String name = value.trim().toUpperCase(Locale.ROOT).replace(' ', '_');
+        for (Flashcard.Status status : Flashcard.Status.values()) {
+            if (status.name().equals(name))
+                return status;
+        }
+        return Flashcard.Status.STILL_LEARNING;
+    }
+
+    /**
+     * The outcome of an import.
+     */
+    public static class Result {
+        private long rowsRead;
+        private long imported;
+        private long skipped;
+
+        /**
+         * Getter for rowsRead.
+         *
+         * @return The number of rows read from the file, including any header
+         */
+        public long getRowsRead() {
+            return rowsRead;
+        }
+
+        /**
+         * Getter for imported.
+         *
+         * @return The number of flashcards inserted
+         */
+        public long getImported() {
+            return imported;
+        }
+
+        /**
+         * Getter for skipped.
+         *
+         * @return The number of rows without a front or a back
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+    }
+
+    // Counts the bytes read, for reporting progress against the size of the file
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1)
+                count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0)
+                count += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
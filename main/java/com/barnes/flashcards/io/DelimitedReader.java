@@ -0,0 +1,117 @@
+package com.barnes.flashcards.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads CSV or TSV rows from a stream, one row at a time.
+ *
+ * <p> Fields may be quoted with double quotes, in which case they can contain the delimiter, line
+ * breaks and doubled quotes. Rows may end with \n, \r\n or \r. Only one row is held in memory, so
+ * files of any size can be read. A byte order mark at the start of the stream is skipped. </p>
+ */
+public class DelimitedReader {
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final Reader reader;
+    private final char delimiter;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder field = new StringBuilder();
+    private int position = 0;
+    private int limit = 0;
+    private boolean isStart = true;
+
+    /**
+     * Constructor for DelimitedReader.
+     *
+     * @param reader The stream to read. It is not buffered again, so it doesn't need to be buffered
+     * @param delimiter The character between fields, such as ',' or '\t'
+     */
+    public DelimitedReader(Reader reader, char delimiter) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Reads the next row.
+     *
+     * @return Returns the fields of the row, or null at the end of the stream
+     * @throws IOException If the stream can't be read
+     */
+    public List<String> readRow() throws IOException {
+        int c = read();
+        if (isStart) {
+            isStart = false;
+            if (c == '\uFEFF')
+                c = read();
+        }
+        if (c == -1)
+            return null;
+
+        List<String> row = new ArrayList<>();
+        boolean isQuoted = false;
+        boolean wasQuoted = false;
+        field.setLength(0);
+
+        while (true) {
+            if (isQuoted) {
+                if (c == -1) {
+                    // An unclosed quote runs to the end of the file
+                    row.add(field.toString());
+                    return row;
+                } else if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        isQuoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == delimiter) {
+                row.add(field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\n' || c == '\r' || c == -1) {
+                if (c == '\r' && peek() == '\n')
+                    read();
+                row.add(field.toString());
+                return row;
+            } else if (c == '"' && field.length() == 0 && !wasQuoted) {
+                isQuoted = true;
+                wasQuoted = true;
+            } else {
+                field.append((char) c);
+            }
+
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill())
+            return -1;
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill())
+            return -1;
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        limit = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        if (limit <= 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,137 @@
+package com.barnes.flashcards.io;
+
+import com.barnes.flashcards.dao.FlashcardDao;
+import com.barnes.flashcards.database.WriteQueue;
+import com.barnes.flashcards.model.Flashcard;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Inserts flashcards for the importers in batches.
+ *
+ * <p> Flashcards are collected into batches of BATCH_SIZE, and each batch is inserted in one write
+ * through the write queue. Only MAX_PENDING_BATCHES batches are held in memory: once that many are
+ * waiting, add() waits for the oldest to be committed. This lets the importer read the next batch
+ * while the last one is being inserted, without a large file filling the heap. Each batch is
+ * committed on its own, so if an import fails or is interrupted, the batches before it are kept. </p>
+ */
+class FlashcardBatchWriter {
+    // The number of flashcards inserted in each transaction
+    static final int BATCH_SIZE = 2000;
+
+    // The number of batches that can be waiting to be inserted
+    private static final int MAX_PENDING_BATCHES = 2;
+
+    /**
+     * Listens for committed batches.
+     */
+    interface CommitListener {
+        /**
+         * Called after each batch is committed, on the importing thread.
+         *
+         * @param inserted The number of flashcards inserted so far
+         */
+        void onCommit(long inserted);
+    }
+
+    private final WriteQueue writeQueue;
+    private final FlashcardDao flashcardDao;
+    private final CommitListener listener;
+    private final ArrayDeque<CompletableFuture<Integer>> pending = new ArrayDeque<>();
+    private List<Flashcard> batch = new ArrayList<>(BATCH_SIZE);
+    private long inserted = 0;
+
+    /**
+     * Constructor for FlashcardBatchWriter.
+     *
+     * @param writeQueue The queue to insert the flashcards with
+     * @param flashcardDao The DAO for the flashcard table
+     * @param listener Told after each batch is committed, or null
+     */
+    FlashcardBatchWriter(WriteQueue writeQueue, FlashcardDao flashcardDao, CommitListener listener) {
+        this.writeQueue = writeQueue;
+        this.flashcardDao = flashcardDao;
+        this.listener = listener;
+    }
+
+    /**
+     * Adds a flashcard to the current batch, and queues the batch once it is full.
+     *
+     * @param flashcard The flashcard to insert
+     * @throws IOException If an earlier batch failed, or the thread was interrupted
+     */
+    void add(Flashcard flashcard) throws IOException {
+        batch.add(flashcard);
+        if (batch.size() < BATCH_SIZE)
+            return;
+
+        submit();
+
+        // Wait for the oldest batch, so only a few are held in memory
+        while (pending.size() >= MAX_PENDING_BATCHES)
+            commitOldest();
+    }
+
+    /**
+     * Inserts the last batch and waits for every batch to be committed.
+     *
+     * @return Returns the number of flashcards inserted
+     * @throws IOException If a batch failed, or the thread was interrupted
+     */
+    long finish() throws IOException {
+        if (!batch.isEmpty())
+            submit();
+        while (!pending.isEmpty())
+            commitOldest();
+        return inserted;
+    }
+
+    /**
+     * Waits for the batches that were already queued, without failing. Called in a finally block
+     * when an import stops early, so the caller returns after every write it started.
+     */
+    void abandon() {
+        for (CompletableFuture<Integer> future : pending)
+            future.exceptionally(e -> 0).join();
+        pending.clear();
+        batch = new ArrayList<>();
+    }
+
+    /**
+     * Getter for inserted.
+     *
+     * @return The number of flashcards committed so far
+     */
+    long getInserted() {
+        return inserted;
+    }
+
+    private void submit() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted())
+            throw new InterruptedIOException("Import was interrupted");
+
+        List<Flashcard> flashcards = batch;
+        batch = new ArrayList<>(BATCH_SIZE);
+        pending.add(writeQueue.submit(() -> {
+            flashcardDao.insertAll(flashcards);
+            return flashcards.size();
+        }));
+    }
+
+    private void commitOldest() throws IOException {
+        try {
+            inserted += pending.poll().join();
+        } catch (CompletionException e) {
+            throw new IOException("Could not insert flashcards", e.getCause());
+        }
+
+        if (listener != null)
+            listener.onCommit(inserted);
+    }
+}
@@ -0,0 +1,106 @@
+package com.barnes.flashcards.io;
+
+/**
+ * Set of primitive longs.
+ *
+ * <p> The values are stored in a single array with open addressing, so adding a value never
+ * creates an object. It is used for sets of text hashes, where a set of boxed Longs would cost
+ * several times the memory. The array doubles when it is three quarters full. </p>
+ */
+class LongHashSet {
+    // 0 marks an empty slot, so the value 0 is tracked on its own
+    private static final long EMPTY = 0;
+
+    private long[] table;
+    private int size = 0;
+    private boolean hasZero = false;
+
+    /**
+     * Constructor for LongHashSet.
+     *
+     * @param expectedSize The number of values expected, so the array isn't resized while adding them
+     */
+    LongHashSet(int expectedSize) {
+        int capacity = 16;
+        while (capacity * 3 / 4 < expectedSize)
+            capacity <<= 1;
+        table = new long[capacity];
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value The value to add
+     * @return Returns true if the value was not already in the set
+     */
+    boolean add(long value) {
+        if (value == EMPTY) {
+            boolean added = !hasZero;
+            hasZero = true;
+            return added;
+        }
+
+        int mask = table.length - 1;
+        int slot = mix(value) & mask;
+        while (table[slot] != EMPTY) {
+            if (table[slot] == value)
+                return false;
+            slot = (slot + 1) & mask;
+        }
+
+        table[slot] = value;
+        if (++size > table.length * 3 / 4)
+            grow();
+        return true;
+    }
+
+    /**
+     * Checks if a value is in the set.
+     *
+     * @param value The value to look for
+     * @return Returns true if the value is in the set
+     */
+    boolean contains(long value) {
+        if (value == EMPTY)
+            return hasZero;
+
+        int mask = table.length - 1;
+        int slot = mix(value) & mask;
+        while (table[slot] != EMPTY) {
+            if (table[slot] == value)
+                return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of values in the set.
+     *
+     * @return The number of values
+     */
+    int size() {
+        return hasZero ? size + 1 : size;
+    }
+
+    private void grow() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        int mask = table.length - 1;
+
+        for (long value : old) {
+            if (value == EMPTY)
+                continue;
+            int slot = mix(value) & mask;
+            while (table[slot] != EMPTY)
+                slot = (slot + 1) & mask;
+            table[slot] = value;
+        }
+    }
+
+    // Spreads the bits of the value, so values that differ only in their high bits don't collide
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,256 @@
+package com.barnes.flashcards.model;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Class for the spaced repetition schedule of a flashcard.
+ *
+ * <p> This class holds when a flashcard is next due for review and the memory state the scheduler
+ * uses to choose that time. Every flashcard has one, created by a database trigger when the
+ * flashcard is inserted. The deck ID is copied from the flashcard, and kept up to date by another
+ * trigger, so the due flashcards of a deck can be found with a range scan of the (deck_id, due)
+ * index. Times are epoch milliseconds. </p>
+ */
+@Entity(tableName = "card_schedule",
+        foreignKeys = {@ForeignKey(entity = Flashcard.class,
+                parentColumns = "cardId",
+                childColumns = "card_id",
+                onDelete = ForeignKey.CASCADE)},
+        indices = {@Index(value = {"deck_id", "due"})})
+public class CardSchedule {
+    /**
+     * The ease factor a flashcard starts with in SM-2.
+     */
+    public static final double INITIAL_EASE = 2.5;
+
+    @PrimaryKey
+    @ColumnInfo(name = "card_id")
+    private int cardId;
+
+    @ColumnInfo(name = "deck_id")
+    private int deckId;
+
+    // When the flashcard is next due for review
+    private long due;
+
+    // When the flashcard was last reviewed, or 0 if it has never been reviewed
+    @ColumnInfo(name = "last_review")
+    private long lastReview;
+
+    // FSRS memory state. Stability is the days until recall drops to 90%, difficulty is from 1 to 10
+    private double stability;
+
+    private double difficulty;
+
+    // SM-2 ease factor
+    private double ease;
+
+    // The days between the last review and due
+    @ColumnInfo(name = "interval_days")
+    private double intervalDays;
+
+    // The number of reviews, and the number of times a learned flashcard was forgotten
+    private int reps;
+
+    private int lapses;
+
+    /**
+     * Default constructor for CardSchedule.
+     */
+    public CardSchedule() {
+        ease = INITIAL_EASE;
+    }
+
+    /**
+     * Checks if the flashcard has never been reviewed.
+     *
+     * @return Returns true if the flashcard is new
+     */
+    public boolean isNew() {
+        return reps == 0;
+    }
+
+    /**
+     * Getter for cardId.
+     *
+     * @return The ID of the flashcard
+     */
+    public int getCardId() {
+        return cardId;
+    }
+
+    /**
+     * Setter for cardId.
+     *
+     * @param cardId The ID of the flashcard
+     */
+    public void setCardId(int cardId) {
+        this.cardId = cardId;
+    }
+
+    /**
+     * Getter for deckId.
+     *
+     * @return The ID of the flashcard's deck
+     */
+    public int getDeckId() {
+        return deckId;
+    }
+
+    /**
+     * Setter for deckId.
+     *
+     * @param deckId The ID of the flashcard's deck
+     */
+    public void setDeckId(int deckId) {
+        this.deckId = deckId;
+    }
+
+    /**
+     * Getter for due.
+     *
+     * @return When the flashcard is next due, in epoch milliseconds
+     */
+    public long getDue() {
+        return due;
+    }
+
+    /**
+     * Setter for due.
+     *
+     * @param due When the flashcard is next due, in epoch milliseconds
+     */
+    public void setDue(long due) {
+        this.due = due;
+    }
+
+    /**
+     * Getter for lastReview.
+     *
+     * @return When the flashcard was last reviewed, in epoch milliseconds, or 0 if never
+     */
+    public long getLastReview() {
+        return lastReview;
+    }
+
+    /**
+     * Setter for lastReview.
+     *
+     * @param lastReview When the flashcard was last reviewed, in epoch milliseconds
+     */
+    public void setLastReview(long lastReview) {
+        this.lastReview = lastReview;
+    }
+
+    /**
+     * Getter for stability.
+     *
+     * @return The days until the chance of recalling the flashcard drops to 90%
+     */
+    public double getStability() {
+        return stability;
+    }
+
+    /**
+     * Setter for stability.
+     *
+     * @param stability The days until the chance of recalling the flashcard drops to 90%
+     */
+    public void setStability(double stability) {
+        this.stability = stability;
+    }
+
+    /**
+     * Getter for difficulty.
+     *
+     * @return The difficulty of the flashcard, from 1 to 10
+     */
+    public double getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * Setter for difficulty.
+     *
+     * @param difficulty The difficulty of the flashcard, from 1 to 10
+     */
+    public void setDifficulty(double difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    /**
+     * Getter for ease.
+     *
+     * @return The SM-2 ease factor of the flashcard
+     */
+    public double getEase() {
+        return ease;
+    }
+
+    /**
+     * Setter for ease.
+     *
+     * @param ease The SM-2 ease factor of the flashcard
+     */
+    public void setEase(double ease) {
+        this.ease = ease;
+    }
+
+    /**
+     * Getter for intervalDays.
+     *
+     * @return The days between the last review and the due time
+     */
+    public double getIntervalDays() {
+        return intervalDays;
+    }
+
+    /**
+     * Setter for intervalDays.
+     *
+     * @param intervalDays The days between the last review and the due time
+     */
+    public void setIntervalDays(double intervalDays) {
+        this.intervalDays = intervalDays;
+    }
+
+    /**
+     * Getter for reps.
+     *
+     * @return The number of times the flashcard was reviewed
+     */
+    public int getReps() {
+        return reps;
+    }
+
+    /**
+     * Setter for reps.
+     *
+     * @param reps The number of times the flashcard was reviewed
+     */
+    public void setReps(int reps) {
+        this.reps = reps;
+    }
+
+    /**
+     * Getter for lapses.
+     *
+     * @return The number of times the flashcard was forgotten after being learned
+     */
+    public int getLapses() {
+        return lapses;
+    }
+
+    /**
+     * Setter for lapses.
+     *
+     * @param lapses The number of times the flashcard was forgotten after being learned
+     */
+    public void setLapses(int lapses) {
+        this.lapses = lapses;
+    }
+}
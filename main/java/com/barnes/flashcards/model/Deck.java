@@ -3,15 +3,20 @@ package com.barnes.flashcards.model;
 import androidx.annotation.Nullable;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Ignore;
 import androidx.room.PrimaryKey;
 
+import com.barnes.flashcards.database.DatabaseConverter;
+
 import java.time.LocalDateTime;
 
 /**
  * Class for a Deck.
  *
  * <p> This class defines a Deck. A deck contains information about the flashcards that reside in it.
- * Every flashcard must be part of a deck. The size of a deck should never be negative. </p>
+ * Every flashcard must be part of a deck. The size of a deck should never be negative. The size and
+ * the status counts are kept up to date by database triggers on the flashcard table, so they are
+ * never written from Java. </p>
  */
 @Entity(tableName = "deck_table")
 public class Deck {
@@ -22,6 +27,16 @@ public class Deck {
     // size should never be negative
     private int size;
 
+    // The number of flashcards in the deck with each status. Maintained by triggers
+    @ColumnInfo(name = "still_learning_count", defaultValue = "0")
+    private int stillLearningCount;
+
+    @ColumnInfo(name = "learned_count", defaultValue = "0")
+    private int learnedCount;
+
+    @ColumnInfo(name = "archived_count", defaultValue = "0")
+    private int archivedCount;
+
     // Total guesses of a user. Will be periodically reduced to prevent stack overflow
     @ColumnInfo(name = "total_guesses")
     private int totalGuesses;
@@ -32,14 +47,20 @@ public class Deck {
 
     private String title;
 
+    // The last time the deck was reviewed, in epoch milliseconds
     @ColumnInfo(name = "time_reviewed")
+    private Long timeReviewedMillis;
+
+    // timeReviewedMillis as a LocalDateTime. Only decoded when it is first read, since most decks
+    // loaded from the database are never shown with their time
+    @Ignore
     private LocalDateTime timeReviewed;
 
     /**
      * Default constructor for Deck.
      */
     public Deck() {
-        timeReviewed = LocalDateTime.now();
+        timeReviewedMillis = System.currentTimeMillis();
     }
 
     /**
@@ -51,7 +72,9 @@ public class Deck {
      * @param totalGuesses The total guesses of a user
      * @param totalRight The total correct guesses of a user
      * @param title The deck's title
+     * @param timeReviewed The last time the deck was reviewed
      */
+    @Ignore
     public Deck(int deckId, int size, int totalGuesses, int totalRight, String title, LocalDateTime timeReviewed) {
         this.deckId = deckId;
 
@@ -62,7 +85,22 @@ public class Deck {
         this.totalGuesses = totalGuesses;
         this.totalRight = totalRight;
         this.title = title;
-        this.timeReviewed = timeReviewed;
+        setTimeReviewed(timeReviewed);
+    }
+
+    /**
+     * Copy constructor for Deck.
+     *
+     * @param deck The deck to copy
+     */
+    @Ignore
+    public Deck(Deck deck) {
+        this(deck.deckId, deck.size, deck.totalGuesses, deck.totalRight, deck.title, null);
+        timeReviewedMillis = deck.timeReviewedMillis;
+        timeReviewed = deck.timeReviewed;
+        stillLearningCount = deck.stillLearningCount;
+        learnedCount = deck.learnedCount;
+        archivedCount = deck.archivedCount;
     }
 
     /**
@@ -110,6 +148,64 @@ public class Deck {
         this.size = size;
     }
 
+    /**
+     * Getter for stillLearningCount.
+     *
+     * <p> This is the getter for the number of flashcards in the deck that are still being
+     * learned. </p>
+     * @return The number of flashcards with the STILL_LEARNING status
+     */
+    public int getStillLearningCount() {
+        return stillLearningCount;
+    }
+
+    /**
+     * Setter for stillLearningCount.
+     *
+     * @param stillLearningCount The number of flashcards with the STILL_LEARNING status
+     */
+    public void setStillLearningCount(int stillLearningCount) {
+        this.stillLearningCount = stillLearningCount;
+    }
+
+    /**
+     * Getter for learnedCount.
+     *
+     * <p> This is the getter for the number of flashcards in the deck that have been learned. </p>
+     * @return The number of flashcards with the LEARNED status
+     */
+    public int getLearnedCount() {
+        return learnedCount;
+    }
+
+    /**
+     * Setter for learnedCount.
+     *
+     * @param learnedCount The number of flashcards with the LEARNED status
+     */
+    public void setLearnedCount(int learnedCount) {
+        this.learnedCount = learnedCount;
+    }
+
+    /**
+     * Getter for archivedCount.
+     *
+     * <p> This is the getter for the number of flashcards in the deck that are archived. </p>
+     * @return The number of flashcards with the ARCHIVED status
+     */
+    public int getArchivedCount() {
+        return archivedCount;
+    }
+
+    /**
+     * Setter for archivedCount.
+     *
+     * @param archivedCount The number of flashcards with the ARCHIVED status
+     */
+    public void setArchivedCount(int archivedCount) {
+        this.archivedCount = archivedCount;
+    }
+
     /**
      * Getter for title.
      *
@@ -181,10 +277,13 @@ public class Deck {
     /**
      * Getter for timeReviewed.
      *
-     * <p> This is the getter for the last time the deck was reviewed. </p>
-     * @return A LocalDateTime of the last time the deck was reviewed
+     * <p> This is the getter for the last time the deck was reviewed. It is decoded from the stored
+     * epoch milliseconds the first time it is called. </p>
+     * @return A LocalDateTime of the last time the deck was reviewed, or null if it is unknown
      */
     public LocalDateTime getTimeReviewed() {
+        if (timeReviewed == null && timeReviewedMillis != null)
+            timeReviewed = DatabaseConverter.millisToDateTime(timeReviewedMillis);
         return timeReviewed;
     }
 
@@ -196,21 +295,26 @@ public class Deck {
      */
     public void setTimeReviewed(LocalDateTime timeReviewed) {
         this.timeReviewed = timeReviewed;
+        timeReviewedMillis = DatabaseConverter.dateTimeToMillis(timeReviewed);
     }
 
     /**
-     * Increases the size of the deck by 1.
+     * Getter for timeReviewedMillis.
+     *
+     * @return The last time the deck was reviewed, in epoch milliseconds, or null if it is unknown
      */
-    public void incrementSize() {
-        size++;
+    public Long getTimeReviewedMillis() {
+        return timeReviewedMillis;
     }
 
     /**
-     * Decreases the size of the deck by 1.
+     * Setter for timeReviewedMillis.
+     *
+     * @param timeReviewedMillis The last time the deck was reviewed, in epoch milliseconds
      */
-    public void decrementSize() {
-        if (size > 0)
-            size--;
+    public void setTimeReviewedMillis(Long timeReviewedMillis) {
+        this.timeReviewedMillis = timeReviewedMillis;
+        timeReviewed = null;
     }
 
     /**
@@ -0,0 +1,125 @@
+package com.barnes.flashcards.model;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * Class for the flashcard counts of a deck.
+ *
+ * <p> This class is a lightweight view of a deck that only holds its flashcard counts. The counts
+ * are kept up to date by database triggers, so reading them is a single row lookup instead of
+ * counting the flashcards. </p>
+ */
+public class DeckCounts {
+    @ColumnInfo(name = "deck_id")
+    private int deckId;
+
+    private int size;
+
+    @ColumnInfo(name = "still_learning_count")
+    private int stillLearningCount;
+
+    @ColumnInfo(name = "learned_count")
+    private int learnedCount;
+
+    @ColumnInfo(name = "archived_count")
+    private int archivedCount;
+
+    /**
+     * Getter for deckId.
+     *
+     * @return The ID of the deck
+     */
+    public int getDeckId() {
+        return deckId;
+    }
+
+    /**
+     * Setter for deckId.
+     *
+     * @param deckId The ID of the deck
+     */
+    public void setDeckId(int deckId) {
+        this.deckId = deckId;
+    }
+
+    /**
+     * Getter for size.
+     *
+     * @return The total number of flashcards in the deck
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Setter for size.
+     *
+     * @param size The total number of flashcards in the deck
+     */
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Getter for stillLearningCount.
+     *
+     * @return The number of flashcards with the STILL_LEARNING status
+     */
+    public int getStillLearningCount() {
+        return stillLearningCount;
+    }
+
+    /**
+     * Setter for stillLearningCount.
+     *
+     * @param stillLearningCount The number of flashcards with the STILL_LEARNING status
+     */
+    public void setStillLearningCount(int stillLearningCount) {
+        this.stillLearningCount = stillLearningCount;
+    }
+
+    /**
+     * Getter for learnedCount.
+     *
+     * @return The number of flashcards with the LEARNED status
+     */
+    public int getLearnedCount() {
+        return learnedCount;
+    }
+
+    /**
+     * Setter for learnedCount.
+     *
+     * @param learnedCount The number of flashcards with the LEARNED status
+     */
+    public void setLearnedCount(int learnedCount) {
+        this.learnedCount = learnedCount;
+    }
+
+    /**
+     * Getter for archivedCount.
+     *
+     * @return The number of flashcards with the ARCHIVED status
+     */
+    public int getArchivedCount() {
+        return archivedCount;
+    }
+
+    /**
+     * Setter for archivedCount.
+     *
+     * @param archivedCount The number of flashcards with the ARCHIVED status
+     */
+    public void setArchivedCount(int archivedCount) {
+        this.archivedCount = archivedCount;
+    }
+
+    /**
+     * Gets the number of flashcards that can be reviewed.
+     *
+     * @return The number of flashcards in the deck that are not archived
+     */
+    public int getReviewableCount() {
+        return size - archivedCount;
+    }
+}
@@ -4,6 +4,8 @@ import androidx.annotation.Nullable;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
+import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 import java.util.Arrays;
@@ -19,7 +21,9 @@ import java.util.List;
         foreignKeys = {@ForeignKey(entity = Deck.class,
                 parentColumns = "deck_id",
                 childColumns = "deck_id",
-                onDelete = ForeignKey.CASCADE)} )
+                onDelete = ForeignKey.CASCADE)},
+        indices = {@Index(value = {"deck_id", "status"}),
+                @Index(value = {"deck_id", "cardId"})})
 public class Flashcard {
     @PrimaryKey(autoGenerate = true)
     private int cardId;
@@ -58,6 +62,16 @@ public class Flashcard {
         this.deckId = deckId;
     }
 
+    /**
+     * Copy constructor for Flashcard.
+     *
+     * @param flashcard The flashcard to copy
+     */
+    @Ignore
+    public Flashcard(Flashcard flashcard) {
+        this(flashcard.cardId, flashcard.front, flashcard.back, flashcard.status, flashcard.deckId);
+    }
+
     /**
      * Getter for cardId.
      *
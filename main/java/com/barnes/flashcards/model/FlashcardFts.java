@@ -0,0 +1,80 @@
+package com.barnes.flashcards.model;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+import androidx.room.PrimaryKey;
+
+/**
+ * Class for the full-text search index of flashcards.
+ *
+ * <p> This class defines an FTS4 table that indexes the front and back of every flashcard. The
+ * table does not store its own copy of the text. It reads it from the flashcard table, and Room
+ * keeps the index up to date with triggers. The rowid of a row is the ID of its flashcard. </p>
+ */
+@Fts4(contentEntity = Flashcard.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "flashcard_fts")
+public class FlashcardFts {
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private int rowId;
+
+    private String front;
+
+    private String back;
+
+    /**
+     * Getter for rowId.
+     *
+     * @return The ID of the flashcard this row indexes
+     */
+    public int getRowId() {
+        return rowId;
+    }
+
+    /**
+     * Setter for rowId.
+     *
+     * @param rowId The ID of the flashcard this row indexes
+     */
+    public void setRowId(int rowId) {
+        this.rowId = rowId;
+    }
+
+    /**
+     * Getter for the indexed front of a flashcard.
+     *
+     * @return The front of the flashcard
+     */
+    public String getFront() {
+        return front;
+    }
+
+    /**
+     * Setter for the indexed front of a flashcard.
+     *
+     * @param front The front of the flashcard
+     */
+    public void setFront(String front) {
+        this.front = front;
+    }
+
+    /**
+     * Getter for the indexed back of a flashcard.
+     *
+     * @return The back of the flashcard
+     */
+    public String getBack() {
+        return back;
+    }
+
+    /**
+     * Setter for the indexed back of a flashcard.
+     *
+     * @param back The back of the flashcard
+     */
+    public void setBack(String back) {
+        this.back = back;
+    }
+}
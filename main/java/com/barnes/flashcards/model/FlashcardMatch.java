@@ -0,0 +1,156 @@
+package com.barnes.flashcards.model;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Embedded;
+import androidx.room.Ignore;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Class for a flashcard found by a full-text search.
+ *
+ * <p> This class holds a flashcard that matched a search, the FTS4 matchinfo() statistics used
+ * to rank the match, and a snippet of the text around the matched words. In the snippet, each
+ * matched word is between SNIPPET_START and SNIPPET_END, which are control characters rather than
+ * HTML tags so that flashcard text can never be mistaken for a marker. </p>
+ */
+public class FlashcardMatch {
+    // BM25 tuning parameters, using the same defaults as SQLite's FTS5 bm25() function
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // The lowest inverse document frequency allowed, so very common words don't count against a match
+    private static final double MIN_IDF = 1e-6;
+
+    // The markers around each matched word in the snippet, char(2) and char(3) in the query
+    public static final char SNIPPET_START = '\u0002';
+    public static final char SNIPPET_END = '\u0003';
+
+    @Embedded
+    private Flashcard flashcard;
+
+    // The result of matchinfo(flashcard_fts, 'pcnalx')
+    @ColumnInfo(name = "match_info")
+    private byte[] matchInfo;
+
+    // The result of snippet(), with the matched words marked
+    private String snippet;
+
+    @Ignore
+    private double rank;
+
+    /**
+     * Getter for the matched flashcard.
+     *
+     * @return The flashcard that matched the search
+     */
+    public Flashcard getFlashcard() {
+        return flashcard;
+    }
+
+    /**
+     * Setter for the matched flashcard.
+     *
+     * @param flashcard The flashcard that matched the search
+     */
+    public void setFlashcard(Flashcard flashcard) {
+        this.flashcard = flashcard;
+    }
+
+    /**
+     * Getter for matchInfo.
+     *
+     * @return The raw matchinfo() blob of the match
+     */
+    public byte[] getMatchInfo() {
+        return matchInfo;
+    }
+
+    /**
+     * Setter for matchInfo.
+     *
+     * @param matchInfo The raw matchinfo() blob of the match
+     */
+    public void setMatchInfo(byte[] matchInfo) {
+        this.matchInfo = matchInfo;
+        rank = bm25(matchInfo);
+    }
+
+    /**
+     * Getter for snippet.
+     *
+     * <p> This is the getter for a few words of the flashcard around its best match, from
+     * whichever side matched. Each matched word is between SNIPPET_START and SNIPPET_END. </p>
+     * @return The snippet of the match
+     */
+    public String getSnippet() {
+        return snippet;
+    }
+
+    /**
+     * Setter for snippet.
+     *
+     * @param snippet The result of snippet() for the match
+     */
+    public void setSnippet(String snippet) {
+        this.snippet = snippet;
+    }
+
+    /**
+     * Getter for rank.
+     *
+     * <p> This is the getter for the BM25 score of the match. A higher rank is a better match. </p>
+     * @return The BM25 score of the match
+     */
+    public double getRank() {
+        return rank;
+    }
+
+    /**
+     * Calculates the BM25 score of a match from the FTS4 matchinfo() 'pcnalx' blob.
+     *
+     * <p> FTS4 has no built-in ranking function, so the score is calculated here from the statistics
+     * SQLite returns for each row. The blob is an array of unsigned 32-bit integers in the device's
+     * byte order: the phrase count, the column count, the row count, the average tokens in each
+     * column, the tokens in each column of this row, and then three hit counts for every phrase and
+     * column. </p>
+     * @param matchInfo The matchinfo() blob
+     * @return The BM25 score, or 0 if there is no blob
+     */
+    public static double bm25(byte[] matchInfo) {
+        if (matchInfo == null || matchInfo.length < 12)
+            return 0.0;
+
+        ByteBuffer buffer = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder());
+        int phrases = buffer.getInt(0);
+        int columns = buffer.getInt(4);
+        long rows = buffer.getInt(8) & 0xFFFFFFFFL;
+
+        int averageStart = 3;
+        int lengthStart = averageStart + columns;
+        int hitStart = lengthStart + columns;
+
+        double score = 0.0;
+        for (int phrase = 0; phrase < phrases; phrase++) {
+            for (int column = 0; column < columns; column++) {
+                int hit = hitStart + 3 * (phrase * columns + column);
+                long hitsInRow = buffer.getInt(hit * 4) & 0xFFFFFFFFL;
+                if (hitsInRow == 0)
+                    continue;
+
+                long rowsWithHit = buffer.getInt((hit + 2) * 4) & 0xFFFFFFFFL;
+                double average = Math.max(1, buffer.getInt((averageStart + column) * 4) & 0xFFFFFFFFL);
+                double length = buffer.getInt((lengthStart + column) * 4) & 0xFFFFFFFFL;
+
+                double idf = Math.log((rows - rowsWithHit + 0.5) / (rowsWithHit + 0.5));
+                idf = Math.max(idf, MIN_IDF);
+
+                score += idf * (hitsInRow * (K1 + 1)) /
+                        (hitsInRow + K1 * (1 - B + B * length / average));
+            }
+        }
+
+        return score;
+    }
+}
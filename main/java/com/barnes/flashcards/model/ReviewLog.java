@@ -0,0 +1,198 @@
+package com.barnes.flashcards.model;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Class for a single answer given during a review.
+ *
+ * <p> This class defines a row of the review log. The log is only ever added to, one row for every
+ * answer, so it keeps the history of every flashcard. It has no foreign keys, so writing to it never
+ * touches the flashcard table, and the history of a deleted flashcard is kept. The time of the
+ * answer is stored as epoch milliseconds so the log can be read by time range from its
+ * indexes. </p>
+ */
+@Entity(tableName = "review_log",
+        indices = {@Index(value = {"reviewed_at"}),
+                @Index(value = {"deck_id", "reviewed_at"}),
+                @Index(value = {"card_id", "reviewed_at"})})
+public class ReviewLog {
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    @ColumnInfo(name = "card_id")
+    private int cardId;
+
+    @ColumnInfo(name = "deck_id")
+    private int deckId;
+
+    // Epoch milliseconds
+    @ColumnInfo(name = "reviewed_at")
+    private long reviewedAt;
+
+    private boolean correct;
+
+    // The text of the answer the user chose
+    @ColumnInfo(name = "chosen_answer")
+    private String chosenAnswer;
+
+    // The time from showing the flashcard to the user answering it
+    @ColumnInfo(name = "response_millis")
+    private long responseMillis;
+
+    /**
+     * Default constructor for ReviewLog.
+     */
+    public ReviewLog() {
+    }
+
+    /**
+     * Constructor for ReviewLog.
+     *
+     * @param cardId The ID of the flashcard that was answered
+     * @param deckId The ID of the flashcard's deck
+     * @param reviewedAt The time of the answer, in epoch milliseconds
+     * @param correct True if the answer was correct
+     * @param chosenAnswer The text of the answer the user chose
+     * @param responseMillis The time the user took to answer, in milliseconds
+     */
+    @Ignore
+    public ReviewLog(int cardId, int deckId, long reviewedAt, boolean correct, String chosenAnswer,
+                     long responseMillis) {
+        this.cardId = cardId;
+        this.deckId = deckId;
+        this.reviewedAt = reviewedAt;
+        this.correct = correct;
+        this.chosenAnswer = chosenAnswer;
+        this.responseMillis = responseMillis;
+    }
+
+    /**
+     * Getter for id.
+     *
+     * @return The ID of the log row
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Setter for id.
+     *
+     * @param id The ID of the log row
+     */
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    /**
+     * Getter for cardId.
+     *
+     * @return The ID of the flashcard that was answered
+     */
+    public int getCardId() {
+        return cardId;
+    }
+
+    /**
+     * Setter for cardId.
+     *
+     * @param cardId The ID of the flashcard that was answered
+     */
+    public void setCardId(int cardId) {
+        this.cardId = cardId;
+    }
+
+    /**
+     * Getter for deckId.
+     *
+     * @return The ID of the flashcard's deck
+     */
+    public int getDeckId() {
+        return deckId;
+    }
+
+    /**
+     * Setter for deckId.
+     *
+     * @param deckId The ID of the flashcard's deck
+     */
+    public void setDeckId(int deckId) {
+        this.deckId = deckId;
+    }
+
+    /**
+     * Getter for reviewedAt.
+     *
+     * @return The time of the answer, in epoch milliseconds
+     */
+    public long getReviewedAt() {
+        return reviewedAt;
+    }
+
+    /**
+     * Setter for reviewedAt.
+     *
+     * @param reviewedAt The time of the answer, in epoch milliseconds
+     */
+    public void setReviewedAt(long reviewedAt) {
+        this.reviewedAt = reviewedAt;
+    }
+
+    /**
+     * Getter for correct.
+     *
+     * @return True if the answer was correct
+     */
+    public boolean isCorrect() {
+        return correct;
+    }
+
+    /**
+     * Setter for correct.
+     *
+     * @param correct True if the answer was correct
+     */
+    public void setCorrect(boolean correct) {
+        this.correct = correct;
+    }
+
+    /**
+     * Getter for chosenAnswer.
+     *
+     * @return The text of the answer the user chose
+     */
+    public String getChosenAnswer() {
+        return chosenAnswer;
+    }
+
+    /**
+     * Setter for chosenAnswer.
+     *
+     * @param chosenAnswer The text of the answer the user chose
+     */
+    public void setChosenAnswer(String chosenAnswer) {
+        this.chosenAnswer = chosenAnswer;
+    }
+
+    /**
+     * Getter for responseMillis.
+     *
+     * @return The time the user took to answer, in milliseconds
+     */
+    public long getResponseMillis() {
+        return responseMillis;
+    }
+
+    /**
+     * Setter for responseMillis.
+     *
+     * @param responseMillis The time the user took to answer, in milliseconds
+     */
+    public void setResponseMillis(long responseMillis) {
+        this.responseMillis = responseMillis;
+    }
+}
@@ -0,0 +1,77 @@
+package com.barnes.flashcards.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class for everything a review session needs from the database.
+ *
+ * <p> This class is a snapshot of a review session, read in a single transaction when the session
+ * starts. It holds the deck, the flashcards chosen for review, and the wrong answers chosen for each
+ * of them. The review screens are drawn only from the snapshot, so answering flashcards doesn't read
+ * the database. </p>
+ */
+public class ReviewSession {
+    private final Deck deck;
+    private final List<Flashcard> cards;
+    private final Map<Integer, Flashcard> cardsById = new HashMap<>();
+    private final Map<Integer, List<Flashcard>> distractorMap;
+
+    /**
+     * Constructor for ReviewSession.
+     *
+     * @param deck The deck being reviewed
+     * @param cards The flashcards to review, in the order they will be reviewed
+     * @param distractorMap The wrong answers for each flashcard, keyed by card ID
+     */
+    public ReviewSession(Deck deck, List<Flashcard> cards, Map<Integer, List<Flashcard>> distractorMap) {
+        this.deck = deck;
+        this.cards = Collections.unmodifiableList(new ArrayList<>(cards));
+        this.distractorMap = distractorMap;
+
+        for (Flashcard card : cards)
+            cardsById.put(card.getCardId(), card);
+    }
+
+    /**
+     * Getter for deck.
+     *
+     * @return The deck being reviewed
+     */
+    public Deck getDeck() {
+        return deck;
+    }
+
+    /**
+     * Getter for cards.
+     *
+     * @return An unmodifiable list of the flashcards to review
+     */
+    public List<Flashcard> getCards() {
+        return cards;
+    }
+
+    /**
+     * Gets a flashcard in the session.
+     *
+     * @param cardId The ID of the flashcard
+     * @return Returns the flashcard, or null if it isn't part of the session
+     */
+    public Flashcard getCard(int cardId) {
+        return cardsById.get(cardId);
+    }
+
+    /**
+     * Gets the wrong answers chosen for a flashcard in the session.
+     *
+     * @param cardId The ID of the flashcard
+     * @return Returns the wrong answers, or an empty list if there are none
+     */
+    public List<Flashcard> getDistractors(int cardId) {
+        List<Flashcard> distractors = distractorMap.get(cardId);
+        return distractors == null ? Collections.emptyList() : distractors;
+    }
+}
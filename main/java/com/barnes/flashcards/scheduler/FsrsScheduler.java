@@ -0,0 +1,139 @@
+package com.barnes.flashcards.scheduler;
+
+import com.barnes.flashcards.model.CardSchedule;
+
+/**
+ * The FSRS-4.5 spaced repetition algorithm.
+ *
+ * <p> FSRS models each flashcard's memory with a stability, the days until the chance of recalling
+ * it drops to 90%, and a difficulty from 1 to 10. After a review both are updated from the rating
+ * and how likely the flashcard was to be remembered, and the flashcard is next due when that chance
+ * drops to the requested retention. The default weights are the published FSRS-4.5 defaults. </p>
+ */
+public class FsrsScheduler implements Scheduler {
+    private static final double[] DEFAULT_WEIGHTS = {
+            0.4872, 1.4003, 3.7145, 13.8206, 5.1618, 1.2298, 0.8975, 0.031, 1.6474, 0.1367,
+            1.0461, 2.1072, 0.0793, 0.3246, 1.587, 0.2272, 2.8755};
+
+    private static final double DECAY = -0.5;
+    private static final double FACTOR = 19.0 / 81;
+
+    private static final double MIN_INTERVAL_DAYS = 1;
+    private static final double MAX_INTERVAL_DAYS = 36500;
+
+    private final double[] w;
+    private final double requestRetention;
+
+    /**
+     * Constructor for FsrsScheduler with the default weights and a 90% requested retention.
+     */
+    public FsrsScheduler() {
+        this(DEFAULT_WEIGHTS, 0.9);
+    }
+
+    /**
+     * Constructor for FsrsScheduler.
+     *
+     * @param weights The 17 FSRS-4.5 weights
+     * @param requestRetention The chance of remembering a flashcard when it is due, from 0 to 1
+     */
+    public FsrsScheduler(double[] weights, double requestRetention) {
+        if (weights.length != DEFAULT_WEIGHTS.length)
+            throw new IllegalArgumentException("FSRS-4.5 needs " + DEFAULT_WEIGHTS.length + " weights");
+        if (requestRetention <= 0 || requestRetention >= 1)
+            throw new IllegalArgumentException("Requested retention must be between 0 and 1");
+
+        this.w = weights.clone();
+        this.requestRetention = requestRetention;
+    }
+
+    /**
+     * Updates a schedule after its flashcard was reviewed.
+     *
+     * @param schedule The flashcard's schedule, which is changed in place
+     * @param rating How well the user remembered the flashcard
+     * @param now The time of the review, in epoch milliseconds
+     */
+    @Override
+    public void review(CardSchedule schedule, Rating rating, long now) {
+        int grade = rating.getGrade();
+        double stability;
+        double difficulty;
+
+        if (schedule.isNew() || schedule.getStability() <= 0) {
+            stability = w[grade - 1];
+            difficulty = initialDifficulty(grade);
+        } else {
+            double elapsedDays = Math.max(0, now - schedule.getLastReview()) / (double) DAY_MILLIS;
+            double retrievability = retrievability(elapsedDays, schedule.getStability());
+            double oldDifficulty = schedule.getDifficulty();
+
+            if (rating == Rating.AGAIN) {
+                stability = forgetStability(oldDifficulty, schedule.getStability(), retrievability);
+                schedule.setLapses(schedule.getLapses() + 1);
+            } else {
+                stability = recallStability(oldDifficulty, schedule.getStability(), retrievability,
+                        rating);
+            }
+
+            difficulty = nextDifficulty(oldDifficulty, grade);
+        }
+
+        double interval = nextInterval(stability);
+
+        schedule.setStability(stability);
+        schedule.setDifficulty(difficulty);
+        schedule.setReps(schedule.getReps() + 1);
+        schedule.setIntervalDays(interval);
+        schedule.setLastReview(now);
+        schedule.setDue(now + (long) (interval * DAY_MILLIS));
+    }
+
+    /**
+     * Gets the chance of remembering a flashcard.
+     *
+     * @param elapsedDays The days since the flashcard was last reviewed
+     * @param stability The flashcard's stability
+     * @return The chance of remembering the flashcard, from 0 to 1
+     */
+    public static double retrievability(double elapsedDays, double stability) {
+        return Math.pow(1 + FACTOR * elapsedDays / stability, DECAY);
+    }
+
+    private double nextInterval(double stability) {
+        double interval = stability / FACTOR * (Math.pow(requestRetention, 1 / DECAY) - 1);
+        return Math.min(MAX_INTERVAL_DAYS, Math.max(MIN_INTERVAL_DAYS, Math.round(interval)));
+    }
+
+    private double initialDifficulty(int grade) {
+        return clampDifficulty(w[4] - (grade - 3) * w[5]);
+    }
+
+    private double nextDifficulty(double difficulty, int grade) {
+        double next = difficulty - w[6] * (grade - 3);
+
+        // Mean reversion toward the difficulty of a new flashcard rated GOOD
+        return clampDifficulty(w[7] * initialDifficulty(3) + (1 - w[7]) * next);
+    }
+
+    private double recallStability(double difficulty, double stability, double retrievability,
+                                   Rating rating) {
+        double hardPenalty = rating == Rating.HARD ? w[15] : 1;
+        double easyBonus = rating == Rating.EASY ? w[16] : 1;
+
+        return stability * (Math.exp(w[8]) * (11 - difficulty) * Math.pow(stability, -w[9])
+                * (Math.exp(w[10] * (1 - retrievability)) - 1) * hardPenalty * easyBonus + 1);
+    }
+
+    private double forgetStability(double difficulty, double stability, double retrievability) {
+        double next = w[11] * Math.pow(difficulty, -w[12]) * (Math.pow(stability + 1, w[13]) - 1)
+                * Math.exp(w[14] * (1 - retrievability));
+
+        // Forgetting a flashcard never makes it more stable
+        return Math.min(stability, next);
+    }
+
+    private static double clampDifficulty(double difficulty) {
+        return Math.min(10, Math.max(1, difficulty));
+    }
+}
@@ -0,0 +1,52 @@
+package com.barnes.flashcards.scheduler;
+
+/**
+ * How well the user remembered a flashcard.
+ *
+ * <p> The review screens only know if an answer was right or wrong, so a rating is chosen from the
+ * answer and how long the user took to give it. </p>
+ */
+public enum Rating {
+    AGAIN(1),
+    HARD(2),
+    GOOD(3),
+    EASY(4);
+
+    // A correct answer that took longer than this was hard to remember
+    public static final long HARD_RESPONSE_MILLIS = 10_000;
+
+    // A correct answer that took less than this was easy to remember
+    public static final long EASY_RESPONSE_MILLIS = 2_000;
+
+    private final int grade;
+
+    Rating(int grade) {
+        this.grade = grade;
+    }
+
+    /**
+     * Gets the grade of the rating.
+     *
+     * @return The grade, from 1 for AGAIN to 4 for EASY
+     */
+    public int getGrade() {
+        return grade;
+    }
+
+    /**
+     * Chooses the rating for a multiple choice answer.
+     *
+     * @param isCorrect True if the answer was correct
+     * @param responseMillis The time the user took to answer, in milliseconds
+     * @return Returns AGAIN for a wrong answer, or HARD, GOOD or EASY depending on the response time
+     */
+    public static Rating fromAnswer(boolean isCorrect, long responseMillis) {
+        if (!isCorrect)
+            return AGAIN;
+        if (responseMillis >= HARD_RESPONSE_MILLIS)
+            return HARD;
+        if (responseMillis < EASY_RESPONSE_MILLIS)
+            return EASY;
+        return GOOD;
+    }
+}
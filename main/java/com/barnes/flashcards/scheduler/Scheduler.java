@@ -0,0 +1,22 @@
+package com.barnes.flashcards.scheduler;
+
+import com.barnes.flashcards.model.CardSchedule;
+
+/**
+ * Chooses when a flashcard should next be reviewed.
+ *
+ * <p> A scheduler updates a flashcard's schedule after it has been reviewed. Schedulers are plain
+ * Java with no Android or database code, so they can be tested and benchmarked on the JVM. </p>
+ */
+public interface Scheduler {
+    long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    /**
+     * Updates a schedule after its flashcard was reviewed.
+     *
+     * @param schedule The flashcard's schedule, which is changed in place
+     * @param rating How well the user remembered the flashcard
+     * @param now The time of the review, in epoch milliseconds
+     */
+    void review(CardSchedule schedule, Rating rating, long now);
+}
@@ -0,0 +1,66 @@
+package com.barnes.flashcards.scheduler;
+
+import com.barnes.flashcards.model.CardSchedule;
+
+/**
+ * The SM-2 spaced repetition algorithm.
+ *
+ * <p> A flashcard that is remembered is next due after 1 day, then 6 days, and then after its last
+ * interval times its ease factor. A flashcard that is forgotten starts again at 1 day. The ease
+ * factor goes up for easy answers and down for hard ones, but never below 1.3. </p>
+ */
+public class Sm2Scheduler implements Scheduler {
+    private static final double MIN_EASE = 1.3;
+
+    /**
+     * Updates a schedule after its flashcard was reviewed.
+     *
+     * @param schedule The flashcard's schedule, which is changed in place
+     * @param rating How well the user remembered the flashcard
+     * @param now The time of the review, in epoch milliseconds
+     */
+    @Override
+    public void review(CardSchedule schedule, Rating rating, long now) {
+        // SM-2 grades answers from 0 to 5, and anything under 3 is forgotten
+        int quality = toQuality(rating);
+        double interval;
+
+        if (quality < 3) {
+            // Only a flashcard that was remembered since it was last forgotten can lapse, so a new
+            // or already lapsed flashcard answered wrong again isn't counted
+            if (schedule.getReps() > 0)
+                schedule.setLapses(schedule.getLapses() + 1);
+            schedule.setReps(0);
+            interval = 1;
+        } else {
+            if (schedule.getReps() == 0)
+                interval = 1;
+            else if (schedule.getReps() == 1)
+                interval = 6;
+            else
+                interval = Math.round(schedule.getIntervalDays() * schedule.getEase());
+
+            schedule.setReps(schedule.getReps() + 1);
+        }
+
+        double ease = schedule.getEase() + 0.1 - (5 - quality) * (0.08 + (5 - quality) * 0.02);
+        schedule.setEase(Math.max(MIN_EASE, ease));
+
+        schedule.setIntervalDays(interval);
+        schedule.setLastReview(now);
+        schedule.setDue(now + (long) (interval * DAY_MILLIS));
+    }
+
+    private static int toQuality(Rating rating) {
+        switch (rating) {
+            case AGAIN:
+                return 1;
+            case HARD:
+                return 3;
+            case EASY:
+                return 5;
+            default:
+                return 4;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.barnes.flashcards.util;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of operation times, which can be recorded to from any thread without locking.
+ *
+ * <p> Each bucket holds the times up to twice the bucket before it, starting from 1 microsecond,
+ * so the last bucket holds everything over about 35 minutes. Recording a time is a few atomic
+ * adds. Percentiles are the upper bound of the bucket they fall in, so they are never reported as
+ * faster than they were, and are at most twice the real value. The row counts of the operations are
+ * added up with the times. </p>
+ */
+public class LatencyHistogram {
+    private static final int BUCKET_COUNT = 32;
+    private static final long FIRST_BUCKET_NANOS = 1000;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder totalRows = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records an operation.
+     *
+     * @param nanos The time the operation took, in nanoseconds
+     * @param rows The number of rows it read or wrote
+     */
+    public void record(long nanos, long rows) {
+        nanos = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        totalRows.add(rows);
+
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos))
+            max = maxNanos.get();
+    }
+
+    /**
+     * Gets the number of operations recorded.
+     *
+     * @return The number of operations
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the average number of rows of an operation.
+     *
+     * @return The average rows, or 0 if nothing was recorded
+     */
+    public double getMeanRows() {
+        long operations = count.sum();
+        return operations == 0 ? 0 : (double) totalRows.sum() / operations;
+    }
+
+    /**
+     * Gets the average time of an operation.
+     *
+     * @return The average time in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getMeanNanos() {
+        long operations = count.sum();
+        return operations == 0 ? 0 : totalNanos.sum() / operations;
+    }
+
+    /**
+     * Getter for maxNanos.
+     *
+     * @return The longest time recorded, in nanoseconds
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Gets a percentile of the recorded times.
+     *
+     * <p> Times recorded while this runs may or may not be counted. </p>
+     * @param percentile The percentile, from 0 to 100
+     * @return The upper bound of the bucket the percentile falls in, in nanoseconds, or 0 if nothing
+     *         was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(upperBoundOf(i), getMaxNanos());
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Clears every recorded time.
+     *
+     * <p> Times recorded while this runs may be partly kept. </p>
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            buckets.set(i, 0);
+        count.reset();
+        totalNanos.reset();
+        totalRows.reset();
+        maxNanos.set(0);
+    }
+
+    // Bucket 0 holds up to FIRST_BUCKET_NANOS, and each bucket after it twice the one before
+    private static int bucketOf(long nanos) {
+        if (nanos <= FIRST_BUCKET_NANOS)
+            return 0;
+        int bucket = 64 - Long.numberOfLeadingZeros((nanos - 1) / FIRST_BUCKET_NANOS);
+        return Math.min(BUCKET_COUNT - 1, bucket);
+    }
+
+    private static long upperBoundOf(int bucket) {
+        return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : FIRST_BUCKET_NANOS << bucket;
+    }
+
+    /**
+     * Overrides the toString() method.
+     *
+     * @return The count, mean rows, and mean, median, 90th and 99th percentile and maximum times in
+     *         milliseconds
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "count %d, rows %.1f, mean %.3f ms, p50 %.3f ms, p90 %.3f ms, " +
+                        "p99 %.3f ms, max %.3f ms", getCount(), getMeanRows(), getMeanNanos() / 1e6,
+                getPercentileNanos(50) / 1e6, getPercentileNanos(90) / 1e6, getPercentileNanos(99) / 1e6,
+                getMaxNanos() / 1e6);
+    }
+}
@@ -0,0 +1,119 @@
+package com.barnes.flashcards.util;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * The one place the app's performance metrics are collected.
+ *
+ * <p> There are three kinds of metric, each found by name. Timers are latency histograms and
+ * counters are sums, and both can be added to from any thread without locking. Gauges are read
+ * from their owner, such as a queue depth or a cache's hit rate, only when a snapshot is taken, so
+ * they cost nothing until someone looks. A gauge may read the database, so snapshots must be taken
+ * in a background thread. Names are grouped by the prefix before their first dot. </p>
+ */
+public final class MetricsRegistry {
+    private static final ConcurrentHashMap<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    /**
+     * Gets a timer, creating it if it doesn't exist.
+     *
+     * @param name The name of the timer
+     * @return The timer's histogram
+     */
+    public static LatencyHistogram timer(String name) {
+        LatencyHistogram timer = timers.get(name);
+        return timer != null ? timer : timers.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    /**
+     * Gets a counter, creating it if it doesn't exist.
+     *
+     * @param name The name of the counter
+     * @return The counter
+     */
+    public static LongAdder counter(String name) {
+        LongAdder counter = counters.get(name);
+        return counter != null ? counter : counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Adds a gauge, replacing any gauge with the same name.
+     *
+     * @param name The name of the gauge
+     * @param gauge Reads the gauge's current value
+     */
+    public static void registerGauge(String name, DoubleSupplier gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * Gets the timers whose names start with a prefix.
+     *
+     * @param prefix The prefix, or "" for every timer
+     * @return A map of timer names, without the prefix, to histograms, sorted by name
+     */
+    public static SortedMap<String, LatencyHistogram> getTimers(String prefix) {
+        return withPrefix(timers, prefix);
+    }
+
+    /**
+     * Gets the counters whose names start with a prefix.
+     *
+     * @param prefix The prefix, or "" for every counter
+     * @return A map of counter names, without the prefix, to counters, sorted by name
+     */
+    public static SortedMap<String, LongAdder> getCounters(String prefix) {
+        return withPrefix(counters, prefix);
+    }
+
+    /**
+     * Reads every metric. Must be called in a background thread, as gauges may read the database.
+     *
+     * @return A map of every metric name to its value as text, sorted by name
+     */
+    public static SortedMap<String, String> snapshot() {
+        SortedMap<String, String> values = new TreeMap<>();
+
+        for (Map.Entry<String, DoubleSupplier> entry : gauges.entrySet()) {
+            double value = entry.getValue().getAsDouble();
+            values.put(entry.getKey(), value == Math.rint(value) && !Double.isInfinite(value)
+                    ? String.valueOf((long) value) : String.format(Locale.ROOT, "%.3f", value));
+        }
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet())
+            values.put(entry.getKey(), String.valueOf(entry.getValue().sum()));
+        for (Map.Entry<String, LatencyHistogram> entry : timers.entrySet())
+            values.put(entry.getKey(), entry.getValue().toString());
+
+        return values;
+    }
+
+    /**
+     * Removes the timers and counters whose names start with a prefix. Gauges are kept.
+     *
+     * @param prefix The prefix, or "" for every timer and counter
+     */
+    public static void reset(String prefix) {
+        timers.keySet().removeIf(name -> name.startsWith(prefix));
+        counters.keySet().removeIf(name -> name.startsWith(prefix));
+    }
+
+    private static <V> SortedMap<String, V> withPrefix(Map<String, V> metrics, String prefix) {
+        SortedMap<String, V> matching = new TreeMap<>();
+        for (Map.Entry<String, V> entry : metrics.entrySet()) {
+            if (entry.getKey().startsWith(prefix))
+                matching.put(entry.getKey().substring(prefix.length()), entry.getValue());
+        }
+        return matching;
+    }
+}
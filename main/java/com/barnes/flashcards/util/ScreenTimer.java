@@ -0,0 +1,44 @@
+package com.barnes.flashcards.util;
+
+import android.os.SystemClock;
+
+/**
+ * Times how long a screen takes to show its content.
+ *
+ * <p> An activity creates a ScreenTimer when it is constructed, and calls recordShown() when its
+ * content first arrives. The time between them is recorded once, in the MetricsRegistry timer for
+ * the screen, so the histogram shows how long the screen takes to load each time it is opened.
+ * Called on the main thread. </p>
+ */
+public class ScreenTimer {
+    /**
+     * The prefix of the screen timers' names in the MetricsRegistry.
+     */
+    public static final String PREFIX = "screen.";
+
+    private final String screen;
+    private final long createdAt = SystemClock.elapsedRealtimeNanos();
+    private boolean isRecorded = false;
+
+    /**
+     * Constructor for ScreenTimer. Starts timing.
+     *
+     * @param screen The name of the screen
+     */
+    public ScreenTimer(String screen) {
+        this.screen = screen;
+    }
+
+    /**
+     * Records the time since the screen was created, if it hasn't been recorded already.
+     *
+     * @param rows The number of rows the screen is showing
+     */
+    public void recordShown(int rows) {
+        if (isRecorded)
+            return;
+
+        isRecorded = true;
+        MetricsRegistry.timer(PREFIX + screen).record(SystemClock.elapsedRealtimeNanos() - createdAt, rows);
+    }
+}
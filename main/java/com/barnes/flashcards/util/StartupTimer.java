@@ -0,0 +1,42 @@
+package com.barnes.flashcards.util;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Times how long the app takes to show its first rows.
+ *
+ * <p> The time is measured from the start of the process to the first query that returns rows to
+ * the first screen, so it includes creating or migrating the database. It is only recorded once
+ * per process, and is logged and kept in the MetricsRegistry with the screen load times. </p>
+ */
+public final class StartupTimer {
+    private static final String TAG = "StartupTimer";
+
+    private static volatile long firstRowsMillis = -1;
+
+    private StartupTimer() {
+    }
+
+    /**
+     * Records that the first rows were shown, if they haven't been already. Called on the main thread.
+     */
+    public static void recordFirstRows() {
+        if (firstRowsMillis >= 0)
+            return;
+
+        firstRowsMillis = SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+        MetricsRegistry.timer(ScreenTimer.PREFIX + "startup").record(firstRowsMillis * 1_000_000, 0);
+        Log.i(TAG, "First rows shown " + firstRowsMillis + " ms after the process started");
+    }
+
+    /**
+     * Gets the time from the start of the process to the first rows being shown.
+     *
+     * @return The time in milliseconds, or -1 if no rows have been shown yet
+     */
+    public static long getFirstRowsMillis() {
+        return firstRowsMillis;
+    }
+}
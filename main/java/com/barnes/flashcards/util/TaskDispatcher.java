@@ -0,0 +1,281 @@
+package com.barnes.flashcards.util;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.Locale;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * App-wide dispatcher for background reads.
+ *
+ * <p> Every screen runs its database reads through this class instead of creating its own thread.
+ * A small, fixed number of threads take tasks from a single queue. Tasks in the UI lane always run
+ * before tasks in the prefetch lane, and tasks in the same lane run in the order they were added.
+ * A task is tied to the lifecycle of the Activity or Fragment that started it, and is cancelled when
+ * that lifecycle is destroyed, so a screen that is left does not keep its reads waiting in the
+ * queue. The dispatcher also keeps the queue depth of each lane and how long tasks waited and ran,
+ * for diagnostics. </p>
+ */
+public final class TaskDispatcher {
+    // Two threads per core, with at least two and at most four threads
+    private static final int NUMBER_OF_THREADS =
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() * 2));
+
+    private static volatile TaskDispatcher INSTANCE;
+
+    /**
+     * The lanes a task can be added to.
+     */
+    public enum Priority {
+        // Reads the user is waiting on, such as loading the screen being shown
+        UI,
+        // Reads that may be needed later, which can wait for the UI reads
+        PREFETCH
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Metrics, indexed by Priority.ordinal()
+    private final AtomicIntegerArray queued = new AtomicIntegerArray(Priority.values().length);
+    private final AtomicLongArray completed = new AtomicLongArray(Priority.values().length);
+    private final AtomicLongArray cancelled = new AtomicLongArray(Priority.values().length);
+    private final AtomicLongArray totalWaitNanos = new AtomicLongArray(Priority.values().length);
+    private final AtomicLongArray totalRunNanos = new AtomicLongArray(Priority.values().length);
+    private final AtomicLongArray maxWaitNanos = new AtomicLongArray(Priority.values().length);
+
+    private TaskDispatcher() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "flashcards-reader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        // The queue is ordered by DispatchTask.compareTo(), so it must only be given DispatchTasks.
+        // Tasks are added to the queue directly instead of with execute(), see execute() below
+        executor = new ThreadPoolExecutor(NUMBER_OF_THREADS, NUMBER_OF_THREADS,
+                30, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+
+        MetricsRegistry.registerGauge("dispatcher.active_threads", this::getActiveCount);
+        MetricsRegistry.registerGauge("dispatcher.threads", executor::getPoolSize);
+        for (Priority priority : Priority.values()) {
+            String lane = "dispatcher." + priority.name().toLowerCase(Locale.ROOT) + ".";
+            MetricsRegistry.registerGauge(lane + "queue_depth", () -> getQueueDepth(priority));
+            MetricsRegistry.registerGauge(lane + "completed", () -> getCompletedCount(priority));
+            MetricsRegistry.registerGauge(lane + "cancelled", () -> getCancelledCount(priority));
+            MetricsRegistry.registerGauge(lane + "average_wait_ms", () -> getAverageWaitMillis(priority));
+            MetricsRegistry.registerGauge(lane + "max_wait_ms", () -> getMaxWaitMillis(priority));
+            MetricsRegistry.registerGauge(lane + "average_run_ms", () -> getAverageRunMillis(priority));
+        }
+    }
+
+    /**
+     * Gets the app-wide dispatcher.
+     *
+     * @return The TaskDispatcher instance
+     */
+    public static TaskDispatcher getInstance() {
+        if (INSTANCE == null) {
+            synchronized (TaskDispatcher.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new TaskDispatcher();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Runs a task in the UI lane.
+     *
+     * @param owner The Activity or Fragment the task belongs to
+     * @param task The task to run on a background thread
+     * @return Returns a future that can be used to cancel the task
+     */
+    public Future<?> execute(@NonNull LifecycleOwner owner, @NonNull Runnable task) {
+        return execute(owner, Priority.UI, task);
+    }
+
+    /**
+     * Runs a task in the given lane.
+     *
+     * <p> The task is cancelled if the owner's lifecycle is destroyed before it finishes. A task that
+     * is already running is interrupted. This method must be called on the main thread. </p>
+     * @param owner The Activity or Fragment the task belongs to
+     * @param priority The lane to add the task to
+     * @param task The task to run on a background thread
+     * @return Returns a future that can be used to cancel the task
+     */
+    public Future<?> execute(@NonNull LifecycleOwner owner, @NonNull Priority priority, @NonNull Runnable task) {
+        Lifecycle lifecycle = owner.getLifecycle();
+        DispatchTask dispatchTask = new DispatchTask(task, priority, lifecycle);
+
+        // Nothing to do for a screen that is already gone
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            dispatchTask.cancel(false);
+            return dispatchTask;
+        }
+
+        lifecycle.addObserver(dispatchTask.observer);
+        queued.incrementAndGet(priority.ordinal());
+
+        // ThreadPoolExecutor.execute() gives a task straight to a new thread while there are fewer
+        // than NUMBER_OF_THREADS, skipping the queue and every task waiting in it. So the task is
+        // always queued, and a thread is started to take it if one is missing, the way
+        // ScheduledThreadPoolExecutor queues its tasks
+        executor.getQueue().add(dispatchTask);
+        executor.prestartCoreThread();
+        return dispatchTask;
+    }
+
+    /**
+     * Gets the number of tasks waiting to run in a lane.
+     *
+     * @param priority The lane
+     * @return The number of queued tasks
+     */
+    public int getQueueDepth(Priority priority) {
+        return queued.get(priority.ordinal());
+    }
+
+    /**
+     * Gets the number of threads that are running a task.
+     *
+     * @return The approximate number of busy threads
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Gets the number of tasks that have finished running in a lane.
+     *
+     * @param priority The lane
+     * @return The number of completed tasks
+     */
+    public long getCompletedCount(Priority priority) {
+        return completed.get(priority.ordinal());
+    }
+
+    /**
+     * Gets the number of tasks in a lane that were cancelled, usually because their screen was left.
+     *
+     * @param priority The lane
+     * @return The number of cancelled tasks
+     */
+    public long getCancelledCount(Priority priority) {
+        return cancelled.get(priority.ordinal());
+    }
+
+    /**
+     * Gets the average time a task in a lane waited in the queue before it started running.
+     *
+     * @param priority The lane
+     * @return The average wait in milliseconds, or 0 if no task has run
+     */
+    public double getAverageWaitMillis(Priority priority) {
+        long count = completed.get(priority.ordinal());
+        return count == 0 ? 0.0 : totalWaitNanos.get(priority.ordinal()) / 1e6 / count;
+    }
+
+    /**
+     * Gets the longest time a task in a lane waited in the queue before it started running.
+     *
+     * @param priority The lane
+     * @return The longest wait in milliseconds
+     */
+    public double getMaxWaitMillis(Priority priority) {
+        return maxWaitNanos.get(priority.ordinal()) / 1e6;
+    }
+
+    /**
+     * Gets the average time a task in a lane took to run.
+     *
+     * @param priority The lane
+     * @return The average run time in milliseconds, or 0 if no task has run
+     */
+    public double getAverageRunMillis(Priority priority) {
+        long count = completed.get(priority.ordinal());
+        return count == 0 ? 0.0 : totalRunNanos.get(priority.ordinal()) / 1e6 / count;
+    }
+
+    /**
+     * A queued task, ordered by lane and then by the order it was added.
+     */
+    private final class DispatchTask extends FutureTask<Void> implements Comparable<DispatchTask> {
+        private final Priority priority;
+        private final long order = sequence.getAndIncrement();
+        private final long queuedAt = System.nanoTime();
+        private final Lifecycle lifecycle;
+        private final LifecycleEventObserver observer;
+
+        DispatchTask(Runnable task, Priority priority, Lifecycle lifecycle) {
+            super(task, null);
+            this.priority = priority;
+            this.lifecycle = lifecycle;
+
+            observer = (source, event) -> {
+                if (event == Lifecycle.Event.ON_DESTROY)
+                    cancel(true);
+            };
+        }
+
+        @Override
+        public void run() {
+            // A cancelled task stays in the queue until a thread takes it, so it is uncounted here
+            int lane = priority.ordinal();
+            queued.decrementAndGet(lane);
+
+            if (isCancelled())
+                return;
+
+            long startedAt = System.nanoTime();
+            super.run();
+
+            // A task cancelled while it was running is counted by done() instead, so the averages
+            // are only of the tasks that completed
+            if (isCancelled())
+                return;
+
+            long wait = startedAt - queuedAt;
+            totalWaitNanos.addAndGet(lane, wait);
+            maxWaitNanos.accumulateAndGet(lane, wait, Math::max);
+            totalRunNanos.addAndGet(lane, System.nanoTime() - startedAt);
+            completed.incrementAndGet(lane);
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled())
+                cancelled.incrementAndGet(priority.ordinal());
+
+            // Lifecycle observers can only be removed on the main thread
+            mainHandler.post(() -> lifecycle.removeObserver(observer));
+        }
+
+        @Override
+        public int compareTo(DispatchTask other) {
+            if (priority != other.priority)
+                return Integer.compare(priority.ordinal(), other.priority.ordinal());
+            return Long.compare(order, other.order);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.barnes.flashcards.dao;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.barnes.flashcards.database.FlashcardsRoomDatabase;
+import com.barnes.flashcards.model.Deck;
+import com.barnes.flashcards.model.Flashcard;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Samples review sessions from an in-memory database, on the JVM.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FlashcardDaoTest {
+    private static final int DECK_SIZE = 50;
+
+    private FlashcardsRoomDatabase database;
+    private FlashcardDao flashcardDao;
+    private int deckId;
+
+    @Before
+    public void createDatabase() {
+        database = FlashcardsRoomDatabase.buildInMemory(ApplicationProvider.getApplicationContext());
+        flashcardDao = database.flashcardDao();
+
+        Deck deck = new Deck();
+        deck.setTitle("Sample");
+        deckId = (int) database.deckDao().insert(deck);
+
+        // Every fifth flashcard is archived
+        for (int i = 0; i < DECK_SIZE; i++) {
+            Flashcard.Status status = i % 5 == 0 ? Flashcard.Status.ARCHIVED : Flashcard.Status.STILL_LEARNING;
+            flashcardDao.insert(new Flashcard(0, "front " + i, "back " + i, status, deckId));
+        }
+    }
+
+    @After
+    public void closeDatabase() {
+        database.close();
+    }
+
+    @Test
+    public void sampleIsDistinctAndNotArchived() {
+        List<Flashcard> sample = flashcardDao.sampleCards(deckId, 10);
+        assertEquals(10, sample.size());
+
+        Set<Integer> cardIds = new HashSet<>();
+        for (Flashcard flashcard : sample) {
+            assertTrue(cardIds.add(flashcard.getCardId()));
+            assertEquals(deckId, flashcard.getDeckId());
+            assertNotEquals(Flashcard.Status.ARCHIVED, flashcard.getStatus());
+        }
+    }
+
+    @Test
+    public void sampleIsCutToTheNonArchivedFlashcards() {
+        assertEquals(DECK_SIZE - DECK_SIZE / 5, flashcardDao.sampleCards(deckId, DECK_SIZE).size());
+    }
+
+    @Test
+    public void sampleOfAnUnknownDeckIsEmpty() {
+        assertTrue(flashcardDao.sampleCards(deckId + 1, 10).isEmpty());
+    }
+
+    @Test
+    public void flashcardRunIsInIdOrderAndNotArchived() {
+        int minId = flashcardDao.getMinCardId(deckId);
+        int maxId = flashcardDao.getMaxCardId(deckId);
+        assertEquals(DECK_SIZE - 1, maxId - minId);
+
+        List<Flashcard> run = flashcardDao.getFlashcardRun(deckId, minId + 10, maxId, 12);
+        assertEquals(12, run.size());
+
+        int lastId = minId + 9;
+        for (Flashcard flashcard : run) {
+            assertTrue(flashcard.getCardId() > lastId);
+            assertNotEquals(Flashcard.Status.ARCHIVED, flashcard.getStatus());
+            lastId = flashcard.getCardId();
+        }
+
+        // The run stops at toId, however many flashcards are asked for
+        assertEquals(4, flashcardDao.getFlashcardRun(deckId, minId, minId + 4, 10).size());
+        assertNull(flashcardDao.getMinCardId(deckId + 1));
+    }
+}
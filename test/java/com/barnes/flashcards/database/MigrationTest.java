@@ -0,0 +1,212 @@
+package com.barnes.flashcards.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteStatement;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.barnes.flashcards.model.Deck;
+import com.barnes.flashcards.model.Flashcard;
+import com.barnes.flashcards.model.FlashcardMatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Upgrades a version 1 database through every migration, on the JVM.
+ *
+ * <p> The version 1 tables are created by hand, as Room created them before there were migrations,
+ * and filled with more flashcards than a chunk of SCHEDULE_BACKFILL. Room then opens the database
+ * with Migrations.ALL, and fails to open it if the migrated schema doesn't match the entities. The
+ * tests check what the schema check can't: the rows, counts and triggers. </p>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class MigrationTest {
+    private static final String DATABASE_NAME = "migration-test";
+
+    // Decks 1 and 2 have flashcards, and deck 3 was deleted so its ID is in sqlite_sequence
+    private static final int CARDS_IN_DECK_1 = Migrations.CHUNK_SIZE + 500;
+    private static final int CARDS_IN_DECK_2 = 4;
+    private static final LocalDateTime REVIEWED = LocalDateTime.of(2023, 5, 17, 9, 30, 15);
+
+    private Context context;
+    private FlashcardsRoomDatabase database;
+
+    @Before
+    public void createVersion1() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE_NAME);
+
+        SupportSQLiteOpenHelper helper = new FrameworkSQLiteOpenHelperFactory().create(
+                SupportSQLiteOpenHelper.Configuration.builder(context)
+                        .name(DATABASE_NAME)
+                        .callback(new SupportSQLiteOpenHelper.Callback(1) {
+                            @Override
+                            public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                                db.execSQL("CREATE TABLE IF NOT EXISTS `deck_table` (" +
+                                        "`deck_id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                                        "`size` INTEGER NOT NULL, `total_guesses` INTEGER NOT NULL, " +
+                                        "`total_right` INTEGER NOT NULL, `title` TEXT, `time_reviewed` TEXT)");
+                                db.execSQL("CREATE TABLE IF NOT EXISTS `flashcard_table` (" +
+                                        "`cardId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `front` TEXT, " +
+                                        "`back` TEXT, `status` TEXT, `deck_id` INTEGER NOT NULL, " +
+                                        "FOREIGN KEY(`deck_id`) REFERENCES `deck_table`(`deck_id`) " +
+                                        "ON UPDATE NO ACTION ON DELETE CASCADE )");
+                            }
+
+                            @Override
+                            public void onUpgrade(@NonNull SupportSQLiteDatabase db, int oldVersion, int newVersion) {
+                            }
+                        })
+                        .build());
+
+        SupportSQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            // Version 1 stored the time as LocalDateTime.toString(), and its sizes could be wrong
+            db.execSQL("INSERT INTO `deck_table` VALUES (1, 0, 10, 7, 'Deck 1', ?)",
+                    new Object[]{REVIEWED.toString()});
+            db.execSQL("INSERT INTO `deck_table` VALUES (2, 99, 0, 0, 'Deck 2', 'not a time')");
+            db.execSQL("INSERT INTO `deck_table` VALUES (3, 0, 0, 0, 'Deck 3', NULL)");
+            db.execSQL("DELETE FROM `deck_table` WHERE `deck_id` = 3");
+
+            SupportSQLiteStatement insert = db.compileStatement("INSERT INTO `flashcard_table` " +
+                    "(`front`, `back`, `status`, `deck_id`) VALUES (?, ?, ?, ?)");
+            for (int i = 0; i < CARDS_IN_DECK_1; i++) {
+                insert.bindString(1, "front " + i);
+                insert.bindString(2, "back " + i);
+                insert.bindString(3, i % 10 == 0 ? "ARCHIVED" : i % 2 == 0 ? "LEARNED" : "STILL_LEARNING");
+                insert.bindLong(4, 1);
+                insert.executeInsert();
+            }
+            for (int i = 0; i < CARDS_IN_DECK_2; i++) {
+                insert.bindString(1, "gato " + i);
+                insert.bindString(2, "cat " + i);
+                insert.bindString(3, "STILL_LEARNING");
+                insert.bindLong(4, 2);
+                insert.executeInsert();
+            }
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        helper.close();
+
+        database = Room.databaseBuilder(context, FlashcardsRoomDatabase.class, DATABASE_NAME)
+                .addMigrations(Migrations.ALL)
+                .allowMainThreadQueries()
+                .build();
+
+        // Runs every migration, and checks the schema
+        database.getOpenHelper().getWritableDatabase();
+    }
+
+    @After
+    public void closeDatabase() {
+        database.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void deckCountsAreRecounted() {
+        Deck deck1 = database.deckDao().getDeckFromId(1);
+        assertEquals(CARDS_IN_DECK_1, deck1.getSize());
+        assertEquals(CARDS_IN_DECK_1 / 10, deck1.getArchivedCount());
+        assertEquals(CARDS_IN_DECK_1 / 2 - CARDS_IN_DECK_1 / 10, deck1.getLearnedCount());
+        assertEquals(CARDS_IN_DECK_1 / 2, deck1.getStillLearningCount());
+
+        Deck deck2 = database.deckDao().getDeckFromId(2);
+        assertEquals(CARDS_IN_DECK_2, deck2.getSize());
+        assertEquals(CARDS_IN_DECK_2, deck2.getStillLearningCount());
+    }
+
+    @Test
+    public void reviewTimesAreConvertedToMillis() {
+        Deck deck1 = database.deckDao().getDeckFromId(1);
+        assertEquals(DatabaseConverter.dateTimeToMillis(REVIEWED), deck1.getTimeReviewedMillis());
+        assertEquals(10, deck1.getTotalGuesses());
+        assertEquals(7, deck1.getTotalRight());
+
+        // A time that couldn't be parsed is unknown
+        assertNull(database.deckDao().getDeckFromId(2).getTimeReviewedMillis());
+    }
+
+    @Test
+    public void deletedDeckIdsAreNotGivenOutAgain() {
+        long deckId = database.deckDao().insert(new Deck());
+        assertEquals(4, deckId);
+    }
+
+    @Test
+    public void existingFlashcardsAreSearchable() {
+        List<FlashcardMatch> matches = database.flashcardDao().matchFlashcards("gato*", 10);
+        assertEquals(CARDS_IN_DECK_2, matches.size());
+    }
+
+    @Test
+    public void existingFlashcardsAreReviewableBeforeTheBackfill() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        assertTrue(Migrations.SCHEDULE_BACKFILL.isPending(db));
+
+        // The schedules don't exist yet, so only the query that treats them as due finds the flashcards
+        assertTrue(database.cardScheduleDao().getNextCards(2, 10).isEmpty());
+        assertEquals(CARDS_IN_DECK_2, database.cardScheduleDao()
+                .getNextCardsWithUnscheduled(2, System.currentTimeMillis(), 10).size());
+    }
+
+    @Test
+    public void backfillSchedulesEveryFlashcardInChunks() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        Migrations.SCHEDULE_BACKFILL.runToCompletion(db);
+
+        assertFalse(Migrations.SCHEDULE_BACKFILL.isPending(db));
+        assertEquals(CARDS_IN_DECK_1 + CARDS_IN_DECK_2, count(db, "SELECT COUNT(*) FROM `card_schedule`"));
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM `card_schedule` s JOIN `flashcard_table` f " +
+                "ON f.`cardId` = s.`card_id` WHERE s.`deck_id` != f.`deck_id`"));
+        assertEquals(CARDS_IN_DECK_2, database.cardScheduleDao().getNextCards(2, 10).size());
+    }
+
+    @Test
+    public void triggersKeepCountsAndSchedulesAfterMigrating() {
+        Flashcard flashcard = new Flashcard();
+        flashcard.setFront("perro");
+        flashcard.setBack("dog");
+        flashcard.setStatus(Flashcard.Status.LEARNED);
+        flashcard.setDeckId(2);
+        int cardId = (int) database.flashcardDao().insert(flashcard);
+
+        Deck deck2 = database.deckDao().getDeckFromId(2);
+        assertEquals(CARDS_IN_DECK_2 + 1, deck2.getSize());
+        assertEquals(1, deck2.getLearnedCount());
+        assertEquals(2, database.cardScheduleDao().getSchedule(cardId).getDeckId());
+
+        database.flashcardDao().deleteFlashcards(Collections.singletonList(cardId));
+        assertEquals(CARDS_IN_DECK_2, database.deckDao().getDeckFromId(2).getSize());
+    }
+
+    private static long count(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        }
+    }
+}
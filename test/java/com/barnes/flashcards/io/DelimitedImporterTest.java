@@ -0,0 +1,110 @@
+package com.barnes.flashcards.io;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.barnes.flashcards.database.FlashcardsRoomDatabase;
+import com.barnes.flashcards.database.WriteQueue;
+import com.barnes.flashcards.model.Deck;
+import com.barnes.flashcards.model.Flashcard;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Imports files into an in-memory database, on the JVM.
+ *
+ * <p> The format tests check that only a type or extension naming the format is trusted, and that
+ * other files are read with the delimiter of their first row. The import speed is measured on a
+ * device by ImportBenchmark instead, as a time taken on the JVM says little about a phone. </p>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DelimitedImporterTest {
+    // The longest to wait for the writer thread to stop after each test
+    private static final long SHUTDOWN_MILLIS = 5_000;
+
+    private FlashcardsRoomDatabase database;
+    private WriteQueue writeQueue;
+    private DelimitedImporter importer;
+    private int deckId;
+
+    @Before
+    public void createDatabase() {
+        database = FlashcardsRoomDatabase.buildInMemory(ApplicationProvider.getApplicationContext());
+        writeQueue = new WriteQueue(database);
+        importer = new DelimitedImporter(writeQueue, database.flashcardDao());
+
+        Deck deck = new Deck();
+        deck.setTitle("Import");
+        deckId = (int) database.deckDao().insert(deck);
+    }
+
+    @After
+    public void closeDatabase() throws InterruptedException {
+        writeQueue.shutdown();
+        assertTrue(writeQueue.awaitTermination(SHUTDOWN_MILLIS));
+        database.close();
+    }
+
+    @Test
+    public void formatIsOnlyTakenFromTypesAndNamesThatSayIt() {
+        assertEquals(DelimitedImporter.Format.TSV, DelimitedImporter.Format.fromFile("text/tab-separated-values", null));
+        assertEquals(DelimitedImporter.Format.CSV, DelimitedImporter.Format.fromFile("text/csv", "cards.txt"));
+        assertEquals(DelimitedImporter.Format.TSV, DelimitedImporter.Format.fromFile(null, "Cards.TSV"));
+        assertEquals(DelimitedImporter.Format.CSV, DelimitedImporter.Format.fromFile(null, "cards.csv"));
+        assertNull(DelimitedImporter.Format.fromFile("text/plain", "cards.txt"));
+        assertNull(DelimitedImporter.Format.fromFile(null, null));
+    }
+
+    @Test
+    public void formatIsDetectedFromTheFirstRow() {
+        assertEquals(DelimitedImporter.Format.TSV, DelimitedImporter.Format.detect("gato\tcat, a pet\nperro\tdog"));
+        assertEquals(DelimitedImporter.Format.CSV, DelimitedImporter.Format.detect("gato,cat\nperro\tdog\tLEARNED"));
+
+        // Delimiters inside quotes, and rows after the first, aren't counted
+        assertEquals(DelimitedImporter.Format.TSV, DelimitedImporter.Format.detect("\"a, b, c\"\tletters\n1,2,3,4"));
+        assertEquals(DelimitedImporter.Format.CSV, DelimitedImporter.Format.detect("\"tab\there\",x"));
+        assertEquals(DelimitedImporter.Format.CSV, DelimitedImporter.Format.detect("one column"));
+    }
+
+    @Test
+    public void textFilesAreImportedWithTheDetectedDelimiter() throws IOException {
+        DelimitedImporter.Result tabs = importer.importInto(deckId,
+                toStream("front\tback\ngato\tcat, a pet\nperro\tdog\tLearned\n"), null, null);
+        assertEquals(2, tabs.getImported());
+        assertEquals(0, tabs.getSkipped());
+
+        DelimitedImporter.Result commas = importer.importInto(deckId,
+                toStream("pez,fish\npájaro,\"bird, small\"\n"), null, null);
+        assertEquals(2, commas.getImported());
+
+        List<Flashcard> flashcards = database.flashcardDao().getFlashcardsInDeck(deckId);
+        assertEquals(4, flashcards.size());
+        assertTrue(hasFlashcard(flashcards, "gato", "cat, a pet"));
+        assertTrue(hasFlashcard(flashcards, "pájaro", "bird, small"));
+    }
+
+    private static InputStream toStream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean hasFlashcard(List<Flashcard> flashcards, String front, String back) {
+        for (Flashcard flashcard : flashcards) {
+            if (front.equals(flashcard.getFront()) && back.equals(flashcard.getBack()))
+                return true;
+        }
+        return false;
+    }
+}
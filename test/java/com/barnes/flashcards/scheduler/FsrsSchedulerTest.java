@@ -0,0 +1,118 @@
+package com.barnes.flashcards.scheduler;
+
+import com.barnes.flashcards.model.CardSchedule;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the FSRS-4.5 stability, difficulty and intervals with the default weights.
+ */
+public class FsrsSchedulerTest {
+    private static final long START = 1_700_000_000_000L;
+    private static final double DELTA = 1e-9;
+
+    private final FsrsScheduler scheduler = new FsrsScheduler();
+
+    @Test
+    public void retrievabilityIsNinetyPercentAfterStabilityDays() {
+        assertEquals(1.0, FsrsScheduler.retrievability(0, 5), DELTA);
+        assertEquals(0.9, FsrsScheduler.retrievability(5, 5), DELTA);
+        assertTrue(FsrsScheduler.retrievability(50, 5) < 0.9);
+    }
+
+    @Test
+    public void newCardTakesItsStabilityFromTheRating() {
+        CardSchedule schedule = new CardSchedule();
+        scheduler.review(schedule, Rating.GOOD, START);
+
+        // At 90% requested retention the interval is the stability, rounded to whole days
+        assertEquals(3.7145, schedule.getStability(), DELTA);
+        assertEquals(5.1618, schedule.getDifficulty(), DELTA);
+        assertEquals(4, schedule.getIntervalDays(), DELTA);
+        assertEquals(START + 4 * Scheduler.DAY_MILLIS, schedule.getDue());
+        assertEquals(START, schedule.getLastReview());
+        assertEquals(1, schedule.getReps());
+    }
+
+    @Test
+    public void intervalIsAtLeastOneDay() {
+        CardSchedule schedule = new CardSchedule();
+        scheduler.review(schedule, Rating.AGAIN, START);
+
+        assertEquals(0.4872, schedule.getStability(), DELTA);
+        assertEquals(1, schedule.getIntervalDays(), DELTA);
+    }
+
+    @Test
+    public void rememberingOnTimeMakesTheCardMoreStable() {
+        CardSchedule schedule = new CardSchedule();
+        scheduler.review(schedule, Rating.GOOD, START);
+        double stability = schedule.getStability();
+
+        scheduler.review(schedule, Rating.GOOD, schedule.getDue());
+
+        assertTrue(schedule.getStability() > stability);
+        assertTrue(schedule.getIntervalDays() > 4);
+        assertEquals(0, schedule.getLapses());
+    }
+
+    @Test
+    public void forgettingCountsALapseAndNeverRaisesStability() {
+        CardSchedule schedule = new CardSchedule();
+        scheduler.review(schedule, Rating.GOOD, START);
+        scheduler.review(schedule, Rating.GOOD, schedule.getDue());
+        double stability = schedule.getStability();
+        double difficulty = schedule.getDifficulty();
+
+        scheduler.review(schedule, Rating.AGAIN, schedule.getDue());
+
+        assertEquals(1, schedule.getLapses());
+        assertTrue(schedule.getStability() <= stability);
+        assertTrue(schedule.getDifficulty() > difficulty);
+    }
+
+    @Test
+    public void easierRatingsGiveLongerIntervals() {
+        double[] intervals = new double[Rating.values().length];
+
+        for (Rating rating : Rating.values()) {
+            CardSchedule schedule = new CardSchedule();
+            scheduler.review(schedule, Rating.GOOD, START);
+            scheduler.review(schedule, rating, schedule.getDue());
+            intervals[rating.ordinal()] = schedule.getIntervalDays();
+        }
+
+        for (int i = 1; i < intervals.length; i++)
+            assertTrue(intervals[i] > intervals[i - 1]);
+    }
+
+    @Test
+    public void difficultyStaysBetweenOneAndTen() {
+        CardSchedule easy = new CardSchedule();
+        CardSchedule hard = new CardSchedule();
+        long now = START;
+
+        for (int i = 0; i < 50; i++) {
+            scheduler.review(easy, Rating.EASY, now);
+            scheduler.review(hard, Rating.AGAIN, now);
+            now += Scheduler.DAY_MILLIS;
+        }
+
+        assertTrue(easy.getDifficulty() >= 1);
+        assertTrue(hard.getDifficulty() <= 10);
+        assertTrue(easy.getIntervalDays() <= 36500);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void weightsMustBeTheFsrsWeights() {
+        new FsrsScheduler(new double[]{1, 2, 3}, 0.9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void retentionMustBeBelowOne() {
+        new FsrsScheduler(new double[17], 1.0);
+    }
+}
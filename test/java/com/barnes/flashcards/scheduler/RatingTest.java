@@ -0,0 +1,42 @@
+package com.barnes.flashcards.scheduler;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests choosing a rating from a multiple choice answer.
+ */
+public class RatingTest {
+    @Test
+    public void wrongAnswerIsAgainHoweverFast() {
+        assertEquals(Rating.AGAIN, Rating.fromAnswer(false, 0));
+        assertEquals(Rating.AGAIN, Rating.fromAnswer(false, Rating.HARD_RESPONSE_MILLIS));
+    }
+
+    @Test
+    public void slowCorrectAnswerIsHard() {
+        assertEquals(Rating.HARD, Rating.fromAnswer(true, Rating.HARD_RESPONSE_MILLIS));
+        assertEquals(Rating.HARD, Rating.fromAnswer(true, Rating.HARD_RESPONSE_MILLIS * 10));
+    }
+
+    @Test
+    public void correctAnswerBetweenTheThresholdsIsGood() {
+        assertEquals(Rating.GOOD, Rating.fromAnswer(true, Rating.EASY_RESPONSE_MILLIS));
+        assertEquals(Rating.GOOD, Rating.fromAnswer(true, Rating.HARD_RESPONSE_MILLIS - 1));
+    }
+
+    @Test
+    public void fastCorrectAnswerIsEasy() {
+        assertEquals(Rating.EASY, Rating.fromAnswer(true, 0));
+        assertEquals(Rating.EASY, Rating.fromAnswer(true, Rating.EASY_RESPONSE_MILLIS - 1));
+    }
+
+    @Test
+    public void gradesGoFromOneToFour() {
+        assertEquals(1, Rating.AGAIN.getGrade());
+        assertEquals(2, Rating.HARD.getGrade());
+        assertEquals(3, Rating.GOOD.getGrade());
+        assertEquals(4, Rating.EASY.getGrade());
+    }
+}
@@ -0,0 +1,95 @@
+package com.barnes.flashcards.scheduler;
+
+import com.barnes.flashcards.model.CardSchedule;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the SM-2 intervals, ease factor and lapses.
+ */
+public class Sm2SchedulerTest {
+    private static final long START = 1_700_000_000_000L;
+    private static final double DELTA = 1e-9;
+
+    private final Sm2Scheduler scheduler = new Sm2Scheduler();
+
+    @Test
+    public void rememberedCardIsDueAfterOneThenSixDaysThenByEase() {
+        CardSchedule schedule = new CardSchedule();
+
+        scheduler.review(schedule, Rating.GOOD, START);
+        assertEquals(1, schedule.getIntervalDays(), DELTA);
+        assertEquals(START + Scheduler.DAY_MILLIS, schedule.getDue());
+
+        long second = schedule.getDue();
+        scheduler.review(schedule, Rating.GOOD, second);
+        assertEquals(6, schedule.getIntervalDays(), DELTA);
+        assertEquals(second + 6 * Scheduler.DAY_MILLIS, schedule.getDue());
+
+        // GOOD keeps the ease at 2.5, so the next interval is 6 * 2.5
+        scheduler.review(schedule, Rating.GOOD, schedule.getDue());
+        assertEquals(CardSchedule.INITIAL_EASE, schedule.getEase(), DELTA);
+        assertEquals(15, schedule.getIntervalDays(), DELTA);
+        assertEquals(3, schedule.getReps());
+        assertEquals(0, schedule.getLapses());
+    }
+
+    @Test
+    public void forgottenCardStartsAgainAndCountsALapse() {
+        CardSchedule schedule = new CardSchedule();
+        scheduler.review(schedule, Rating.GOOD, START);
+        scheduler.review(schedule, Rating.GOOD, schedule.getDue());
+
+        long lapsedAt = schedule.getDue();
+        scheduler.review(schedule, Rating.AGAIN, lapsedAt);
+
+        assertEquals(0, schedule.getReps());
+        assertEquals(1, schedule.getLapses());
+        assertEquals(1, schedule.getIntervalDays(), DELTA);
+        assertEquals(lapsedAt, schedule.getLastReview());
+        assertEquals(lapsedAt + Scheduler.DAY_MILLIS, schedule.getDue());
+        assertEquals(1.96, schedule.getEase(), DELTA);
+    }
+
+    @Test
+    public void newCardAnsweredWrongIsNotALapse() {
+        CardSchedule schedule = new CardSchedule();
+        scheduler.review(schedule, Rating.AGAIN, START);
+
+        assertEquals(0, schedule.getLapses());
+        assertEquals(1, schedule.getIntervalDays(), DELTA);
+    }
+
+    @Test
+    public void forgettingAgainBeforeRememberingIsNotAnotherLapse() {
+        CardSchedule schedule = new CardSchedule();
+        for (int i = 0; i < 5; i++)
+            scheduler.review(schedule, Rating.AGAIN, START + i * Scheduler.DAY_MILLIS);
+        assertEquals(0, schedule.getLapses());
+
+        // Once it is remembered, forgetting it is one lapse however many times it is answered wrong
+        scheduler.review(schedule, Rating.GOOD, START + 5 * Scheduler.DAY_MILLIS);
+        scheduler.review(schedule, Rating.AGAIN, START + 6 * Scheduler.DAY_MILLIS);
+        scheduler.review(schedule, Rating.AGAIN, START + 7 * Scheduler.DAY_MILLIS);
+        assertEquals(1, schedule.getLapses());
+        assertEquals(0, schedule.getReps());
+    }
+
+    @Test
+    public void easeChangesWithTheRatingButNeverDropsBelowTheMinimum() {
+        CardSchedule easy = new CardSchedule();
+        scheduler.review(easy, Rating.EASY, START);
+        assertEquals(CardSchedule.INITIAL_EASE + 0.1, easy.getEase(), DELTA);
+
+        CardSchedule hard = new CardSchedule();
+        scheduler.review(hard, Rating.HARD, START);
+        assertEquals(CardSchedule.INITIAL_EASE - 0.14, hard.getEase(), DELTA);
+
+        CardSchedule forgotten = new CardSchedule();
+        for (int i = 0; i < 10; i++)
+            scheduler.review(forgotten, Rating.AGAIN, START + i * Scheduler.DAY_MILLIS);
+        assertEquals(1.3, forgotten.getEase(), DELTA);
+    }
+}